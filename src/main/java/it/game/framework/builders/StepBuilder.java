@@ -5,11 +5,13 @@ import it.game.framework.exceptions.GameException;
 import it.game.framework.stateconnections.DirectStateConnection;
 import it.game.framework.stateconnections.ExceptionStateConnection;
 import it.game.framework.stateconnections.GameStateConnection;
+import it.game.framework.stateconnections.TimedStateConnection;
 import it.game.framework.stateconnections.interfaces.Expression;
 import it.game.framework.statemachines.StateMachine;
 import it.game.framework.states.GameState;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.List;
 
@@ -58,6 +60,7 @@ public class StepBuilder {
             machine.getStates().add(0, GameState);
         }
         machine.setStartState(GameState);
+        machine.invalidate();
         last = GameState;
         return this;
     }
@@ -70,6 +73,7 @@ public class StepBuilder {
      */
     public StepBuilder addGameState(GameState GameState) {
         machine.getStates().add(GameState);
+        machine.invalidate();
         last = GameState;
         return this;
     }
@@ -82,6 +86,7 @@ public class StepBuilder {
      */
     public StepBuilder addConnection(GameStateConnection GameStateConnection) {
         machine.getConnections().add(GameStateConnection);
+        machine.invalidate();
         return this;
     }
 
@@ -139,11 +144,48 @@ public class StepBuilder {
      * @return This instance of teh StepBuilder
      */
     public StepBuilder addExceptionConnection(String expressionDescription, Exception exception, GameState startingState, GameState resultState) {
+        return addExceptionConnection(expressionDescription, exception, startingState, resultState, false);
+    }
+
+    /**
+     * This method creates and add an ExceptionGameStateConnection
+     * that can roll the GameContext back, if the context is Snapshottable
+     * and the connection handles an exception the context is restored
+     * to the content it had when the failed state was entered.
+     * @param expressionDescription Is a short description of the expression to show inside the machine's renderings
+     * @param exception The exception to catch
+     * @param startingState The state where the connection start from
+     * @param resultState The state where the connection ends to
+     * @param rollback True to roll the context back when the exception is handled
+     * @return This instance of teh StepBuilder
+     */
+    public StepBuilder addExceptionConnection(String expressionDescription, Exception exception, GameState startingState, GameState resultState, boolean rollback) {
         return addConnection(
                 new ExceptionStateConnection(
                         expressionDescription,
                         startingState,
                         exception,
+                        resultState,
+                        rollback
+                )
+        );
+    }
+
+    /**
+     * This method creates and add a TimedStateConnection,
+     * this kind of connection returns true when the machine has been
+     * in the starting state for longer than the delay
+     * (e.g. after 30 seconds go to the TIMEOUT state)
+     * @param startingState The state where the connection start from
+     * @param delay The time after which the connection returns true
+     * @param resultState The state where the connection ends to
+     * @return This instance of the StepBuilder
+     */
+    public StepBuilder addTimedConnection(GameState startingState, Duration delay, GameState resultState) {
+        return addConnection(
+                new TimedStateConnection(
+                        startingState,
+                        delay,
                         resultState
                 )
         );
@@ -193,6 +235,19 @@ public class StepBuilder {
         return addExceptionConnection(expressionDescription, exception, last, resultState);
     }
 
+    /**
+     * This method creates and add a TimedStateConnection,
+     * this kind of connection returns true when the machine has been
+     * in the starting state for longer than the delay.
+     * The starting state is the last state added to the machine
+     * @param delay The time after which the connection returns true
+     * @param resultState The state where the connection ends to
+     * @return This instance of the StepBuilder
+     */
+    public StepBuilder addTimedConnectionFromLastState(Duration delay, GameState resultState) {
+        return addTimedConnection(last, delay, resultState);
+    }
+
     /**
      * This method adds a GameStateConnection to the
      * list of global connections in the state machine.
@@ -203,6 +258,7 @@ public class StepBuilder {
      */
     public StepBuilder addGlobalConnection(GameStateConnection GameStateConnection) {
         machine.getGlobalConnections().add(GameStateConnection);
+        machine.invalidate();
         return this;
     }
 
@@ -242,21 +298,47 @@ public class StepBuilder {
      * @return This instance of teh StepBuilder
      */
     public StepBuilder addGlobalExceptionConnection(String expressionDescription, Exception exception, GameState resultState) {
+        return addGlobalExceptionConnection(expressionDescription, exception, resultState, false);
+    }
+
+    /**
+     * This method creates and add a global ExceptionGameStateConnection
+     * that can roll the GameContext back to the content it had
+     * when the failed state was entered, if the context is Snapshottable.
+     * @param expressionDescription Is a short description of the expression to show inside the machine's renderings
+     * @param exception The exception to catch
+     * @param resultState The state where the connection ends to
+     * @param rollback True to roll the context back when the exception is handled
+     * @return This instance of teh StepBuilder
+     */
+    public StepBuilder addGlobalExceptionConnection(String expressionDescription, Exception exception, GameState resultState, boolean rollback) {
         return addGlobalConnection(
                 new ExceptionStateConnection(
                         expressionDescription,
                         null,
                         exception,
-                        resultState
+                        resultState,
+                        rollback
                 )
         );
     }
 
+    /**
+     * Declares the keys used by the GameStates and the expressions of the machine,
+     * assigning them a slot in the SlotLayout of the machine
+     * @param keys The keys to declare
+     * @return This instance of the StepBuilder
+     */
+    public StepBuilder declareKey(String... keys) {
+        for (String key : keys) machine.getLayout().declare(key);
+        return this;
+    }
+
     /**
      * The last method to be used to finalize the
      * modifications of StepBuilder, this method
      * checks the possible errors inside the machine
-     * and build it.
+     * and build it compiling its transition table.
      */
     public void build() {
         log.info("Building machine...");
@@ -311,6 +393,7 @@ public class StepBuilder {
         } catch (Exception e) {
             log.error(GameException.format(e));
         }
+        machine.compile();
         log.info("Machine built!");
     }
 
@@ -5,6 +5,7 @@ import it.game.framework.exceptions.GameException;
 import it.game.framework.stateconnections.DirectStateConnection;
 import it.game.framework.stateconnections.ExceptionStateConnection;
 import it.game.framework.stateconnections.GameStateConnection;
+import it.game.framework.stateconnections.TimedStateConnection;
 import it.game.framework.stateconnections.interfaces.Expression;
 import it.game.framework.statemachines.StateMachine;
 import it.game.framework.states.GameState;
@@ -20,10 +21,12 @@ import pl.joegreen.lambdaFromString.TypeReference;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -69,6 +72,13 @@ public class YamlBuilder {
     }
 
 
+    private static final Map<String, String> PRIMITIVE_GETTERS = Map.of(
+            "Integer", "getInt", "int", "getInt",
+            "Long", "getLong", "long", "getLong",
+            "Double", "getDouble", "double", "getDouble",
+            "Boolean", "getBoolean", "boolean", "getBoolean"
+    );
+
     private final StateMachine machine;
     private final String yamlPath;
     private final List<String> keywordList;
@@ -87,7 +97,7 @@ public class YamlBuilder {
     private YamlBuilder(StateMachine machine, String yamlPath) {
         this.machine = machine;
         this.yamlPath = yamlPath;
-        this.keywordList = List.of("GOTO", "goto", "CATCH", "catch", "EXIT", "exit");
+        this.keywordList = List.of("GOTO", "goto", "CATCH", "catch", "AFTER", "after", "EXIT", "exit");
     }
 
     /**
@@ -95,7 +105,7 @@ public class YamlBuilder {
      * the YamlBuilder reads the yaml file, instantiate the classes
      * and generate the connection's expressions from file's text.
      * After the execution of this class the state machine passed as
-     * argument is built.
+     * argument is built and its transition table compiled.
      */
     public void build() {
         InputStream inputStream;
@@ -109,6 +119,8 @@ public class YamlBuilder {
         } catch (Exception e) {
             log.error(GameException.format(e));
         }
+        machine.invalidate();
+        machine.compile();
     }
 
     /**
@@ -156,6 +168,23 @@ public class YamlBuilder {
         }
     }
 
+    /**
+     * This method extracts the delay of an AFTER connection, e.g. "AFTER:30s"
+     * @param expression The expression of the connection
+     * @return The delay of the connection
+     * @throws GameException If the delay is missing or malformed
+     */
+    private Duration getDelay(String expression) throws GameException {
+        String[] parts = expression.split(":");
+        if (parts.length != 2 || parts[1].isBlank())
+            throw new GameException(ExceptionLibrary.get("INVALID_TIMED_CONNECTION"), expression);
+        try {
+            return TimedStateConnection.parse(parts[1]);
+        } catch (IllegalArgumentException e) {
+            throw new GameException(ExceptionLibrary.get("INVALID_TIMED_CONNECTION"), expression);
+        }
+    }
+
     /**
      * This method build the adeguate GameStateConnection from the text
      * of the yaml file.
@@ -165,8 +194,9 @@ public class YamlBuilder {
      * @param factory The factory to convert string to lambdas
      * @return The GameStateConnection generated from the connection data
      * @throws LambdaCreationException If the lambda is malformed or has unknown classes can throws this exception.
+     * @throws GameException If the delay of an AFTER connection is missing or malformed
      */
-    private GameStateConnection getConnection(State s, Connection c, Map<String, GameState> refs, LambdaFactory factory) throws LambdaCreationException {
+    private GameStateConnection getConnection(State s, Connection c, Map<String, GameState> refs, LambdaFactory factory) throws LambdaCreationException, GameException {
         if (c.expression.contains("GOTO") || c.expression.contains("goto")) {
             return new DirectStateConnection(
                     s == null ? null : refs.get(s.name),
@@ -174,10 +204,20 @@ public class YamlBuilder {
             );
         }
         if (c.expression.contains("CATCH") || c.expression.contains("catch")) {
+            String[] parts = c.expression.split(":");
             return new ExceptionStateConnection(
                     c.expression,
                     s == null ? null : refs.get(s.name),
-                    Integer.parseInt(c.expression.split(":")[1]),
+                    Integer.parseInt(parts[1].trim()),
+                    refs.get(c.target),
+                    parts.length > 2 && parts[2].trim().equalsIgnoreCase("rollback")
+            );
+        }
+        if (c.expression.startsWith("AFTER") || c.expression.startsWith("after")) {
+            return new TimedStateConnection(
+                    c.expression,
+                    s == null ? null : refs.get(s.name),
+                    getDelay(c.expression),
                     refs.get(c.target)
             );
         }
@@ -213,21 +253,31 @@ public class YamlBuilder {
 
 
     /**
-     * Convert the readable format of the class in lambda code
-     * <br>e.g. "{{val1:Integer}} > 5" to "(c)->g.get("val1", Integer) > 5"
+     * Convert the readable format of the class in lambda code, the keys are
+     * declared in the SlotLayout of the machine and read by slot.
+     * The Integer, Long, Double and Boolean placeholders are read with the primitive getters,
+     * unless a method is called on them, so the comparisons don't box the values
+     * <br>e.g. "{{val1:Integer}} > 5" to "(c)->c.getInt(0,"val1") > 5"
      * @param expression The expression of the lambda as a string
      * @return Returns a reformatted lambda that can be converted by the lambdafactory class
      */
     private String rectifyExpression(String expression) {
-        String ret = expression;
-        List<String> toReplace = Pattern.compile("\\{\\{.+?\\}\\}").matcher(expression).results().map(MatchResult::group).collect(Collectors.toList());
-        List<String> replaceWith = Pattern.compile("(?<=\\{\\{).+?(?=\\}\\})").matcher(expression).results().map(MatchResult::group).collect(Collectors.toList());
-        for (int i = 0; i < toReplace.size(); i++) {
-            String[] split = replaceWith.get(i).split(":");
-            String formula = String.format("c.get(\"%s\",%s.class)", split[0].trim(), split[1].trim());
-            ret = expression.replace(toReplace.get(i), formula);
+        StringBuilder ret = new StringBuilder("(c)->");
+        Matcher m = Pattern.compile("\\{\\{(.+?)\\}\\}").matcher(expression);
+        while (m.find()) {
+            String[] split = m.group(1).split(":");
+            String key = split[0].trim();
+            String type = split[1].trim();
+            int slot = machine.getLayout().declare(key);
+            String getter = PRIMITIVE_GETTERS.get(type);
+            boolean dereferenced = m.end() < expression.length() && expression.charAt(m.end()) == '.';
+            String formula = getter == null || dereferenced
+                    ? String.format("c.get(%d,\"%s\",%s.class)", slot, key, type)
+                    : String.format("c.%s(%d,\"%s\")", getter, slot, key);
+            m.appendReplacement(ret, Matcher.quoteReplacement(formula));
         }
-        return "(c)->" + ret;
+        m.appendTail(ret);
+        return ret.toString();
     }
 
     /**
@@ -242,7 +292,7 @@ public class YamlBuilder {
         List<String> toReplace = Pattern.compile("\\{\\{.+?\\}\\}").matcher(expression).results().map(MatchResult::group).collect(Collectors.toList());
         List<String> replaceWith = Pattern.compile("(?<=\\{\\{).+?(?=:)").matcher(expression).results().map(MatchResult::group).collect(Collectors.toList());
         for (int i = 0; i < toReplace.size(); i++) {
-            ret = expression.replace(toReplace.get(i), replaceWith.get(i));
+            ret = ret.replace(toReplace.get(i), replaceWith.get(i));
         }
         return ret;
     }
@@ -0,0 +1,130 @@
+package it.game.framework.contexts;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * The set of the keys written or removed in a GameContext since the last clear,
+ * in the order of their first change.
+ * <br>The keys are stored in an open addressing table with linear probing plus an array in insertion order,
+ * both are reused between the steps: marking a key already changed and clearing the set don't allocate,
+ * and clearing costs the number of changed keys, not the capacity of the table.
+ * So the callbacks can process the delta of a GameState with a cost that depends on what the state changed,
+ * not on the size of the context.
+ * <br>The tracker is read by the callbacks and written only by its GameContext, it is not thread safe.
+ */
+public final class ChangeTracker {
+
+    private String[] table = new String[16];
+    private String[] keys = new String[8];
+    private int[] slots = new int[8];
+    private int size;
+
+    ChangeTracker() {
+    }
+
+    private int slot(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (table.length - 1);
+    }
+
+    /**
+     * Marks a key as changed
+     * @param key The changed key
+     * @return True if the key was not already marked
+     */
+    boolean add(String key) {
+        int mask = table.length - 1;
+        int i = slot(key);
+        for (String k = table[i]; k != null; k = table[i]) {
+            if (k.equals(key)) return false;
+            i = (i + 1) & mask;
+        }
+        if (size == keys.length) {
+            String[] k = new String[size * 2];
+            int[] s = new int[size * 2];
+            System.arraycopy(keys, 0, k, 0, size);
+            System.arraycopy(slots, 0, s, 0, size);
+            keys = k;
+            slots = s;
+        }
+        table[i] = key;
+        keys[size] = key;
+        slots[size] = i;
+        size++;
+        if (size * 2 > table.length) rehash(table.length * 2);
+        return true;
+    }
+
+    private void rehash(int length) {
+        table = new String[length];
+        int mask = length - 1;
+        for (int j = 0; j < size; j++) {
+            int i = slot(keys[j]);
+            while (table[i] != null) i = (i + 1) & mask;
+            table[i] = keys[j];
+            slots[j] = i;
+        }
+    }
+
+    /**
+     * Forgets all the changed keys, the memory is kept for the next changes
+     */
+    void clear() {
+        for (int j = 0; j < size; j++) {
+            table[slots[j]] = null;
+            keys[j] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Checks if a key has been changed
+     * @param key The key
+     * @return True if the key has been written or removed
+     */
+    public boolean contains(String key) {
+        int mask = table.length - 1;
+        for (int i = slot(key); table[i] != null; i = (i + 1) & mask) {
+            if (table[i].equals(key)) return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a changed key by position, to iterate the keys without allocating
+     * @param index The position of the key, between 0 and size() - 1
+     * @return The key changed as index-th
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        return keys[index];
+    }
+
+    /**
+     * Calls the action for every changed key in the order of their first change
+     * @param action The action to call
+     */
+    public void forEach(Consumer<? super String> action) {
+        for (int j = 0; j < size; j++) action.accept(keys[j]);
+    }
+
+    /**
+     * Adds the changed keys to a collection
+     * @param target The collection where the keys are added
+     * @return The number of changed keys
+     */
+    public int copyTo(Collection<? super String> target) {
+        for (int j = 0; j < size; j++) target.add(keys[j]);
+        return size;
+    }
+
+}
@@ -0,0 +1,458 @@
+package it.game.framework.contexts;
+
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * A thread safe GameContext for the sessions touched by several threads at the same time
+ * (e.g. by the branches of a ParallelGameState).
+ * <br>The keys are split between a fixed number of stripes, each stripe has its own map
+ * and read-write lock, so the threads that use different keys rarely contend and the readers
+ * of the same stripe don't block each other. The read-modify-write operations
+ * ({@link #compute}, {@link #merge}, {@link #increment}) are atomic.
+ * <br>The multi-key operations ({@link #putAll} and {@link #snapshot}) lock all the involved
+ * stripes in ascending order, so a snapshot never sees half of a putAll and the operations
+ * can't deadlock.
+ * <br>The changed keys are recorded by every stripe into its own tracker under its write lock,
+ * so the tracking doesn't make the writers of different stripes contend. The first change of a key
+ * takes a number from a shared sequence, the trackers are merged in this order when the changes
+ * are read or drained, so {@link #changedKeys()} keeps the order of the first change across the stripes.
+ * The returned tracker contains the keys changed up to the call, it is not updated by the later writes.
+ */
+public class ConcurrentContext extends GameContext {
+
+    private final Stripe[] stripes;
+    private final ReentrantReadWriteLock[] locks;
+    private final int mask;
+    private final ChangeTracker[] changes;
+    private final long[][] changeOrder;
+    private final AtomicLong changeSequence = new AtomicLong();
+    private final boolean[] allStripes;
+    private final int[] mergeCursors;
+
+    public ConcurrentContext() {
+        this(16);
+    }
+
+    /**
+     * Creates the context
+     * @param stripes The number of stripes, rounded up to a power of two
+     */
+    public ConcurrentContext(int stripes) {
+        int size = 1;
+        while (size < stripes) size <<= 1;
+        this.mask = size - 1;
+        this.stripes = new Stripe[size];
+        this.locks = new ReentrantReadWriteLock[size];
+        this.changes = new ChangeTracker[size];
+        this.changeOrder = new long[size][8];
+        this.allStripes = new boolean[size];
+        this.mergeCursors = new int[size];
+        Arrays.fill(allStripes, true);
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+            locks[i] = new ReentrantReadWriteLock();
+            changes[i] = new ChangeTracker();
+        }
+    }
+
+    private int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    @Override
+    public boolean contains(ContextKey<?> key) {
+        int s = key.getHash() & mask;
+        locks[s].readLock().lock();
+        try {
+            return stripes[s].map.containsKey(key.getName());
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> void put(ContextKey<T> key, T value) {
+        int s = key.getHash() & mask;
+        locks[s].writeLock().lock();
+        try {
+            dirty(s, key.getName());
+            stripes[s].map.put(key.getName(), value);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> T get(ContextKey<T> key) throws GameException {
+        int s = key.getHash() & mask;
+        Object o;
+        locks[s].readLock().lock();
+        try {
+            o = stripes[s].map.get(key.getName());
+        } finally {
+            locks[s].readLock().unlock();
+        }
+        return key.cast(o);
+    }
+
+    @Override
+    public boolean contains(String key) {
+        int s = stripe(key);
+        locks[s].readLock().lock();
+        try {
+            return stripes[s].map.containsKey(key);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public <V> void put(String key, V value) {
+        int s = stripe(key);
+        locks[s].writeLock().lock();
+        try {
+            dirty(s, key);
+            stripes[s].map.put(key, value);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds all the entries atomically, the readers and the snapshots
+     * see all the new values or none of them
+     * @param data A map of data
+     */
+    @Override
+    public void putAll(Map<String, Object> data) {
+        boolean[] involved = new boolean[stripes.length];
+        for (String key : data.keySet()) {
+            involved[stripe(key)] = true;
+        }
+        lockAll(involved, true);
+        try {
+            for (Map.Entry<String, Object> e : data.entrySet()) {
+                int s = stripe(e.getKey());
+                dirty(s, e.getKey());
+                stripes[s].map.put(e.getKey(), e.getValue());
+            }
+        } finally {
+            unlockAll(involved, true);
+        }
+    }
+
+    @Override
+    public <V> V get(String key, Class<V> clazz) throws GameException {
+        Object o = get(key);
+        if (!clazz.isInstance(o))
+            throw new GameException(ExceptionLibrary.get("CONTEXT_CASTING_EXCEPTION"), " key: " + key + "(" + o + ") -> " + clazz.getSimpleName());
+        return clazz.cast(o);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V get(String key) {
+        int s = stripe(key);
+        locks[s].readLock().lock();
+        try {
+            return (V) stripes[s].map.get(key);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    /**
+     * Atomically computes the new value of the key from the current one,
+     * like {@link Map#compute}; the function must be short and must not use the context
+     * @param key The key of the element
+     * @param function Computes the new value from the key and the current value (null if missing),
+     *                 if it returns null the element is removed
+     * @param <V> The type of the element
+     * @return The new value
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V compute(String key, BiFunction<String, ? super V, ? extends V> function) {
+        int s = stripe(key);
+        locks[s].writeLock().lock();
+        try {
+            V result = (V) stripes[s].map.compute(key, (k, v) -> function.apply(k, (V) v));
+            dirty(s, key);
+            return result;
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Atomically merges a value with the current one, like {@link Map#merge};
+     * the function must be short and must not use the context
+     * @param key The key of the element
+     * @param value The value stored if the key is missing
+     * @param function Merges the current value with the given one,
+     *                 if it returns null the element is removed
+     * @param <V> The type of the element
+     * @return The new value
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V merge(String key, V value, BiFunction<? super V, ? super V, ? extends V> function) {
+        int s = stripe(key);
+        locks[s].writeLock().lock();
+        try {
+            V result = (V) stripes[s].map.merge(key, value, (a, b) -> function.apply((V) a, (V) b));
+            dirty(s, key);
+            return result;
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Atomically adds a delta to an Integer element, a missing element counts as 0
+     * @param key The key of the element
+     * @param delta The delta to add
+     * @return The new value
+     * @throws GameException If the element is not an Integer
+     */
+    public int increment(String key, int delta) throws GameException {
+        int s = stripe(key);
+        locks[s].writeLock().lock();
+        try {
+            Object o = stripes[s].map.get(key);
+            if (o != null && !(o instanceof Integer))
+                throw new GameException(ExceptionLibrary.get("CONTEXT_CASTING_EXCEPTION"), " key: " + key + "(" + o + ") -> Integer");
+            int value = (o == null ? 0 : (Integer) o) + delta;
+            stripes[s].map.put(key, value);
+            dirty(s, key);
+            return value;
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Atomically adds a delta to a Long element, a missing element counts as 0
+     * @param key The key of the element
+     * @param delta The delta to add
+     * @return The new value
+     * @throws GameException If the element is not a Long
+     */
+    public long increment(String key, long delta) throws GameException {
+        int s = stripe(key);
+        locks[s].writeLock().lock();
+        try {
+            Object o = stripes[s].map.get(key);
+            if (o != null && !(o instanceof Long))
+                throw new GameException(ExceptionLibrary.get("CONTEXT_CASTING_EXCEPTION"), " key: " + key + "(" + o + ") -> Long");
+            long value = (o == null ? 0 : (Long) o) + delta;
+            stripes[s].map.put(key, value);
+            dirty(s, key);
+            return value;
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads several keys at the same instant, no write can happen between the reads.
+     * The returned context is a private copy, so the expressions can be checked on it
+     * while the other threads keep modifying this context
+     * @param keys The keys to read
+     * @return A new GameContext with the values of the keys, the missing keys are not present
+     */
+    public GameContext snapshot(String... keys) {
+        boolean[] involved = new boolean[stripes.length];
+        for (String key : keys) involved[stripe(key)] = true;
+        SimpleContext snapshot = new SimpleContext();
+        lockAll(involved, false);
+        try {
+            for (String key : keys) {
+                HashMap<String, Object> map = stripes[stripe(key)].map;
+                if (map.containsKey(key) && !snapshot.contains(key)) snapshot.put(key, map.get(key));
+            }
+        } finally {
+            unlockAll(involved, false);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void remove(String key) {
+        int s = stripe(key);
+        locks[s].writeLock().lock();
+        try {
+            dirty(s, key);
+            stripes[s].map.remove(key);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        lockAll(allStripes, true);
+        try {
+            for (Stripe stripe : stripes) stripe.map.clear();
+        } finally {
+            unlockAll(allStripes, true);
+        }
+        clearChanges();
+    }
+
+    /**
+     * Records the change of a key into the tracker of its stripe,
+     * the caller holds the write lock of the stripe
+     */
+    private void dirty(int s, String key) {
+        if (!isChangeTracking()) return;
+        ChangeTracker tracker = changes[s];
+        int n = tracker.size();
+        if (!tracker.add(key)) return;
+        long[] order = changeOrder[s];
+        if (n == order.length) changeOrder[s] = order = Arrays.copyOf(order, n * 2);
+        order[n] = changeSequence.getAndIncrement();
+    }
+
+    @Override
+    protected void markDirty(String key) {
+        int s = stripe(key);
+        locks[s].writeLock().lock();
+        try {
+            dirty(s, key);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the keys changed since the last clear, the trackers of the stripes
+     * are merged into the returned one in the order of the first change
+     * @return The changed keys
+     */
+    @Override
+    public ChangeTracker changedKeys() {
+        ChangeTracker merged = super.changedKeys();
+        synchronized (merged) {
+            mergeChanges(merged);
+        }
+        return merged;
+    }
+
+    @Override
+    public int drainChanges(Collection<? super String> target) {
+        ChangeTracker merged = super.changedKeys();
+        synchronized (merged) {
+            mergeChanges(merged);
+            return super.drainChanges(target);
+        }
+    }
+
+    @Override
+    public void clearChanges() {
+        ChangeTracker merged = super.changedKeys();
+        synchronized (merged) {
+            lockAll(allStripes, true);
+            try {
+                for (ChangeTracker tracker : changes) tracker.clear();
+            } finally {
+                unlockAll(allStripes, true);
+            }
+            super.clearChanges();
+        }
+    }
+
+    /**
+     * Enables or disables the recording of the changed keys, the flag is changed
+     * holding all the stripes so every writer sees it
+     * @param changeTracking True to record the changed keys
+     */
+    @Override
+    public void setChangeTracking(boolean changeTracking) {
+        ChangeTracker merged = super.changedKeys();
+        synchronized (merged) {
+            lockAll(allStripes, true);
+            try {
+                super.setChangeTracking(changeTracking);
+                if (!changeTracking) for (ChangeTracker tracker : changes) tracker.clear();
+            } finally {
+                unlockAll(allStripes, true);
+            }
+        }
+    }
+
+    /**
+     * Moves the keys of the stripes into the merged tracker in the order of their sequence numbers,
+     * the caller holds the monitor of the merged tracker
+     */
+    private void mergeChanges(ChangeTracker merged) {
+        lockAll(allStripes, true);
+        try {
+            Arrays.fill(mergeCursors, 0);
+            while (true) {
+                int next = -1;
+                for (int i = 0; i < changes.length; i++) {
+                    if (mergeCursors[i] < changes[i].size()
+                            && (next < 0 || changeOrder[i][mergeCursors[i]] < changeOrder[next][mergeCursors[next]])) next = i;
+                }
+                if (next < 0) break;
+                merged.add(changes[next].get(mergeCursors[next]++));
+            }
+            for (ChangeTracker tracker : changes) tracker.clear();
+        } finally {
+            unlockAll(allStripes, true);
+        }
+    }
+
+    /**
+     * Returns the number of elements, counted stripe by stripe
+     * @return The number of elements
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            locks[i].readLock().lock();
+            try {
+                size += stripes[i].map.size();
+            } finally {
+                locks[i].readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Locks the involved stripes in ascending order
+     */
+    private void lockAll(boolean[] involved, boolean write) {
+        for (int i = 0; i < involved.length; i++) {
+            if (!involved[i]) continue;
+            if (write) locks[i].writeLock().lock();
+            else locks[i].readLock().lock();
+        }
+    }
+
+    private void unlockAll(boolean[] involved, boolean write) {
+        for (int i = involved.length - 1; i >= 0; i--) {
+            if (!involved[i]) continue;
+            if (write) locks[i].writeLock().unlock();
+            else locks[i].readLock().unlock();
+        }
+    }
+
+    /**
+     * The elements of a stripe, a typed holder so the stripes don't need a generic array
+     */
+    private static final class Stripe {
+        private final HashMap<String, Object> map = new HashMap<>();
+    }
+
+}
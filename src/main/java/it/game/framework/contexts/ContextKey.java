@@ -0,0 +1,111 @@
+package it.game.framework.contexts;
+
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.lang.invoke.MethodType;
+
+/**
+ * A typed handle of a GameContext key, created once (e.g. as a static constant) and reused for every access.
+ * <br>The handle carries the type of the value, so {@code context.get(HP)} returns an Integer without
+ * a cast and {@code context.put(HP, "a")} doesn't compile, plus the precomputed spread hash of the key and,
+ * if it is created from a SlotLayout, the slot of the key. The GameContexts use them as fast paths:
+ * the SlotContext reads the slot directly, the hashed contexts skip the hashing of the key and the
+ * SimpleContext remembers the position of the key in its list.
+ * <br>The String methods of the GameContext keep working on the same data, a key written
+ * with a handle can be read with its name and vice versa.
+ * @param <T> The type of the value of the key
+ */
+@Getter
+public final class ContextKey<T> {
+
+    private final String name;
+    private final Class<T> type;
+    /**
+     * The hash code of the name with the high bits spread into the low ones,
+     * like the hashed GameContexts compute it
+     */
+    private final int hash;
+    /**
+     * The layout where the key is declared, null if the key has no slot
+     */
+    private final SlotLayout layout;
+    private final int slot;
+    /**
+     * The last position of the key found in a SimpleContext, the contexts of the sessions of a machine
+     * are usually filled in the same order so the position is reused without scanning the list.
+     * It is only a hint, a stale value written by another thread makes the lookup scan the list
+     */
+    @Getter(AccessLevel.NONE)
+    int hint;
+
+    private ContextKey(String name, Class<T> type, SlotLayout layout) {
+        this.name = name;
+        this.type = wrap(type);
+        int h = name.hashCode();
+        this.hash = h ^ (h >>> 16);
+        this.layout = layout;
+        this.slot = layout == null ? -1 : layout.declare(name);
+    }
+
+    /**
+     * Creates the handle of a key without slot
+     * @param name The name of the key
+     * @param type The type of the value, the primitive types are replaced by their wrappers
+     * @param <T> The type of the value
+     * @return The handle of the key
+     */
+    public static <T> ContextKey<T> of(String name, Class<T> type) {
+        return new ContextKey<>(name, type, null);
+    }
+
+    /**
+     * Creates the handle of a key declaring it in a SlotLayout,
+     * the SlotContexts of the same layout access the key by slot
+     * @param layout The layout of the machine
+     * @param name The name of the key
+     * @param type The type of the value, the primitive types are replaced by their wrappers
+     * @param <T> The type of the value
+     * @return The handle of the key
+     */
+    public static <T> ContextKey<T> of(SlotLayout layout, String name, Class<T> type) {
+        return new ContextKey<>(name, type, layout);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> wrap(Class<T> type) {
+        return type.isPrimitive() ? (Class<T>) MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    /**
+     * Casts a value read from a GameContext to the type of the key
+     * @param value The value, null if the key is missing
+     * @return The value or null
+     * @throws GameException If the value is not an instance of the type
+     */
+    @SuppressWarnings("unchecked")
+    public T cast(Object value) throws GameException {
+        if (value == null || type.isInstance(value)) return (T) value;
+        throw new GameException(ExceptionLibrary.get("CONTEXT_CASTING_EXCEPTION"), " key: " + name + "(" + value + ") -> " + type.getSimpleName());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ContextKey)) return false;
+        ContextKey<?> k = (ContextKey<?>) o;
+        return name.equals(k.name) && type == k.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name + ":" + type.getSimpleName();
+    }
+}
@@ -1,10 +1,9 @@
 package it.game.framework.contexts;
 
-import it.game.framework.exceptions.GameException;
-import lombok.extern.slf4j.Slf4j;
-
-import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * GameContext contains all the data of the game,
@@ -16,8 +15,14 @@ import java.util.Map;
  * it in Redis or in Guava or some other structure that
  * can be used as cache. The given function are similar to
  * the ones contained in the Map class.
+ * <br>The methods that take a slot are used by the machines that resolve their
+ * keys to the slots of a {@link SlotLayout} at build time, by default they ignore
+ * the slot and use the key, the SlotContext overrides them to access the slot directly.
+ * <br>The implementations call {@link #markDirty(String)} for every key they write or remove,
+ * the executors clear the changes before executing each GameState, so in
+ * {@code ExecutorCallback.afterExecution} {@link #changedKeys()} contains only the keys
+ * changed by the executed state and the callbacks can process the delta instead of the whole context.
  */
-@Slf4j
 public abstract class GameContext {
 
     public abstract boolean contains(String key);
@@ -61,6 +66,262 @@ public abstract class GameContext {
      */
     public abstract <V> V get(String key) throws Exception;
 
+    /**
+     * Checks if there is an element in the slot of the key
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key of the element
+     * @return True if the element is present
+     */
+    public boolean contains(int slot, String key) {
+        return contains(key);
+    }
+
+    /**
+     * This method adds an entry in the slot of the key
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key to index the saved value
+     * @param value The saved value
+     * @param <V> the class of the saved value
+     */
+    public <V> void put(int slot, String key, V value) {
+        put(key, value);
+    }
+
+    /**
+     * This method returns the element in the slot of the key uncasted
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key of the element
+     * @param <V> The type of the variable
+     * @return The requested variable
+     * @throws Exception Casting exceptions
+     */
+    public <V> V get(int slot, String key) throws Exception {
+        return get(key);
+    }
+
+    /**
+     * This method returns the element in the slot of the key
+     * casted into the class passed as parameter
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key of the element
+     * @param clazz The class we want to return the data into
+     * @param <V> The type of the variable
+     * @return The requested variable
+     * @throws Exception Casting exceptions
+     */
+    public <V> V get(int slot, String key, Class<V> clazz) throws Exception {
+        return get(key, clazz);
+    }
+
+    /*
+     * Typed keys: by default the ContextKey methods use the name of the key, the contexts
+     * override them to use the precomputed hash or slot of the key as a fast path.
+     */
+
+    /**
+     * Checks if there is an element for the key
+     * @param key The handle of the key
+     * @return True if the element is present
+     */
+    public boolean contains(ContextKey<?> key) {
+        return contains(key.getName());
+    }
+
+    /**
+     * This method adds an entry for the key, the type of the value is checked at compile time
+     * @param key The handle of the key
+     * @param value The saved value
+     * @param <T> The type of the value
+     */
+    public <T> void put(ContextKey<T> key, T value) {
+        put(key.getName(), value);
+    }
+
+    /**
+     * This method returns the element of the key with the type of the key
+     * @param key The handle of the key
+     * @param <T> The type of the value
+     * @return The element or null if the key is missing
+     * @throws Exception If the element is not of the type of the key
+     */
+    public <T> T get(ContextKey<T> key) throws Exception {
+        return key.cast(get(key.getName()));
+    }
+
+    /**
+     * This method removes the element of the key
+     * @param key The handle of the key
+     */
+    public void remove(ContextKey<?> key) {
+        remove(key.getName());
+    }
+
+    /*
+     * Primitive accessors: the contexts that store primitive values override these methods
+     * to read and write the values without boxing them, by default the values are boxed
+     * and stored with put and read with get.
+     */
+
+    /**
+     * Returns the int stored under the key
+     * @param key The key of the element
+     * @return The int value
+     * @throws Exception If the element is missing or it is not an int
+     */
+    public int getInt(String key) throws Exception {
+        return get(key, Integer.class);
+    }
+
+    /**
+     * Stores an int under the key
+     * @param key The key to index the saved value
+     * @param value The saved value
+     */
+    public void putInt(String key, int value) {
+        put(key, value);
+    }
+
+    /**
+     * Returns the int stored in the slot of the key
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key of the element
+     * @return The int value
+     * @throws Exception If the element is missing or it is not an int
+     */
+    public int getInt(int slot, String key) throws Exception {
+        return getInt(key);
+    }
+
+    /**
+     * Stores an int in the slot of the key
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key to index the saved value
+     * @param value The saved value
+     */
+    public void putInt(int slot, String key, int value) {
+        putInt(key, value);
+    }
+
+    /**
+     * Returns the long stored under the key
+     * @param key The key of the element
+     * @return The long value
+     * @throws Exception If the element is missing or it is not a long
+     */
+    public long getLong(String key) throws Exception {
+        return get(key, Long.class);
+    }
+
+    /**
+     * Stores a long under the key
+     * @param key The key to index the saved value
+     * @param value The saved value
+     */
+    public void putLong(String key, long value) {
+        put(key, value);
+    }
+
+    /**
+     * Returns the long stored in the slot of the key
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key of the element
+     * @return The long value
+     * @throws Exception If the element is missing or it is not a long
+     */
+    public long getLong(int slot, String key) throws Exception {
+        return getLong(key);
+    }
+
+    /**
+     * Stores a long in the slot of the key
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key to index the saved value
+     * @param value The saved value
+     */
+    public void putLong(int slot, String key, long value) {
+        putLong(key, value);
+    }
+
+    /**
+     * Returns the double stored under the key
+     * @param key The key of the element
+     * @return The double value
+     * @throws Exception If the element is missing or it is not a double
+     */
+    public double getDouble(String key) throws Exception {
+        return get(key, Double.class);
+    }
+
+    /**
+     * Stores a double under the key
+     * @param key The key to index the saved value
+     * @param value The saved value
+     */
+    public void putDouble(String key, double value) {
+        put(key, value);
+    }
+
+    /**
+     * Returns the double stored in the slot of the key
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key of the element
+     * @return The double value
+     * @throws Exception If the element is missing or it is not a double
+     */
+    public double getDouble(int slot, String key) throws Exception {
+        return getDouble(key);
+    }
+
+    /**
+     * Stores a double in the slot of the key
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key to index the saved value
+     * @param value The saved value
+     */
+    public void putDouble(int slot, String key, double value) {
+        putDouble(key, value);
+    }
+
+    /**
+     * Returns the boolean stored under the key
+     * @param key The key of the element
+     * @return The boolean value
+     * @throws Exception If the element is missing or it is not a boolean
+     */
+    public boolean getBoolean(String key) throws Exception {
+        return get(key, Boolean.class);
+    }
+
+    /**
+     * Stores a boolean under the key
+     * @param key The key to index the saved value
+     * @param value The saved value
+     */
+    public void putBoolean(String key, boolean value) {
+        put(key, value);
+    }
+
+    /**
+     * Returns the boolean stored in the slot of the key
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key of the element
+     * @return The boolean value
+     * @throws Exception If the element is missing or it is not a boolean
+     */
+    public boolean getBoolean(int slot, String key) throws Exception {
+        return getBoolean(key);
+    }
+
+    /**
+     * Stores a boolean in the slot of the key
+     * @param slot The slot of the key in the SlotLayout of the machine
+     * @param key The key to index the saved value
+     * @param value The saved value
+     */
+    public void putBoolean(int slot, String key, boolean value) {
+        putBoolean(key, value);
+    }
+
     /**
      * This method removes an element with the indexed under key
      * @param key The element to remove
@@ -72,18 +333,83 @@ public abstract class GameContext {
      */
     public abstract void cleanup();
 
+    private final ChangeTracker changes = new ChangeTracker();
+    private boolean changeTracking = true;
+
+    /**
+     * Records that a key has been written or removed,
+     * the implementations call it from every method that modifies the content
+     * @param key The changed key
+     */
+    protected void markDirty(String key) {
+        if (changeTracking) changes.add(key);
+    }
+
+    /**
+     * Returns the keys changed since the last clear, the returned tracker is live
+     * and is emptied by {@link #clearChanges()} and {@link #drainChanges()}
+     * @return The changed keys
+     */
+    public ChangeTracker changedKeys() {
+        return changes;
+    }
+
+    /**
+     * Returns the keys changed since the last clear and clears them
+     * @return A new set with the changed keys in the order of their first change
+     */
+    public Set<String> drainChanges() {
+        Set<String> drained = new LinkedHashSet<>(Math.max(16, changes.size() * 2));
+        drainChanges(drained);
+        return drained;
+    }
+
+    /**
+     * Moves the keys changed since the last clear into a collection,
+     * a reused collection makes the drain allocation free
+     * @param target The collection where the keys are added
+     * @return The number of changed keys
+     */
+    public int drainChanges(Collection<? super String> target) {
+        int n = changes.copyTo(target);
+        changes.clear();
+        return n;
+    }
+
+    /**
+     * Forgets the changed keys, the executors call it before executing each GameState
+     */
+    public void clearChanges() {
+        changes.clear();
+    }
+
+    public boolean isChangeTracking() {
+        return changeTracking;
+    }
+
+    /**
+     * Enables or disables the recording of the changed keys,
+     * disabling it removes the cost of the tracking from the writes
+     * @param changeTracking True to record the changed keys
+     */
+    public void setChangeTracking(boolean changeTracking) {
+        this.changeTracking = changeTracking;
+        if (!changeTracking) changes.clear();
+    }
+
     /**
      * This method gets a dao instance as argument, the argument dao
      * has to contain attributes with the same name of the data we want from the GameContext.
-     * <br><u><b>This method supports ONLY boxed/class types as variables of the dao class</b></u>
      * <br>This method process the argument dao by:<br>
      * <ul>
-     *     <li>Lists all the filed of the dao with reflection, leaving warnings if field are not found or if are not convertible</li>
-     *     <li>Tries to populate the instance with data from the GameContext with the same name</li>
+     *     <li>Gets the MappingPlan of the dao class, the fields are listed with reflection and compiled into
+     *     MethodHandles only the first time the class is mapped</li>
+     *     <li>Populates the instance with data from the GameContext with the same name, the int, long, double
+     *     and boolean fields are read with the primitive accessors, leaving errors if the fields are not convertible</li>
      *     <li>Returns the instance</li>
      * </ul>
      * The method populates only variables contained inside the
-     * parameter dao, and not hereditary ones.
+     * parameter dao, and not hereditary ones, the fields missing from the GameContext are not modified.
      * <br><br><b>NOTE:</b> In case of conversion errors with number types, a solution is to
      * force the type when are stored into the context(e.g. for floats 3.14f, for double 1.41429d, etc)
      * @param instance The dao class where store the files
@@ -91,26 +417,18 @@ public abstract class GameContext {
      * @return An instance of the populated dao class
      */
     public <V> V mapTo(V instance) {
-        log.info("Starting to map GameContext into class {}", instance.getClass().getSimpleName());
-        Field[] fields = instance.getClass().getDeclaredFields();
-        for (Field f : fields) {
-            if (contains(f.getName())) {
-                try {
-                    f.setAccessible(true);
-                    var data = get(f.getName(), f.getType());
-                    f.set(instance, data);
-                    log.info("Field {}:{} popultated with: {}", f.getName(), f.getType().getSimpleName(), data);
-                } catch (IllegalArgumentException e) {
-                    log.error(GameException.format(e, String.format("Field %s:%s cannot be populated, incompatible field type", f.getName(), f.getType().getSimpleName())));
-                } catch (Exception e) {
-                    log.error(GameException.format(e));
-                }
-            } else {
-                log.warn("Field {} is not inside the GameContext", f.getName());
-            }
-        }
-        log.info("Finish to map GameContext into class {}", instance.getClass().getSimpleName());
-        return instance;
+        return MappingPlan.of(instance.getClass()).mapTo(this, instance);
+    }
+
+    /**
+     * This method is the reverse of {@link #mapTo}, it writes all the attributes declared
+     * by the dao class into the GameContext using the names of the attributes as keys.
+     * <br>The int, long, double and boolean attributes are written with the primitive accessors,
+     * the accessors of the dao class are compiled once like for mapTo.
+     * @param instance The dao instance to read
+     */
+    public void mapFrom(Object instance) {
+        MappingPlan.of(instance.getClass()).mapFrom(this, instance);
     }
 
 }
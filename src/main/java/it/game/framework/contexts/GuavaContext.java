@@ -6,10 +6,17 @@ import com.google.common.util.concurrent.Callables;
 import it.game.framework.exceptions.ExceptionLibrary;
 import it.game.framework.exceptions.GameException;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 
+/**
+ * A thread safe GameContext backed by a Guava Cache.
+ * <br>The changed keys are recorded by all the threads that write the context (e.g. the branches
+ * of a ParallelGameState that share it), the tracker is guarded by its own monitor.
+ * The tracker returned by {@link #changedKeys()} is live, it has to be read when no other thread is writing.
+ */
 public class GuavaContext extends GameContext {
 
     Cache<String, Object> cache;
@@ -27,11 +34,13 @@ public class GuavaContext extends GameContext {
 
     @Override
     public <V> void put(String key, V value) {
+        markDirty(key);
         cache.put(key, value);
     }
 
     @Override
     public void putAll(Map<String, Object> data) {
+        for (String key : data.keySet()) markDirty(key);
         cache.putAll(data);
     }
 
@@ -50,12 +59,47 @@ public class GuavaContext extends GameContext {
 
     @Override
     public void remove(String key) {
+        markDirty(key);
         cache.invalidate(key);
     }
 
     @Override
     public void cleanup() {
+        cache.invalidateAll();
         cache.cleanUp();
+        clearChanges();
+    }
+
+    @Override
+    protected void markDirty(String key) {
+        ChangeTracker changes = changedKeys();
+        synchronized (changes) {
+            super.markDirty(key);
+        }
+    }
+
+    @Override
+    public int drainChanges(Collection<? super String> target) {
+        ChangeTracker changes = changedKeys();
+        synchronized (changes) {
+            return super.drainChanges(target);
+        }
+    }
+
+    @Override
+    public void clearChanges() {
+        ChangeTracker changes = changedKeys();
+        synchronized (changes) {
+            super.clearChanges();
+        }
+    }
+
+    @Override
+    public void setChangeTracking(boolean changeTracking) {
+        ChangeTracker changes = changedKeys();
+        synchronized (changes) {
+            super.setChangeTracking(changeTracking);
+        }
     }
 
 }
@@ -0,0 +1,202 @@
+package it.game.framework.contexts;
+
+import it.game.framework.exceptions.GameException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The precompiled accessors used by {@link GameContext#mapTo} and {@link GameContext#mapFrom}
+ * to copy the fields of a dao class from and to a GameContext.
+ * <br>The plan of a class is built the first time the class is mapped and cached in a ClassValue:
+ * the declared fields are listed and made accessible once, and every field gets a getter and a setter
+ * MethodHandle adapted to a fixed type, so every mapping only iterates arrays and invokes the handles.
+ * <br>The int, long, double and boolean fields are copied with the primitive accessors of the
+ * GameContext without boxing, the other primitives are copied boxed. The static and synthetic fields
+ * are ignored and the final fields are only read by mapFrom.
+ */
+@Slf4j
+final class MappingPlan {
+
+    private static final byte OBJECT = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+
+    private static final ClassValue<MappingPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected MappingPlan computeValue(Class<?> type) {
+            return new MappingPlan(type);
+        }
+    };
+
+    private final String className;
+    private final String[] names;
+    private final Class<?>[] types;
+    private final byte[] kinds;
+    private final MethodHandle[] getters;
+    private final MethodHandle[] setters;
+
+    private MappingPlan(Class<?> type) {
+        this.className = type.getSimpleName();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<Field> fields = new ArrayList<>();
+        List<MethodHandle> g = new ArrayList<>();
+        List<MethodHandle> s = new ArrayList<>();
+        for (Field f : type.getDeclaredFields()) {
+            if (Modifier.isStatic(f.getModifiers()) || f.isSynthetic()) continue;
+            try {
+                f.setAccessible(true);
+                byte kind = kindOf(f.getType());
+                g.add(lookup.unreflectGetter(f).asType(getterType(kind)));
+                s.add(Modifier.isFinal(f.getModifiers()) ? null : lookup.unreflectSetter(f).asType(setterType(kind)));
+                fields.add(f);
+            } catch (IllegalAccessException | RuntimeException e) {
+                log.warn("Field {} of class {} cannot be accessed, it will not be mapped: {}", f.getName(), className, e.getMessage());
+            }
+        }
+        int n = fields.size();
+        this.names = new String[n];
+        this.types = new Class<?>[n];
+        this.kinds = new byte[n];
+        for (int i = 0; i < n; i++) {
+            Field f = fields.get(i);
+            names[i] = f.getName();
+            types[i] = MethodType.methodType(f.getType()).wrap().returnType();
+            kinds[i] = kindOf(f.getType());
+        }
+        this.getters = g.toArray(new MethodHandle[0]);
+        this.setters = s.toArray(new MethodHandle[0]);
+        log.debug("Compiled the mapping plan of class {} with {} fields", className, n);
+    }
+
+    /**
+     * Returns the plan of a class, building it the first time
+     * @param type The dao class
+     * @return The plan of the class
+     */
+    static MappingPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    private static byte kindOf(Class<?> type) {
+        if (type == int.class) return INT;
+        if (type == long.class) return LONG;
+        if (type == double.class) return DOUBLE;
+        if (type == boolean.class) return BOOLEAN;
+        return OBJECT;
+    }
+
+    private static MethodType getterType(byte kind) {
+        switch (kind) {
+            case INT:
+                return MethodType.methodType(int.class, Object.class);
+            case LONG:
+                return MethodType.methodType(long.class, Object.class);
+            case DOUBLE:
+                return MethodType.methodType(double.class, Object.class);
+            case BOOLEAN:
+                return MethodType.methodType(boolean.class, Object.class);
+            default:
+                return MethodType.methodType(Object.class, Object.class);
+        }
+    }
+
+    private static MethodType setterType(byte kind) {
+        return MethodType.methodType(void.class, Object.class, getterType(kind).returnType());
+    }
+
+    /**
+     * Populates the fields of the instance with the elements of the context with the same name,
+     * the fields without an element are not modified
+     * @param context The GameContext
+     * @param instance The dao instance
+     * @param <V> The type of the dao
+     * @return The populated instance
+     */
+    <V> V mapTo(GameContext context, V instance) {
+        boolean debug = log.isDebugEnabled();
+        Object target = instance;
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            MethodHandle setter = setters[i];
+            if (setter == null) continue;
+            if (!context.contains(name)) {
+                if (debug) log.debug("Field {} is not inside the GameContext", name);
+                continue;
+            }
+            try {
+                switch (kinds[i]) {
+                    case INT:
+                        setter.invokeExact(target, context.getInt(name));
+                        break;
+                    case LONG:
+                        setter.invokeExact(target, context.getLong(name));
+                        break;
+                    case DOUBLE:
+                        setter.invokeExact(target, context.getDouble(name));
+                        break;
+                    case BOOLEAN:
+                        setter.invokeExact(target, context.getBoolean(name));
+                        break;
+                    default:
+                        Object value = context.get(name, types[i]);
+                        setter.invokeExact(target, value);
+                }
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                log.error(GameException.format(asException(e), String.format("Field %s:%s cannot be populated, incompatible field type", name, types[i].getSimpleName())));
+            }
+        }
+        if (debug) log.debug("Mapped GameContext into class {}", className);
+        return instance;
+    }
+
+    /**
+     * Writes all the fields of the instance into the context with the name of the field as key
+     * @param context The GameContext
+     * @param instance The dao instance
+     */
+    void mapFrom(GameContext context, Object instance) {
+        try {
+            for (int i = 0; i < names.length; i++) {
+                MethodHandle getter = getters[i];
+                switch (kinds[i]) {
+                    case INT:
+                        context.putInt(names[i], (int) getter.invokeExact(instance));
+                        break;
+                    case LONG:
+                        context.putLong(names[i], (long) getter.invokeExact(instance));
+                        break;
+                    case DOUBLE:
+                        context.putDouble(names[i], (double) getter.invokeExact(instance));
+                        break;
+                    case BOOLEAN:
+                        context.putBoolean(names[i], (boolean) getter.invokeExact(instance));
+                        break;
+                    default:
+                        context.put(names[i], (Object) getter.invokeExact(instance));
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // the getters of accessible fields don't throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+        if (log.isDebugEnabled()) log.debug("Mapped class {} into GameContext", className);
+    }
+
+    private static Exception asException(Throwable t) {
+        return t instanceof Exception ? (Exception) t : new Exception(t);
+    }
+
+}
@@ -0,0 +1,407 @@
+package it.game.framework.contexts;
+
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A GameContext that stores the values outside the heap, encoded with the compact format of the ValueCodec,
+ * into a direct ByteBuffer or into a memory-mapped file.
+ * <br>The heap only keeps a small directory of the keys, an open addressing table with the offset
+ * and the length of every value, so the garbage collector doesn't scan the values of the idle sessions
+ * and the values are decoded only when they are read. The primitive accessors ({@link #putInt}, {@link #getInt}, ...)
+ * write and read the buffer directly without boxing. With a memory-mapped file the operating system can
+ * page the cold sessions out to disk. The file is only a backing store: the directory of the keys lives
+ * on the heap and a new mapping discards the previous content, so the values don't survive the process.
+ * <br>The values are appended to the buffer and overwritten in place when the new value fits in the
+ * old space. When the buffer is full the live values are compacted to the beginning of the buffer and, if
+ * the space is still not enough, the buffer is doubled.
+ * <br>The context is not thread safe, like the SimpleContext.
+ */
+public class OffHeapContext extends GameContext implements AutoCloseable {
+
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+    private int position;
+    private int garbage;
+    private long compactions;
+
+    private String[] keys = new String[16];
+    private int[] offsets = new int[16];
+    private int[] lengths = new int[16];
+    private int[] capacities = new int[16];
+    private int size;
+
+    private OffHeapContext(ByteBuffer buffer, FileChannel channel) {
+        this.buffer = buffer;
+        this.channel = channel;
+    }
+
+    /**
+     * Creates a context stored in a direct ByteBuffer
+     * @param capacity The initial capacity of the buffer in bytes
+     * @return The new context
+     */
+    public static OffHeapContext direct(int capacity) {
+        return new OffHeapContext(ByteBuffer.allocateDirect(Math.max(capacity, 64)), null);
+    }
+
+    /**
+     * Creates a context stored in a memory-mapped file, the file is created if it doesn't exist
+     * and its previous content is discarded
+     * @param file The file of the context
+     * @param capacity The initial capacity of the mapping in bytes
+     * @return The new context
+     * @throws IOException If the file can't be opened or mapped
+     */
+    public static OffHeapContext mapped(Path file, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new OffHeapContext(channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, 64)), channel);
+    }
+
+    /**
+     * Returns the first index of the key in the directory, an open addressing table with linear probing
+     */
+    private int slot(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (keys.length - 1);
+    }
+
+    /**
+     * Returns the index of the key in the directory
+     * @return The index of the key or -1 if the key is not present
+     */
+    private int find(String key) {
+        for (int i = slot(key); keys[i] != null; i = (i + 1) & (keys.length - 1)) {
+            if (keys[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the key in the directory starting from the precomputed hash of the key
+     */
+    private int find(ContextKey<?> key) {
+        int mask = keys.length - 1;
+        for (int i = key.getHash() & mask; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equals(key.getName())) return i;
+        }
+        return -1;
+    }
+
+    private int insert(String key, int offset, int length) {
+        if ((size + 1) * 2 > keys.length) resize(keys.length * 2);
+        int i = slot(key);
+        while (keys[i] != null) i = (i + 1) & (keys.length - 1);
+        keys[i] = key;
+        offsets[i] = offset;
+        lengths[i] = length;
+        capacities[i] = length;
+        size++;
+        return i;
+    }
+
+    private void resize(int length) {
+        String[] k = keys;
+        int[] o = offsets, l = lengths, c = capacities;
+        keys = new String[length];
+        offsets = new int[length];
+        lengths = new int[length];
+        capacities = new int[length];
+        size = 0;
+        for (int j = 0; j < k.length; j++) {
+            if (k[j] == null) continue;
+            int i = insert(k[j], o[j], l[j]);
+            capacities[i] = c[j];
+        }
+    }
+
+    /**
+     * Removes the entry shifting back the following entries of the same probe sequence
+     */
+    private void delete(int i) {
+        int mask = keys.length - 1;
+        keys[i] = null;
+        size--;
+        for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                offsets[i] = offsets[j];
+                lengths[i] = lengths[j];
+                capacities[i] = capacities[j];
+                keys[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    /**
+     * Reserves the space of a value, reusing the space of the previous value if it fits
+     * @return The offset where the value has to be written
+     */
+    private int reserve(String key, int length) {
+        markDirty(key);
+        int i = find(key);
+        if (i >= 0 && capacities[i] >= length) {
+            lengths[i] = length;
+            return offsets[i];
+        }
+        int offset = allocate(length);
+        i = find(key);
+        if (i < 0) {
+            insert(key, offset, length);
+        } else {
+            garbage += capacities[i];
+            offsets[i] = offset;
+            lengths[i] = length;
+            capacities[i] = length;
+        }
+        return offset;
+    }
+
+    private int allocate(int length) {
+        if (position + length > buffer.capacity()) {
+            if (garbage > 0) compact();
+            if (position + length > buffer.capacity()) grow(Math.max(buffer.capacity() * 2, position + length));
+        }
+        int offset = position;
+        position += length;
+        return offset;
+    }
+
+    /**
+     * Moves the live values to the beginning of the buffer
+     */
+    private void compact() {
+        int live = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) live += lengths[i];
+        }
+        byte[] data = new byte[live];
+        int p = 0;
+        ByteBuffer view = buffer.duplicate();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) continue;
+            view.position(offsets[i]);
+            view.get(data, p, lengths[i]);
+            offsets[i] = p;
+            capacities[i] = lengths[i];
+            p += lengths[i];
+        }
+        view.position(0);
+        view.put(data);
+        position = live;
+        garbage = 0;
+        compactions++;
+    }
+
+    private void grow(int capacity) {
+        if (channel != null) {
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            } catch (IOException e) {
+                throw new IllegalStateException(new GameException(ExceptionLibrary.get("CONTEXT_EXCEPTION"), "cannot grow the mapped file: " + e.getMessage()));
+            }
+            return;
+        }
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+        ByteBuffer view = buffer.duplicate();
+        view.position(0).limit(position);
+        grown.put(view);
+        buffer = grown;
+    }
+
+    private GameException castingException(String key, Class<?> clazz) throws GameException {
+        return new GameException(ExceptionLibrary.get("CONTEXT_CASTING_EXCEPTION"), " key: " + key + "(" + get(key) + ") -> " + clazz.getSimpleName());
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public <V> void put(String key, V value) {
+        byte[] data = ValueCodec.encode(key, value);
+        int offset = reserve(key, data.length);
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.put(data);
+    }
+
+    @Override
+    public void putAll(Map<String, Object> data) {
+        for (Map.Entry<String, Object> k : data.entrySet()) {
+            put(k.getKey(), k.getValue());
+        }
+    }
+
+    @Override
+    public <V> V get(String key, Class<V> clazz) throws GameException {
+        Object o = get(key);
+        if (!clazz.isInstance(o))
+            throw new GameException(ExceptionLibrary.get("CONTEXT_CASTING_EXCEPTION"), " key: " + key + "(" + o + ") -> " + clazz.getSimpleName());
+        return clazz.cast(o);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V get(String key) throws GameException {
+        int i = find(key);
+        return i < 0 ? null : (V) ValueCodec.decode(key, buffer, offsets[i], lengths[i]);
+    }
+
+    @Override
+    public boolean contains(ContextKey<?> key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public <T> T get(ContextKey<T> key) throws GameException {
+        int i = find(key);
+        return i < 0 ? null : key.cast(ValueCodec.decode(key.getName(), buffer, offsets[i], lengths[i]));
+    }
+
+    @Override
+    public int getInt(String key) throws GameException {
+        int i = find(key);
+        if (i >= 0 && buffer.get(offsets[i]) == ValueCodec.INT) return buffer.getInt(offsets[i] + 1);
+        throw castingException(key, int.class);
+    }
+
+    @Override
+    public void putInt(String key, int value) {
+        int offset = reserve(key, 5);
+        buffer.put(offset, ValueCodec.INT);
+        buffer.putInt(offset + 1, value);
+    }
+
+    @Override
+    public long getLong(String key) throws GameException {
+        int i = find(key);
+        if (i >= 0) {
+            switch (buffer.get(offsets[i])) {
+                case ValueCodec.LONG:
+                    return buffer.getLong(offsets[i] + 1);
+                case ValueCodec.INT:
+                    return buffer.getInt(offsets[i] + 1);
+            }
+        }
+        throw castingException(key, long.class);
+    }
+
+    @Override
+    public void putLong(String key, long value) {
+        int offset = reserve(key, 9);
+        buffer.put(offset, ValueCodec.LONG);
+        buffer.putLong(offset + 1, value);
+    }
+
+    @Override
+    public double getDouble(String key) throws GameException {
+        int i = find(key);
+        if (i >= 0) {
+            switch (buffer.get(offsets[i])) {
+                case ValueCodec.DOUBLE:
+                    return buffer.getDouble(offsets[i] + 1);
+                case ValueCodec.LONG:
+                    return buffer.getLong(offsets[i] + 1);
+                case ValueCodec.INT:
+                    return buffer.getInt(offsets[i] + 1);
+            }
+        }
+        throw castingException(key, double.class);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        int offset = reserve(key, 9);
+        buffer.put(offset, ValueCodec.DOUBLE);
+        buffer.putDouble(offset + 1, value);
+    }
+
+    @Override
+    public boolean getBoolean(String key) throws GameException {
+        int i = find(key);
+        if (i >= 0 && buffer.get(offsets[i]) == ValueCodec.BOOLEAN) return buffer.get(offsets[i] + 1) != 0;
+        throw castingException(key, boolean.class);
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        int offset = reserve(key, 2);
+        buffer.put(offset, ValueCodec.BOOLEAN);
+        buffer.put(offset + 1, (byte) (value ? 1 : 0));
+    }
+
+    @Override
+    public void remove(String key) {
+        markDirty(key);
+        int i = find(key);
+        if (i < 0) return;
+        garbage += capacities[i];
+        delete(i);
+    }
+
+    @Override
+    public void cleanup() {
+        Arrays.fill(keys, null);
+        size = 0;
+        position = 0;
+        garbage = 0;
+        clearChanges();
+    }
+
+    /**
+     * Writes the mapped file to disk and closes it, the context must not be used after this call.
+     * The direct buffers are released by the garbage collector
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+        if (buffer instanceof MappedByteBuffer) ((MappedByteBuffer) buffer).force();
+        channel.close();
+    }
+
+    /**
+     * Returns the number of keys of the context
+     * @return The number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Returns the bytes used in the buffer, the live values and the garbage
+     * @return The used bytes
+     */
+    public int getUsedBytes() {
+        return position;
+    }
+
+    /**
+     * Returns the bytes of the overwritten and removed values, reclaimed by the next compaction
+     * @return The garbage bytes
+     */
+    public int getGarbageBytes() {
+        return garbage;
+    }
+
+    public long getCompactions() {
+        return compactions;
+    }
+
+}
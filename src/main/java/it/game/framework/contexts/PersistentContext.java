@@ -0,0 +1,342 @@
+package it.game.framework.contexts;
+
+import it.game.framework.contexts.interfaces.Snapshottable;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+
+import java.util.Map;
+
+/**
+ * A GameContext stored in a persistent hash array mapped trie (HAMT).
+ * <br>The trie is immutable: every write copies only the path from the root to the modified
+ * entry (at most 7 small nodes) and shares all the other nodes with the previous version.
+ * So a snapshot is just the reference to the current root, it costs O(1) whatever the number
+ * of keys, and restoring a snapshot is an assignment that shares all the unchanged structure.
+ * <br>The snapshots are immutable and can be kept or shared between threads, the context itself
+ * is not thread safe, like the SimpleContext.
+ */
+public class PersistentContext extends GameContext implements Snapshottable {
+
+    private static final Object NOT_FOUND = new Object();
+
+    /**
+     * The version of the content captured by a snapshot
+     */
+    private static final class Version implements Snapshot {
+        private final Node root;
+        private final int size;
+
+        private Version(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+    }
+
+    /**
+     * The outcome of a write, the size of the trie changes only when an entry is added or removed
+     */
+    private static final class Change {
+        private boolean added;
+        private boolean removed;
+    }
+
+    /**
+     * A node of the trie, each level consumes 5 bits of the hash of the key.
+     * The entries of the node are stored inline as key-value pairs at the beginning of
+     * the content, the sub-nodes are stored at the end in reverse order
+     */
+    private static class Node {
+
+        static final Node EMPTY = new Node(0, 0, new Object[0]);
+
+        final int dataMap;
+        final int nodeMap;
+        final Object[] content;
+
+        Node(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 31);
+        }
+
+        int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        int nodeIndex(int bit) {
+            return content.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        int entries() {
+            return Integer.bitCount(dataMap);
+        }
+
+        int nodes() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        Object find(String key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = 2 * dataIndex(bit);
+                return key.equals(content[i]) ? content[i + 1] : NOT_FOUND;
+            }
+            if ((nodeMap & bit) != 0) return ((Node) content[nodeIndex(bit)]).find(key, hash, shift + 5);
+            return NOT_FOUND;
+        }
+
+        Node put(String key, int hash, Object value, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = 2 * dataIndex(bit);
+                String k = (String) content[i];
+                if (k.equals(key)) {
+                    if (content[i + 1] == value) return this;
+                    Object[] c = content.clone();
+                    c[i + 1] = value;
+                    return new Node(dataMap, nodeMap, c);
+                }
+                change.added = true;
+                // the entry and the new one move into a sub-node, the pair becomes a single reference
+                Node sub = merge(k, hash(k), content[i + 1], key, hash, value, shift + 5);
+                int n = nodeIndex(bit) - 1;
+                Object[] c = new Object[content.length - 1];
+                System.arraycopy(content, 0, c, 0, i);
+                System.arraycopy(content, i + 2, c, i, n - i);
+                c[n] = sub;
+                System.arraycopy(content, n + 2, c, n + 1, content.length - n - 2);
+                return new Node(dataMap ^ bit, nodeMap | bit, c);
+            }
+            if ((nodeMap & bit) != 0) {
+                int n = nodeIndex(bit);
+                Node sub = (Node) content[n];
+                Node updated = sub.put(key, hash, value, shift + 5, change);
+                if (updated == sub) return this;
+                Object[] c = content.clone();
+                c[n] = updated;
+                return new Node(dataMap, nodeMap, c);
+            }
+            change.added = true;
+            int i = 2 * dataIndex(bit);
+            Object[] c = new Object[content.length + 2];
+            System.arraycopy(content, 0, c, 0, i);
+            c[i] = key;
+            c[i + 1] = value;
+            System.arraycopy(content, i, c, i + 2, content.length - i);
+            return new Node(dataMap | bit, nodeMap, c);
+        }
+
+        Node remove(String key, int hash, int shift, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = 2 * dataIndex(bit);
+                if (!key.equals(content[i])) return this;
+                change.removed = true;
+                Object[] c = new Object[content.length - 2];
+                System.arraycopy(content, 0, c, 0, i);
+                System.arraycopy(content, i + 2, c, i, content.length - i - 2);
+                return new Node(dataMap ^ bit, nodeMap, c);
+            }
+            if ((nodeMap & bit) != 0) {
+                int n = nodeIndex(bit);
+                Node sub = (Node) content[n];
+                Node updated = sub.remove(key, hash, shift + 5, change);
+                if (updated == sub) return this;
+                if (updated.nodes() == 0 && updated.entries() == 1) {
+                    // the sub-node has a single entry left, it is moved inline into this node
+                    int i = 2 * dataIndex(bit);
+                    Object[] c = new Object[content.length + 1];
+                    System.arraycopy(content, 0, c, 0, i);
+                    c[i] = updated.content[0];
+                    c[i + 1] = updated.content[1];
+                    System.arraycopy(content, i, c, i + 2, n - i);
+                    System.arraycopy(content, n + 1, c, n + 2, content.length - n - 1);
+                    return new Node(dataMap | bit, nodeMap ^ bit, c);
+                }
+                Object[] c = content.clone();
+                c[n] = updated;
+                return new Node(dataMap, nodeMap, c);
+            }
+            return this;
+        }
+
+        /**
+         * Creates the sub-trie that contains two entries with the same hash bits up to the shift
+         */
+        static Node merge(String k1, int h1, Object v1, String k2, int h2, Object v2, int shift) {
+            if (shift > 30) return new Collision(h1, new Object[]{k1, v1, k2, v2});
+            int i1 = (h1 >>> shift) & 31;
+            int i2 = (h2 >>> shift) & 31;
+            if (i1 == i2) return new Node(0, 1 << i1, new Object[]{merge(k1, h1, v1, k2, h2, v2, shift + 5)});
+            return new Node((1 << i1) | (1 << i2), 0, i1 < i2 ? new Object[]{k1, v1, k2, v2} : new Object[]{k2, v2, k1, v1});
+        }
+    }
+
+    /**
+     * The leaf of the keys with the same hash, the entries are searched linearly
+     */
+    private static final class Collision extends Node {
+
+        final int hash;
+
+        Collision(int hash, Object[] content) {
+            super(0, 0, content);
+            this.hash = hash;
+        }
+
+        @Override
+        int entries() {
+            return content.length / 2;
+        }
+
+        @Override
+        int nodes() {
+            return 0;
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < content.length; i += 2) {
+                if (key.equals(content[i])) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(String key, int hash, int shift) {
+            int i = indexOf(key);
+            return i < 0 ? NOT_FOUND : content[i + 1];
+        }
+
+        @Override
+        Node put(String key, int hash, Object value, int shift, Change change) {
+            int i = indexOf(key);
+            Object[] c;
+            if (i < 0) {
+                change.added = true;
+                c = new Object[content.length + 2];
+                System.arraycopy(content, 0, c, 0, content.length);
+                c[content.length] = key;
+                c[content.length + 1] = value;
+            } else {
+                if (content[i + 1] == value) return this;
+                c = content.clone();
+                c[i + 1] = value;
+            }
+            return new Collision(this.hash, c);
+        }
+
+        @Override
+        Node remove(String key, int hash, int shift, Change change) {
+            int i = indexOf(key);
+            if (i < 0) return this;
+            change.removed = true;
+            Object[] c = new Object[content.length - 2];
+            System.arraycopy(content, 0, c, 0, i);
+            System.arraycopy(content, i + 2, c, i, content.length - i - 2);
+            return new Collision(this.hash, c);
+        }
+    }
+
+    private Node root = Node.EMPTY;
+    private int size;
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        return new Version(root, size);
+    }
+
+    @Override
+    public void restore(Snapshot snapshot) {
+        if (!(snapshot instanceof Version)) throw new IllegalArgumentException("The snapshot was not taken by a PersistentContext");
+        Version version = (Version) snapshot;
+        this.root = version.root;
+        this.size = version.size;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return root.find(key, hash(key), 0) != NOT_FOUND;
+    }
+
+    @Override
+    public <V> void put(String key, V value) {
+        markDirty(key);
+        Change change = new Change();
+        root = root.put(key, hash(key), value, 0, change);
+        if (change.added) size++;
+    }
+
+    @Override
+    public void putAll(Map<String, Object> data) {
+        for (Map.Entry<String, Object> k : data.entrySet()) {
+            put(k.getKey(), k.getValue());
+        }
+    }
+
+    @Override
+    public <V> V get(String key, Class<V> clazz) throws GameException {
+        Object o = get(key);
+        if (!clazz.isInstance(o))
+            throw new GameException(ExceptionLibrary.get("CONTEXT_CASTING_EXCEPTION"), " key: " + key + "(" + o + ") -> " + clazz.getSimpleName());
+        return clazz.cast(o);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V get(String key) {
+        Object o = root.find(key, hash(key), 0);
+        return o == NOT_FOUND ? null : (V) o;
+    }
+
+    @Override
+    public boolean contains(ContextKey<?> key) {
+        return root.find(key.getName(), key.getHash(), 0) != NOT_FOUND;
+    }
+
+    @Override
+    public <T> void put(ContextKey<T> key, T value) {
+        markDirty(key.getName());
+        Change change = new Change();
+        root = root.put(key.getName(), key.getHash(), value, 0, change);
+        if (change.added) size++;
+    }
+
+    @Override
+    public <T> T get(ContextKey<T> key) throws GameException {
+        Object o = root.find(key.getName(), key.getHash(), 0);
+        return key.cast(o == NOT_FOUND ? null : o);
+    }
+
+    @Override
+    public void remove(String key) {
+        markDirty(key);
+        Change change = new Change();
+        root = root.remove(key, hash(key), 0, change);
+        if (change.removed) size--;
+    }
+
+    @Override
+    public void cleanup() {
+        root = Node.EMPTY;
+        size = 0;
+        clearChanges();
+    }
+
+    /**
+     * Returns the number of keys of the context
+     * @return The number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+}
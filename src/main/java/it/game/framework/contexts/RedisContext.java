@@ -0,0 +1,311 @@
+package it.game.framework.contexts;
+
+import it.game.framework.contexts.interfaces.RedisConnection;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A GameContext stored in Redis, the keys of the session are the fields of a single Redis hash,
+ * so the state of the session lives outside the JVM.
+ * <br>To avoid a network round trip for every access:
+ * <ul>
+ *     <li>The writes are buffered and sent together in a single pipeline when the buffer is full
+ *     or when {@link #flush()} is called, the buffered writes are visible to this context immediately</li>
+ *     <li>The values read or written are kept in a bounded near-cache (least recently used entries are evicted),
+ *     the missing keys are cached too. The near-cache can't see the writes of other processes, so the
+ *     entries can expire after a time to live and can be invalidated with {@link #invalidate(String)}</li>
+ *     <li>Several keys can be loaded with a single round trip by {@link #prefetch(String...)}</li>
+ * </ul>
+ * The values are stored in the compact format of the ValueCodec, the values that are not numbers,
+ * booleans or Strings are stored with the Java serialization and must be Serializable.
+ * <br>The context is not thread safe, like the SimpleContext.
+ */
+public class RedisContext extends GameContext implements AutoCloseable {
+
+    private static final Object MISSING = new Object();
+
+    /**
+     * A value of the near-cache with the time it was loaded
+     */
+    private static final class Cached {
+        private final Object value;
+        private final long loadedNanos;
+
+        private Cached(Object value) {
+            this.value = value;
+            this.loadedNanos = System.nanoTime();
+        }
+    }
+
+    private final RedisConnection connection;
+    @Getter
+    private final String hashKey;
+    private final byte[] hash;
+    @Getter
+    private final int batchSize;
+    private final long ttlNanos;
+    private final Map<String, byte[]> pending = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Cached> nearCache;
+    private long roundTrips;
+    private long commands;
+    private long nearCacheHits;
+    private long nearCacheMisses;
+
+    /**
+     * Creates a context with a write buffer of 64 keys and a near-cache of 1024 keys without expiration
+     * @param connection The connection to Redis
+     * @param hashKey The key of the Redis hash of the session
+     */
+    public RedisContext(RedisConnection connection, String hashKey) {
+        this(connection, hashKey, 64, 1024, null);
+    }
+
+    /**
+     * Creates a context
+     * @param connection The connection to Redis
+     * @param hashKey The key of the Redis hash of the session
+     * @param batchSize The number of buffered writes that triggers a flush, 1 writes through
+     * @param nearCacheSize The maximum number of keys kept in the near-cache, 0 disables it
+     * @param nearCacheTtl The time to live of the near-cache entries, null if they don't expire
+     */
+    public RedisContext(RedisConnection connection, String hashKey, int batchSize, int nearCacheSize, Duration nearCacheTtl) {
+        this.connection = connection;
+        this.hashKey = hashKey;
+        this.hash = bytes(hashKey);
+        this.batchSize = Math.max(1, batchSize);
+        this.ttlNanos = nearCacheTtl == null ? 0 : nearCacheTtl.toNanos();
+        this.nearCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > nearCacheSize;
+            }
+        };
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the near-cache entry of the key, removing it if it is expired
+     */
+    private Cached cached(String key) {
+        Cached c = nearCache.get(key);
+        if (c != null && ttlNanos > 0 && System.nanoTime() - c.loadedNanos > ttlNanos) {
+            nearCache.remove(key);
+            c = null;
+        }
+        if (c == null) nearCacheMisses++;
+        else nearCacheHits++;
+        return c;
+    }
+
+    /**
+     * Reads a value from the near-cache, the write buffer or Redis
+     * @return The value or MISSING if the key is not present
+     */
+    private Object load(String key) throws GameException {
+        Cached c = cached(key);
+        if (c != null) return c.value;
+        Object value;
+        if (pending.containsKey(key)) {
+            byte[] data = pending.get(key);
+            value = data == null ? MISSING : ValueCodec.decode(key, data);
+        } else {
+            roundTrips++;
+            commands++;
+            byte[] data = connection.hget(hash, bytes(key));
+            value = data == null ? MISSING : ValueCodec.decode(key, data);
+        }
+        nearCache.put(key, new Cached(value));
+        return value;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        Cached c = cached(key);
+        if (c != null) return c.value != MISSING;
+        if (pending.containsKey(key)) return pending.get(key) != null;
+        roundTrips++;
+        commands++;
+        boolean exists = connection.hexists(hash, bytes(key));
+        if (!exists) nearCache.put(key, new Cached(MISSING));
+        return exists;
+    }
+
+    @Override
+    public <V> void put(String key, V value) {
+        markDirty(key);
+        pending.put(key, ValueCodec.encode(key, value));
+        nearCache.put(key, new Cached(value));
+        if (pending.size() >= batchSize) flush();
+    }
+
+    @Override
+    public void putAll(Map<String, Object> data) {
+        for (Map.Entry<String, Object> k : data.entrySet()) {
+            put(k.getKey(), k.getValue());
+        }
+    }
+
+    @Override
+    public <V> V get(String key, Class<V> clazz) throws GameException {
+        Object o = load(key);
+        if (o == MISSING) o = null;
+        if (!clazz.isInstance(o))
+            throw new GameException(ExceptionLibrary.get("CONTEXT_CASTING_EXCEPTION"), " key: " + key + "(" + o + ") -> " + clazz.getSimpleName());
+        return clazz.cast(o);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V get(String key) throws GameException {
+        Object o = load(key);
+        return o == MISSING ? null : (V) o;
+    }
+
+    @Override
+    public void remove(String key) {
+        markDirty(key);
+        pending.put(key, null);
+        nearCache.put(key, new Cached(MISSING));
+        if (pending.size() >= batchSize) flush();
+    }
+
+    /**
+     * Loads several keys into the near-cache with a single round trip,
+     * the keys already cached or buffered are not requested
+     * @param keys The keys to load
+     * @throws GameException If a value can't be deserialized
+     */
+    public void prefetch(String... keys) throws GameException {
+        List<String> missing = new ArrayList<>(keys.length);
+        for (String key : keys) {
+            if (!nearCache.containsKey(key) && !pending.containsKey(key)) missing.add(key);
+        }
+        if (missing.isEmpty()) return;
+        byte[][] fields = new byte[missing.size()][];
+        for (int i = 0; i < fields.length; i++) fields[i] = bytes(missing.get(i));
+        roundTrips++;
+        commands += fields.length;
+        List<byte[]> values = connection.hmget(hash, fields);
+        for (int i = 0; i < fields.length; i++) {
+            byte[] data = values.get(i);
+            String key = missing.get(i);
+            nearCache.put(key, new Cached(data == null ? MISSING : ValueCodec.decode(key, data)));
+        }
+    }
+
+    /**
+     * Sends the buffered writes to Redis with a single pipeline
+     */
+    public void flush() {
+        if (pending.isEmpty()) return;
+        List<byte[]> fields = new ArrayList<>(pending.size());
+        List<byte[]> values = new ArrayList<>(pending.size());
+        for (Map.Entry<String, byte[]> e : pending.entrySet()) {
+            fields.add(bytes(e.getKey()));
+            values.add(e.getValue());
+        }
+        connection.write(hash, fields, values);
+        roundTrips++;
+        commands += fields.size();
+        pending.clear();
+    }
+
+    /**
+     * Removes a key from the near-cache, the next read loads it from Redis
+     * @param key The key written by another process
+     */
+    public void invalidate(String key) {
+        nearCache.remove(key);
+    }
+
+    /**
+     * Empties the near-cache, the next reads load the keys from Redis
+     */
+    public void invalidateAll() {
+        nearCache.clear();
+    }
+
+    /**
+     * Deletes the hash of the session from Redis and empties the buffer and the near-cache
+     */
+    @Override
+    public void cleanup() {
+        pending.clear();
+        nearCache.clear();
+        roundTrips++;
+        commands++;
+        connection.delete(hash);
+        clearChanges();
+    }
+
+    /**
+     * Flushes the buffered writes, the connection is not closed because it can be shared
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    public int getPendingWrites() {
+        return pending.size();
+    }
+
+    public long getRoundTrips() {
+        return roundTrips;
+    }
+
+    /**
+     * Returns the number of Redis commands sent, a pipeline and an HMGET send many commands in a round trip
+     * @return The number of commands
+     */
+    public long getCommands() {
+        return commands;
+    }
+
+    /**
+     * Returns the round trips saved by sending several commands together
+     * @return The number of commands minus the number of round trips
+     */
+    public long getRoundTripsSaved() {
+        return commands - roundTrips;
+    }
+
+    public long getNearCacheHits() {
+        return nearCacheHits;
+    }
+
+    public long getNearCacheMisses() {
+        return nearCacheMisses;
+    }
+
+    /**
+     * Returns the ratio between the reads served by the near-cache and all the reads
+     * @return The hit ratio between 0 and 1
+     */
+    public double getNearCacheHitRatio() {
+        long total = nearCacheHits + nearCacheMisses;
+        return total == 0 ? 0 : (double) nearCacheHits / total;
+    }
+
+    /**
+     * Resets the statistics of the context
+     */
+    public void resetStatistics() {
+        roundTrips = 0;
+        commands = 0;
+        nearCacheHits = 0;
+        nearCacheMisses = 0;
+    }
+
+}
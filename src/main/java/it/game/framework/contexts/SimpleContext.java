@@ -22,6 +22,41 @@ public class SimpleContext extends GameContext {
         return names.indexOf(key);
     }
 
+    /**
+     * Returns the index of the key checking first the position where the key was found last time
+     */
+    private int indexOf(ContextKey<?> key) {
+        int hint = key.hint;
+        if (hint < names.size() && names.get(hint).equals(key.getName())) return hint;
+        int i = indexOf(key.getName());
+        if (i >= 0) key.hint = i;
+        return i;
+    }
+
+    @Override
+    public boolean contains(ContextKey<?> key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public <T> void put(ContextKey<T> key, T value) {
+        markDirty(key.getName());
+        int i = indexOf(key);
+        if (i >= 0) {
+            objects.set(i, value);
+        } else {
+            key.hint = names.size();
+            names.add(key.getName());
+            objects.add(value);
+        }
+    }
+
+    @Override
+    public <T> T get(ContextKey<T> key) throws GameException {
+        int i = indexOf(key);
+        return i < 0 ? null : key.cast(objects.get(i));
+    }
+
     @Override
     public boolean contains(String key) {
         return names.contains(key);
@@ -29,6 +64,7 @@ public class SimpleContext extends GameContext {
 
     @Override
     public <V> void put(String key, V value) {
+        markDirty(key);
         if (names.contains(key)) {
             objects.set(indexOf(key), value);
         } else {
@@ -60,6 +96,7 @@ public class SimpleContext extends GameContext {
 
     @Override
     public void remove(String key) {
+        markDirty(key);
         int i = indexOf(key);
         names.remove(i);
         objects.remove(i);
@@ -69,6 +106,7 @@ public class SimpleContext extends GameContext {
     public void cleanup() {
         names.clear();
         objects.clear();
+        clearChanges();
     }
 
 }
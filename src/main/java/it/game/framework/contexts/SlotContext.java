@@ -0,0 +1,399 @@
+package it.game.framework.contexts;
+
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A GameContext that stores the values of the keys declared in a SlotLayout into arrays.
+ * <br>The slot methods ({@link #get(int, String)}, {@link #put(int, String, Object)}, ...) read and
+ * write the arrays directly after checking that the slot belongs to the key in the layout of the context,
+ * a slot resolved on the layout of another machine is resolved again by key. The String methods
+ * resolve the key through the layout and fall back to a map for the keys that are not declared,
+ * so every key can still be used. A key written before its declaration is moved from the map into its slot the first time
+ * the context uses the slot.
+ * <br>The primitive accessors ({@link #putInt(int, String, int)}, {@link #getInt(int, String)}, ...)
+ * store the values into a long array without boxing them, the value is boxed only if it is read
+ * with the generic get. A primitive can be read as a wider type (e.g. an int with getLong or getDouble).
+ * <br>The context is not thread safe, like the SimpleContext.
+ */
+public class SlotContext extends GameContext {
+
+    private static final byte ABSENT = 0;
+    private static final byte OBJECT = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+
+    @Getter
+    private final SlotLayout layout;
+    private byte[] types;
+    private Object[] objects;
+    private long[] primitives;
+    private final Map<String, Object> fallback = new HashMap<>();
+
+    public SlotContext(SlotLayout layout) {
+        this.layout = layout;
+        this.types = new byte[layout.size()];
+        this.objects = new Object[layout.size()];
+        this.primitives = new long[layout.size()];
+    }
+
+    /**
+     * Grows the arrays when keys have been declared in the layout after the creation of the context,
+     * the values of the new keys written before their declaration are moved from the fallback map into their slots
+     */
+    private void ensureCapacity(int slot) {
+        if (slot < types.length) return;
+        int from = types.length;
+        int size = Math.max(layout.size(), slot + 1);
+        types = Arrays.copyOf(types, size);
+        objects = Arrays.copyOf(objects, size);
+        primitives = Arrays.copyOf(primitives, size);
+        if (fallback.isEmpty()) return;
+        for (int s = from; s < size && s < layout.size(); s++) {
+            String key = layout.keyOf(s);
+            if (!fallback.containsKey(key)) continue;
+            types[s] = OBJECT;
+            objects[s] = fallback.remove(key);
+        }
+    }
+
+    private byte type(int slot) {
+        if (slot < types.length) return types[slot];
+        if (fallback.isEmpty()) return ABSENT;
+        ensureCapacity(slot);
+        return types[slot];
+    }
+
+    /**
+     * Reads a slot boxing the primitive values
+     */
+    private Object read(int slot) {
+        switch (type(slot)) {
+            case OBJECT:
+                return objects[slot];
+            case INT:
+                return (int) primitives[slot];
+            case LONG:
+                return primitives[slot];
+            case DOUBLE:
+                return Double.longBitsToDouble(primitives[slot]);
+            case BOOLEAN:
+                return primitives[slot] != 0;
+            default:
+                return null;
+        }
+    }
+
+    private void write(int slot, String key, byte type, long value) {
+        markDirty(key);
+        ensureCapacity(slot);
+        types[slot] = type;
+        objects[slot] = null;
+        primitives[slot] = value;
+    }
+
+    /**
+     * Checks that a slot passed to a slot method is the slot of the key in the layout of this context,
+     * a slot resolved on the layout of another machine is replaced by the slot of the key
+     * @return The slot of the key or -1 if the key is not declared in the layout
+     */
+    private int resolve(int slot, String key) {
+        if (slot >= 0 && slot < layout.size()) {
+            String declared = layout.keyOf(slot);
+            if (declared == key || declared.equals(key)) return slot;
+        }
+        return layout.slotOf(key);
+    }
+
+    @Override
+    public boolean contains(String key) {
+        int slot = layout.slotOf(key);
+        if (slot < 0) return fallback.containsKey(key);
+        return type(slot) != ABSENT;
+    }
+
+    @Override
+    public boolean contains(int slot, String key) {
+        int s = resolve(slot, key);
+        return s < 0 ? fallback.containsKey(key) : type(s) != ABSENT;
+    }
+
+    @Override
+    public <V> void put(String key, V value) {
+        int slot = layout.slotOf(key);
+        if (slot < 0) {
+            markDirty(key);
+            fallback.put(key, value);
+        } else {
+            store(slot, key, value);
+        }
+    }
+
+    @Override
+    public <V> void put(int slot, String key, V value) {
+        int s = resolve(slot, key);
+        if (s < 0) {
+            markDirty(key);
+            fallback.put(key, value);
+        } else {
+            store(s, key, value);
+        }
+    }
+
+    private void store(int slot, String key, Object value) {
+        markDirty(key);
+        ensureCapacity(slot);
+        types[slot] = OBJECT;
+        objects[slot] = value;
+    }
+
+    @Override
+    public void putAll(Map<String, Object> data) {
+        for (Map.Entry<String, Object> k : data.entrySet()) {
+            put(k.getKey(), k.getValue());
+        }
+    }
+
+    @Override
+    public <V> V get(String key, Class<V> clazz) throws GameException {
+        int slot = layout.slotOf(key);
+        return cast(key, slot < 0 ? fallback.get(key) : read(slot), clazz);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V get(String key) {
+        int slot = layout.slotOf(key);
+        return (V) (slot < 0 ? fallback.get(key) : read(slot));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V get(int slot, String key) {
+        int s = resolve(slot, key);
+        return (V) (s < 0 ? fallback.get(key) : read(s));
+    }
+
+    @Override
+    public <V> V get(int slot, String key, Class<V> clazz) throws GameException {
+        int s = resolve(slot, key);
+        return cast(key, s < 0 ? fallback.get(key) : read(s), clazz);
+    }
+
+    private <V> V cast(String key, Object o, Class<V> clazz) throws GameException {
+        if (!clazz.isInstance(o)) throw castingException(key, o, clazz);
+        return clazz.cast(o);
+    }
+
+    private GameException castingException(String key, Object o, Class<?> clazz) {
+        return new GameException(ExceptionLibrary.get("CONTEXT_CASTING_EXCEPTION"), " key: " + key + "(" + o + ") -> " + clazz.getSimpleName());
+    }
+
+    @Override
+    public int getInt(String key) throws Exception {
+        int slot = layout.slotOf(key);
+        return slot < 0 ? super.getInt(key) : readInt(slot, key);
+    }
+
+    @Override
+    public void putInt(String key, int value) {
+        int slot = layout.slotOf(key);
+        if (slot < 0) super.putInt(key, value);
+        else write(slot, key, INT, value);
+    }
+
+    @Override
+    public int getInt(int slot, String key) throws GameException {
+        int s = resolve(slot, key);
+        return s < 0 ? get(key, Integer.class) : readInt(s, key);
+    }
+
+    private int readInt(int slot, String key) throws GameException {
+        switch (type(slot)) {
+            case INT:
+                return (int) primitives[slot];
+            case OBJECT:
+                if (objects[slot] instanceof Integer) return (Integer) objects[slot];
+                throw castingException(key, objects[slot], int.class);
+            default:
+                throw castingException(key, read(slot), int.class);
+        }
+    }
+
+    @Override
+    public void putInt(int slot, String key, int value) {
+        int s = resolve(slot, key);
+        if (s < 0) put(key, value);
+        else write(s, key, INT, value);
+    }
+
+    @Override
+    public long getLong(String key) throws Exception {
+        int slot = layout.slotOf(key);
+        return slot < 0 ? super.getLong(key) : readLong(slot, key);
+    }
+
+    @Override
+    public void putLong(String key, long value) {
+        int slot = layout.slotOf(key);
+        if (slot < 0) super.putLong(key, value);
+        else write(slot, key, LONG, value);
+    }
+
+    @Override
+    public long getLong(int slot, String key) throws GameException {
+        int s = resolve(slot, key);
+        return s < 0 ? get(key, Long.class) : readLong(s, key);
+    }
+
+    private long readLong(int slot, String key) throws GameException {
+        switch (type(slot)) {
+            case INT:
+            case LONG:
+                return primitives[slot];
+            case OBJECT:
+                Object o = objects[slot];
+                if (o instanceof Long || o instanceof Integer) return ((Number) o).longValue();
+                throw castingException(key, o, long.class);
+            default:
+                throw castingException(key, read(slot), long.class);
+        }
+    }
+
+    @Override
+    public void putLong(int slot, String key, long value) {
+        int s = resolve(slot, key);
+        if (s < 0) put(key, value);
+        else write(s, key, LONG, value);
+    }
+
+    @Override
+    public double getDouble(String key) throws Exception {
+        int slot = layout.slotOf(key);
+        return slot < 0 ? super.getDouble(key) : readDouble(slot, key);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        int slot = layout.slotOf(key);
+        if (slot < 0) super.putDouble(key, value);
+        else write(slot, key, DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public double getDouble(int slot, String key) throws GameException {
+        int s = resolve(slot, key);
+        return s < 0 ? get(key, Double.class) : readDouble(s, key);
+    }
+
+    private double readDouble(int slot, String key) throws GameException {
+        switch (type(slot)) {
+            case DOUBLE:
+                return Double.longBitsToDouble(primitives[slot]);
+            case INT:
+            case LONG:
+                return primitives[slot];
+            case OBJECT:
+                Object o = objects[slot];
+                if (o instanceof Double || o instanceof Long || o instanceof Integer) return ((Number) o).doubleValue();
+                throw castingException(key, o, double.class);
+            default:
+                throw castingException(key, read(slot), double.class);
+        }
+    }
+
+    @Override
+    public void putDouble(int slot, String key, double value) {
+        int s = resolve(slot, key);
+        if (s < 0) put(key, value);
+        else write(s, key, DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public boolean getBoolean(String key) throws Exception {
+        int slot = layout.slotOf(key);
+        return slot < 0 ? super.getBoolean(key) : readBoolean(slot, key);
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        int slot = layout.slotOf(key);
+        if (slot < 0) super.putBoolean(key, value);
+        else write(slot, key, BOOLEAN, value ? 1 : 0);
+    }
+
+    @Override
+    public boolean getBoolean(int slot, String key) throws GameException {
+        int s = resolve(slot, key);
+        return s < 0 ? get(key, Boolean.class) : readBoolean(s, key);
+    }
+
+    private boolean readBoolean(int slot, String key) throws GameException {
+        switch (type(slot)) {
+            case BOOLEAN:
+                return primitives[slot] != 0;
+            case OBJECT:
+                if (objects[slot] instanceof Boolean) return (Boolean) objects[slot];
+                throw castingException(key, objects[slot], boolean.class);
+            default:
+                throw castingException(key, read(slot), boolean.class);
+        }
+    }
+
+    @Override
+    public void putBoolean(int slot, String key, boolean value) {
+        int s = resolve(slot, key);
+        if (s < 0) put(key, value);
+        else write(s, key, BOOLEAN, value ? 1 : 0);
+    }
+
+    @Override
+    public boolean contains(ContextKey<?> key) {
+        return key.getLayout() == layout ? type(key.getSlot()) != ABSENT : contains(key.getName());
+    }
+
+    @Override
+    public <T> void put(ContextKey<T> key, T value) {
+        if (key.getLayout() == layout) store(key.getSlot(), key.getName(), value);
+        else put(key.getName(), value);
+    }
+
+    /**
+     * Returns the element of the key, the keys declared in the layout of this context are read by slot
+     * @param key The handle of the key
+     * @param <T> The type of the value
+     * @return The element or null if the key is missing
+     * @throws GameException If the element is not of the type of the key
+     */
+    @Override
+    public <T> T get(ContextKey<T> key) throws GameException {
+        return key.cast(key.getLayout() == layout ? read(key.getSlot()) : get(key.getName()));
+    }
+
+    @Override
+    public void remove(String key) {
+        markDirty(key);
+        int slot = layout.slotOf(key);
+        if (slot < 0) fallback.remove(key);
+        else if (type(slot) != ABSENT) {
+            types[slot] = ABSENT;
+            objects[slot] = null;
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        Arrays.fill(types, ABSENT);
+        Arrays.fill(objects, null);
+        fallback.clear();
+        clearChanges();
+    }
+
+}
@@ -0,0 +1,72 @@
+package it.game.framework.contexts;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SlotLayout assigns a dense integer slot to every key used by a machine.
+ * <br>The keys are declared when the machine is built (by the placeholders of the
+ * YamlBuilder expressions or by {@code StepBuilder.declareKey}), then the expressions
+ * and the GameStates read and write the SlotContext by slot with a plain array access
+ * instead of looking up the String key.
+ * <br>The layout only grows: a declared key keeps its slot for the whole life of the machine,
+ * so the slots resolved at build time stay valid. Declaring is thread safe, but it is meant
+ * to happen at build time.
+ */
+public class SlotLayout {
+
+    private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+    private volatile String[] keys = new String[0];
+
+    /**
+     * Declares a key, assigning it the next free slot if it is not declared yet
+     * @param key The key to declare
+     * @return The slot of the key
+     */
+    public int declare(String key) {
+        Integer slot = slots.get(key);
+        if (slot != null) return slot;
+        synchronized (this) {
+            slot = slots.get(key);
+            if (slot != null) return slot;
+            String[] k = Arrays.copyOf(keys, keys.length + 1);
+            k[k.length - 1] = key;
+            keys = k;
+            slots.put(key, k.length - 1);
+            return k.length - 1;
+        }
+    }
+
+    /**
+     * Returns the slot of a key
+     * @param key The key
+     * @return The slot of the key or -1 if the key is not declared
+     */
+    public int slotOf(String key) {
+        Integer slot = slots.get(key);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Returns the key of a slot
+     * @param slot The slot
+     * @return The key stored in the slot
+     */
+    public String keyOf(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Returns the number of declared keys
+     * @return The number of slots of the layout
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public String toString() {
+        return "SlotLayout" + Arrays.toString(keys);
+    }
+}
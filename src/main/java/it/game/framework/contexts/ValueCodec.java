@@ -0,0 +1,109 @@
+package it.game.framework.contexts;
+
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The compact binary format of the values stored outside the heap by the GameContexts.
+ * <br>A value is a tag byte followed by the payload: the numbers and the booleans have a fixed size,
+ * the Strings are stored as UTF-8, every other value is encoded with the Java serialization
+ * and must be Serializable. The length of the value is kept by the caller.
+ */
+final class ValueCodec {
+
+    static final byte NULL = 0;
+    static final byte INT = 1;
+    static final byte LONG = 2;
+    static final byte DOUBLE = 3;
+    static final byte BOOLEAN = 4;
+    static final byte FLOAT = 5;
+    static final byte STRING = 6;
+    static final byte OBJECT = 7;
+
+    private ValueCodec() {
+    }
+
+    /**
+     * Encodes a value
+     * @param key The key of the value, for the error messages
+     * @param value The value
+     * @return The encoded value
+     * @throws IllegalArgumentException If the value can't be serialized
+     */
+    static byte[] encode(String key, Object value) {
+        if (value == null) return new byte[]{NULL};
+        if (value instanceof Integer) return ByteBuffer.allocate(5).put(INT).putInt((Integer) value).array();
+        if (value instanceof Long) return ByteBuffer.allocate(9).put(LONG).putLong((Long) value).array();
+        if (value instanceof Double) return ByteBuffer.allocate(9).put(DOUBLE).putDouble((Double) value).array();
+        if (value instanceof Boolean) return new byte[]{BOOLEAN, (byte) ((Boolean) value ? 1 : 0)};
+        if (value instanceof Float) return ByteBuffer.allocate(5).put(FLOAT).putFloat((Float) value).array();
+        if (value instanceof String) {
+            byte[] s = ((String) value).getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(1 + s.length).put(STRING).put(s).array();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(OBJECT);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(new GameException(ExceptionLibrary.get("CONTEXT_SERIALIZATION_EXCEPTION"), " key: " + key + " -> " + e.getMessage()));
+        }
+    }
+
+    static Object decode(String key, byte[] data) throws GameException {
+        return decode(key, ByteBuffer.wrap(data), 0, data.length);
+    }
+
+    /**
+     * Decodes a value from a buffer, the position of the buffer is not modified
+     * @param key The key of the value, for the error messages
+     * @param buffer The buffer
+     * @param offset The offset of the tag of the value
+     * @param length The length of the value with the tag
+     * @return The decoded value
+     * @throws GameException If the value can't be deserialized
+     */
+    static Object decode(String key, ByteBuffer buffer, int offset, int length) throws GameException {
+        switch (buffer.get(offset)) {
+            case NULL:
+                return null;
+            case INT:
+                return buffer.getInt(offset + 1);
+            case LONG:
+                return buffer.getLong(offset + 1);
+            case DOUBLE:
+                return buffer.getDouble(offset + 1);
+            case BOOLEAN:
+                return buffer.get(offset + 1) != 0;
+            case FLOAT:
+                return buffer.getFloat(offset + 1);
+            case STRING:
+                return new String(read(buffer, offset + 1, length - 1), StandardCharsets.UTF_8);
+            default:
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(read(buffer, offset + 1, length - 1)))) {
+                    return in.readObject();
+                } catch (IOException | ClassNotFoundException e) {
+                    ExceptionLibrary.Entry entry = ExceptionLibrary.get("CONTEXT_SERIALIZATION_EXCEPTION");
+                    throw new GameException(entry.getHash(), entry.getMessage() + " - key: " + key, e);
+                }
+        }
+    }
+
+    private static byte[] read(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,49 @@
+package it.game.framework.contexts.interfaces;
+
+import java.util.List;
+
+/**
+ * The Redis commands used by the RedisContext, every method is a single round trip.
+ * <br>The interface is kept narrow so the context doesn't depend on a specific client
+ * and can be tested with an in-memory implementation.
+ */
+public interface RedisConnection {
+
+    /**
+     * Reads a field of a hash (HGET)
+     * @param key The key of the hash
+     * @param field The field
+     * @return The value of the field or null if it is missing
+     */
+    byte[] hget(byte[] key, byte[] field);
+
+    /**
+     * Reads several fields of a hash (HMGET)
+     * @param key The key of the hash
+     * @param fields The fields
+     * @return The values in the order of the fields, null for the missing ones
+     */
+    List<byte[]> hmget(byte[] key, byte[]... fields);
+
+    /**
+     * Checks a field of a hash (HEXISTS)
+     * @param key The key of the hash
+     * @param field The field
+     * @return True if the field exists
+     */
+    boolean hexists(byte[] key, byte[] field);
+
+    /**
+     * Writes several fields of a hash in a single pipeline (HSET and HDEL)
+     * @param key The key of the hash
+     * @param fields The written fields
+     * @param values The values of the fields, a null value deletes the field
+     */
+    void write(byte[] key, List<byte[]> fields, List<byte[]> values);
+
+    /**
+     * Deletes the hash (DEL)
+     * @param key The key of the hash
+     */
+    void delete(byte[] key);
+}
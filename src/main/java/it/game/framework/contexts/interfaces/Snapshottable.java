@@ -0,0 +1,28 @@
+package it.game.framework.contexts.interfaces;
+
+/**
+ * A GameContext that can take snapshots of its content and roll back to them.
+ * <br>When the context of an execution is Snapshottable, the executors take a snapshot
+ * when they enter a GameState with rollback ExceptionStateConnections and restore it
+ * when one of those connections handles an exception.
+ */
+public interface Snapshottable {
+
+    /**
+     * An immutable copy of the content of a context
+     */
+    interface Snapshot {
+    }
+
+    /**
+     * Takes a snapshot of the current content
+     * @return The snapshot
+     */
+    Snapshot snapshot();
+
+    /**
+     * Replaces the content with the one of a snapshot taken by this context
+     * @param snapshot The snapshot to restore
+     */
+    void restore(Snapshot snapshot);
+}
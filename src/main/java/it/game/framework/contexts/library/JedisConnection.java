@@ -0,0 +1,61 @@
+package it.game.framework.contexts.library;
+
+import it.game.framework.contexts.interfaces.RedisConnection;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+
+import java.util.List;
+
+/**
+ * The RedisConnection implemented with a Jedis pool, every call borrows a connection
+ * from the pool so the instance can be shared by many RedisContexts
+ */
+public class JedisConnection implements RedisConnection {
+
+    private final JedisPool pool;
+
+    public JedisConnection(JedisPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public byte[] hget(byte[] key, byte[] field) {
+        try (Jedis jedis = pool.getResource()) {
+            return jedis.hget(key, field);
+        }
+    }
+
+    @Override
+    public List<byte[]> hmget(byte[] key, byte[]... fields) {
+        try (Jedis jedis = pool.getResource()) {
+            return jedis.hmget(key, fields);
+        }
+    }
+
+    @Override
+    public boolean hexists(byte[] key, byte[] field) {
+        try (Jedis jedis = pool.getResource()) {
+            return jedis.hexists(key, field);
+        }
+    }
+
+    @Override
+    public void write(byte[] key, List<byte[]> fields, List<byte[]> values) {
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < fields.size(); i++) {
+                if (values.get(i) == null) pipeline.hdel(key, fields.get(i));
+                else pipeline.hset(key, fields.get(i), values.get(i));
+            }
+            pipeline.sync();
+        }
+    }
+
+    @Override
+    public void delete(byte[] key) {
+        try (Jedis jedis = pool.getResource()) {
+            jedis.del(key);
+        }
+    }
+}
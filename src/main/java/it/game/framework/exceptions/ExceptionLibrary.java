@@ -58,7 +58,9 @@ public class ExceptionLibrary implements Serializable {
         e.add(new Entry("CONNECTION_STATE_IS_NOT_IN_MACHINE_STATES", 9103, "States in connection are not contained in the machine's states list"));
         e.add(new Entry("DIRECT_CONNECTION_IS_NOT_LAST", 9104, "A connection that returns always TRUE is not last, connections following this one are not reachable"));
         e.add(new Entry("DIRECT_CONNECTION_IN_GLOBALS", 9105, "A connection that returns always TRUE is in the global connections, connections following this one are not reachable"));
-        e.add(new Entry("CLASS_NAME_IS_A_KEYWORD", 9106, "The class name is a keyword between GOTO, CATCH and EXIT, this is prohibited please change it"));
+        e.add(new Entry("CLASS_NAME_IS_A_KEYWORD", 9106, "The class name is a keyword between GOTO, CATCH, AFTER and EXIT, this is prohibited please change it"));
+        e.add(new Entry("INVALID_TIMED_CONNECTION", 9107, "The delay of an AFTER connection is missing or malformed, the expected form is AFTER:<amount>[ms|s|m|h]"));
+        e.add(new Entry("LAYOUT_SLOT_CONFLICT", 9108, "A key of the saved SlotLayout has a different slot in the layout of the machine, load the data into a new StateMachine"));
 
         //Execution Exceptions
         e.add(new Entry("EXECUTION_EXCEPTION", 9200, "Machine execution exception"));
@@ -66,10 +68,20 @@ public class ExceptionLibrary implements Serializable {
         e.add(new Entry("CONTEXT_IS_NULL", 9202, "The context reference inside the executor is null"));
         e.add(new Entry("STARTING_STATE_IS_NULL", 9203, "Machine's starting state is null"));
         e.add(new Entry("GAMEEXECUTOR_IS_NULL", 9204, "The GameExecutor instance inside the ThreadedExecutor is null"));
+        e.add(new Entry("ASYNC_STATE_EXCEPTION", 9205, "The asynchronous action of the GameState completed with an exception"));
+        e.add(new Entry("PARALLEL_BRANCH_EXCEPTION", 9206, "A branch of the ParallelGameState ended with an exception"));
+        e.add(new Entry("SESSION_NOT_REGISTERED", 9207, "No session is registered with the key in the scheduler"));
+        e.add(new Entry("SESSION_ALREADY_REGISTERED", 9208, "A session with the same key is already registered in the scheduler"));
+        e.add(new Entry("STEP_LIMIT_EXCEEDED", 9209, "The execution exceeded the maximum number of steps"));
+        e.add(new Entry("WALL_TIME_LIMIT_EXCEEDED", 9210, "The execution exceeded the maximum wall time"));
+        e.add(new Entry("CPU_TIME_LIMIT_EXCEEDED", 9211, "The execution exceeded the maximum CPU time"));
+        e.add(new Entry("EXECUTION_ALREADY_RUNNING", 9212, "The executor is already running an execution, wait for it before starting another one"));
+        e.add(new Entry("INVALID_EXECUTOR_CONFIGURATION", 9213, "A parameter of the executor has an invalid value"));
 
         //GameContext Exceptions
         e.add(new Entry("CONTEXT_EXCEPTION", 9300, "GameContext exception"));
         e.add(new Entry("CONTEXT_CASTING_EXCEPTION", 9301, "Object cannot be casted in the specified class"));
+        e.add(new Entry("CONTEXT_SERIALIZATION_EXCEPTION", 9302, "The value cannot be serialized or deserialized by the GameContext"));
 
         return e;
     }
@@ -0,0 +1,204 @@
+package it.game.framework.executors;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.states.AsyncGameState;
+import it.game.framework.states.GameState;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This executor executes the AsyncGameStates without blocking.
+ * When the stage returned by an AsyncGameState is pending the machine is suspended
+ * and the calling thread is released, when the stage completes the executor selects
+ * the next GameState and resumes the execution on the thread that completed the stage
+ * or, if set, on the resume executor.
+ * <br>The other GameStates are executed synchronously like in the GameExecutor,
+ * so thousands of I/O bound machines can share a handful of threads.
+ * <br>An executor runs one execution at a time, a submit while the machine is running or suspended
+ * returns a future failed with EXECUTION_ALREADY_RUNNING. An exception thrown by executeAsync
+ * before returning its stage is routed like the exceptions of the synchronous GameStates,
+ * the exceptions that complete a stage are converted by {@link AsyncGameState#wrap(Throwable)}.
+ */
+@Slf4j
+@Getter
+@Setter
+@NoArgsConstructor
+@Component
+public class AsyncExecutor extends GameExecutor {
+
+    /**
+     * The executor where the machine resumes after a suspension,
+     * if null the machine resumes on the thread that completed the stage
+     */
+    private Executor resumeExecutor;
+    @Setter(AccessLevel.NONE)
+    private volatile CompletableFuture<GameContext> future;
+    @Setter(AccessLevel.NONE)
+    private final AtomicLong suspensions = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public AsyncExecutor(Executor resumeExecutor) {
+        this.resumeExecutor = resumeExecutor;
+    }
+
+    /**
+     * Starts the execution of the machine without waiting for it,
+     * to wait for the result use {@link #submit()}
+     */
+    @Override
+    public void execute() {
+        submit();
+    }
+
+    /**
+     * Starts the execution of the machine on the calling thread, the call returns
+     * when the machine ends or when it is suspended by a pending AsyncGameState
+     * @return The future that completes with the GameContext at the end of the execution
+     * or fails with the exception that escaped the execution, if an execution is already running
+     * the future fails with EXECUTION_ALREADY_RUNNING
+     */
+    public CompletableFuture<GameContext> submit() {
+        CompletableFuture<GameContext> f = new CompletableFuture<>();
+        if (!running.compareAndSet(false, true)) {
+            f.completeExceptionally(new GameException(ExceptionLibrary.get("EXECUTION_ALREADY_RUNNING")));
+            return f;
+        }
+        future = f;
+        try {
+            log.info("Executing state machine");
+            begin();
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).beforeLoop(context);
+        } catch (Exception e) {
+            fail(e);
+            return f;
+        }
+        drive();
+        return f;
+    }
+
+    /**
+     * Executes the GameStates until the machine ends or an AsyncGameState is pending,
+     * the stages that are already completed are handled inline without suspending the machine.
+     * The AsyncGameStates count for the limits of the execution like the other GameStates,
+     * only the CPU time spent starting their stage is measured
+     */
+    private void drive() {
+        try {
+            while (currentGameState != null) {
+                GameState state = currentGameState;
+                if (!(state instanceof AsyncGameState)) {
+                    process();
+                    continue;
+                }
+                GameException breach = countStep(state);
+                CompletableFuture<?> stage;
+                try {
+                    if (breach != null) throw breach;
+                    enterState(state);
+                    if (measuresCpu()) {
+                        long cpu = ExecutionBudget.cpuTime();
+                        try {
+                            stage = ((AsyncGameState) state).executeAsync(context).toCompletableFuture();
+                        } finally {
+                            addCpuTime(cpu);
+                        }
+                    } else {
+                        stage = ((AsyncGameState) state).executeAsync(context).toCompletableFuture();
+                    }
+                } catch (Exception e) {
+                    complete(state, e);
+                    continue;
+                }
+                if (!stage.isDone()) {
+                    suspensions.incrementAndGet();
+                    stage.whenComplete((v, t) -> resume(state, t));
+                    return;
+                }
+                complete(state, stage.isCompletedExceptionally() ? AsyncGameState.wrap(exceptionOf(stage)) : null);
+            }
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).afterLoop(context);
+        } catch (Exception e) {
+            fail(e);
+            return;
+        }
+        log.info("Ending state machine execution");
+        end();
+        running.set(false);
+        future.complete(context);
+    }
+
+    /**
+     * Resumes the machine after the completion of the stage of an AsyncGameState
+     * @param state The suspended AsyncGameState
+     * @param t The exception that completed the stage or null
+     */
+    private void resume(GameState state, Throwable t) {
+        Runnable resume = () -> {
+            try {
+                complete(state, t == null ? null : AsyncGameState.wrap(t));
+            } catch (Exception e) {
+                fail(e);
+                return;
+            }
+            drive();
+        };
+        if (resumeExecutor == null) resume.run();
+        else resumeExecutor.execute(resume);
+    }
+
+    /**
+     * Completes the execution of an AsyncGameState and selects the next GameState
+     * @param state The executed AsyncGameState
+     * @param caught The exception thrown by executeAsync or the one that completed the stage, or null
+     * @throws Exception in case of exceptions thrown by the expressions of the connections
+     */
+    private void complete(GameState state, Exception caught) throws Exception {
+        if (caught == null) exitState(state);
+        else stateFailed(state, caught);
+        advance(state, caught);
+    }
+
+    /**
+     * Interrupts the execution of the machine completing the future with the exception
+     * @param e The exception that escaped the execution
+     */
+    private void fail(Exception e) {
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).caughtException(currentGameState, e, context);
+        log.error(GameException.format(e, currentGameState == null ? getClass().getSimpleName() : currentGameState.getName()));
+        log.info("Ending state machine execution");
+        end();
+        running.set(false);
+        future.completeExceptionally(e);
+    }
+
+    private static Throwable exceptionOf(CompletableFuture<?> stage) {
+        try {
+            stage.join();
+            return null;
+        } catch (Throwable t) {
+            return t;
+        }
+    }
+
+    /**
+     * Returns the number of times the machine has been suspended waiting for an AsyncGameState
+     * @return The number of suspensions
+     */
+    public long getSuspensions() {
+        return suspensions.get();
+    }
+
+}
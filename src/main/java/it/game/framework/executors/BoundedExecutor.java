@@ -0,0 +1,260 @@
+package it.game.framework.executors;
+
+import it.game.framework.exceptions.GameException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of threads with a bounded admission queue, used to run the ThreadedExecutors
+ * under load spikes without queueing an unbounded number of executions.
+ * <br>When the queue is full the RejectionPolicy decides what happens to the new task:
+ * the caller waits for a free slot, the task is rejected or the oldest queued task is
+ * shed to make room for it. The shed executions of the ThreadedExecutors are cancelled so their futures
+ * complete instead of waiting forever.
+ */
+@Slf4j
+public class BoundedExecutor extends AbstractExecutorService {
+
+    /**
+     * What happens to a task submitted when the queue is full
+     */
+    public enum RejectionPolicy {
+        /**
+         * The caller waits until there is room in the queue
+         */
+        BLOCK,
+        /**
+         * The task is rejected with a RejectedExecutionException
+         */
+        FAIL_FAST,
+        /**
+         * The oldest task in the queue is removed and cancelled to make room for the new one
+         */
+        SHED_OLDEST
+    }
+
+    /**
+     * A task with the time it entered the queue
+     */
+    private static final class Queued {
+        private final Runnable task;
+        private final long enqueuedNanos;
+
+        private Queued(Runnable task) {
+            this.task = task;
+            this.enqueuedNanos = System.nanoTime();
+        }
+    }
+
+    @Getter
+    private final RejectionPolicy policy;
+    private final ArrayBlockingQueue<Queued> queue;
+    private final Thread[] workers;
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile boolean shutdown;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates and starts the pool
+     * @param threads The number of worker threads
+     * @param capacity The capacity of the admission queue
+     * @param policy The policy applied when the queue is full
+     */
+    public BoundedExecutor(int threads, int capacity, RejectionPolicy policy) {
+        this.policy = policy;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::work, "bounded-executor-" + (i + 1));
+            workers[i].setDaemon(true);
+            running.incrementAndGet();
+            workers[i].start();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) throw new RejectedExecutionException("The executor is shut down");
+        Queued queued = new Queued(task);
+        switch (policy) {
+            case BLOCK:
+                try {
+                    queue.put(queued);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rejected.increment();
+                    throw new RejectedExecutionException("Interrupted while waiting for the queue", e);
+                }
+                break;
+            case FAIL_FAST:
+                if (!queue.offer(queued)) {
+                    rejected.increment();
+                    throw new RejectedExecutionException("The queue is full");
+                }
+                break;
+            case SHED_OLDEST:
+                while (!queue.offer(queued)) {
+                    Queued oldest = queue.poll();
+                    if (oldest != null) shed(oldest.task);
+                }
+                break;
+        }
+        submitted.increment();
+        maxQueueDepth.accumulate(queue.size());
+    }
+
+    /**
+     * Cancels a task removed from the queue
+     */
+    private void shed(Runnable task) {
+        shed.increment();
+        if (task instanceof ThreadedExecutor.Execution) ((ThreadedExecutor.Execution) task).cancel();
+        else if (task instanceof Future) ((Future<?>) task).cancel(false);
+        if (log.isDebugEnabled()) log.debug("Task shed from the queue: {}", task);
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                Queued queued = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (queued == null) {
+                    if (shutdown) break;
+                    continue;
+                }
+                long wait = System.nanoTime() - queued.enqueuedNanos;
+                started.increment();
+                totalWaitNanos.add(wait);
+                maxWaitNanos.accumulate(wait);
+                try {
+                    queued.task.run();
+                } catch (RuntimeException e) {
+                    log.error(GameException.format(e, Thread.currentThread().getName()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (running.decrementAndGet() == 0) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting tasks, the queued tasks are still executed
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * Stops accepting tasks and interrupts the workers
+     * @return The tasks that were still queued
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Queued> drained = new ArrayList<>();
+        queue.drainTo(drained);
+        List<Runnable> tasks = new ArrayList<>(drained.size());
+        for (Queued q : drained) tasks.add(q.task);
+        for (Thread worker : workers) worker.interrupt();
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && running.get() == 0;
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) return false;
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of tasks waiting in the queue
+     * @return The depth of the queue
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+
+    /**
+     * Returns the average time the tasks waited in the queue before starting
+     * @return The average wait in nanoseconds
+     */
+    public long getAverageWaitNanos() {
+        long n = started.sum();
+        return n == 0 ? 0 : totalWaitNanos.sum() / n;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * Resets the statistics of the executor
+     */
+    public void resetStatistics() {
+        submitted.reset();
+        rejected.reset();
+        shed.reset();
+        started.reset();
+        totalWaitNanos.reset();
+        maxWaitNanos.reset();
+        maxQueueDepth.reset();
+    }
+
+}
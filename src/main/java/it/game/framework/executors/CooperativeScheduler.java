@@ -0,0 +1,225 @@
+package it.game.framework.executors;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.timers.Timeout;
+import it.game.framework.timers.TimingWheel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This scheduler interleaves many SteppedExecutors on a small pool of threads.
+ * <br>The machines wait in a single FIFO run queue, a worker takes the first machine,
+ * executes up to stepsPerSlice steps and puts it back at the end of the queue,
+ * so every machine gets the same slice in turn: a machine waits at most one slice of each
+ * other active machine, however long the others run. The machines that reach
+ * {@link SteppedExecutor.Steps#END} are ended and removed automatically.
+ * <br>A GameState is never interrupted, so a slice lasts at least one GameState:
+ * the long GameStates should be split in shorter ones to keep the slices short.
+ * <br>A machine that waits for the TimedStateConnections of its GameState leaves the run queue
+ * and is put back by the shared TimingWheel at the first deadline, so it doesn't use the workers while waiting.
+ */
+@Slf4j
+public class CooperativeScheduler implements AutoCloseable {
+
+    /**
+     * A machine scheduled with the future of its execution
+     */
+    private static final class Task {
+        private final SteppedExecutor executor;
+        private final CompletableFuture<GameContext> future;
+        private volatile Timeout timeout;
+
+        private Task(SteppedExecutor executor, CompletableFuture<GameContext> future) {
+            this.executor = executor;
+            this.future = future;
+        }
+    }
+
+    @Getter
+    private final int stepsPerSlice;
+    private final LinkedBlockingQueue<Task> runQueue = new LinkedBlockingQueue<>();
+    private final Set<Task> sleeping = ConcurrentHashMap.newKeySet();
+    private final Thread[] workers;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder slices = new LongAdder();
+    private final LongAdder steps = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates and starts the scheduler
+     * @param threads The number of worker threads
+     * @param stepsPerSlice The maximum number of steps executed for a machine before passing to the next one
+     */
+    public CooperativeScheduler(int threads, int stepsPerSlice) {
+        if (threads < 1 || stepsPerSlice < 1) throw new IllegalArgumentException("Threads and steps per slice must be positive");
+        this.stepsPerSlice = stepsPerSlice;
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::work, "cooperative-scheduler-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Schedules a machine, the executor must not be executed by others until the future completes
+     * @param executor The SteppedExecutor of the machine
+     * @return The future that completes with the GameContext when the machine ends
+     * or fails with the exception that interrupted the machine
+     */
+    public CompletableFuture<GameContext> submit(SteppedExecutor executor) {
+        CompletableFuture<GameContext> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new RejectedExecutionException("The scheduler is closed"));
+            return future;
+        }
+        active.incrementAndGet();
+        runQueue.offer(new Task(executor, future));
+        return future;
+    }
+
+    private void work() {
+        try {
+            while (!closed) {
+                Task task = runQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (task == null) continue;
+                if (runSlice(task)) runQueue.offer(task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executes a slice of the machine
+     * @return True if the machine has to be scheduled again, false if it has been removed
+     */
+    private boolean runSlice(Task task) {
+        if (task.future.isDone()) {
+            active.decrementAndGet();
+            return false;
+        }
+        SteppedExecutor executor = task.executor;
+        slices.increment();
+        int count = 0;
+        while (count < stepsPerSlice && executor.hasNext()) {
+            executor.execute();
+            count++;
+            if (executor.getLastException() != null) {
+                steps.add(count);
+                failed.increment();
+                active.decrementAndGet();
+                task.future.completeExceptionally(executor.getLastException());
+                return false;
+            }
+            if (executor.isWaitingTimer()) {
+                steps.add(count);
+                sleep(task);
+                return false;
+            }
+        }
+        steps.add(count);
+        if (executor.hasNext()) return true;
+        executor.execute();
+        completed.increment();
+        active.decrementAndGet();
+        task.future.complete(executor.getContext());
+        return false;
+    }
+
+    /**
+     * Removes a machine waiting for its TimedStateConnections from the run queue
+     * until its first deadline
+     */
+    private void sleep(Task task) {
+        sleeping.add(task);
+        task.timeout = TimingWheel.shared().scheduleAt(() -> wake(task), task.executor.getTimerDeadline());
+    }
+
+    /**
+     * Puts a sleeping machine back into the run queue, if the scheduler
+     * has been closed in the meantime the machine is cancelled
+     */
+    private void wake(Task task) {
+        if (!sleeping.remove(task)) return;
+        runQueue.offer(task);
+        if (closed && runQueue.remove(task)) cancel(task);
+    }
+
+    private static void cancel(Task task) {
+        task.future.completeExceptionally(new CancellationException("The scheduler is closed"));
+    }
+
+    /**
+     * Returns the number of machines waiting for a deadline outside the run queue
+     * @return The number of sleeping machines
+     */
+    public int getSleeping() {
+        return sleeping.size();
+    }
+
+    /**
+     * Returns the number of machines scheduled and not yet ended
+     * @return The number of active machines
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getSlices() {
+        return slices.sum();
+    }
+
+    public long getSteps() {
+        return steps.sum();
+    }
+
+    /**
+     * Stops the workers, the machines still scheduled or sleeping are cancelled
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        List<Task> pending = new ArrayList<>();
+        for (Task task : sleeping) {
+            if (!sleeping.remove(task)) continue;
+            if (task.timeout != null) task.timeout.cancel();
+            pending.add(task);
+        }
+        runQueue.drainTo(pending);
+        for (Task task : pending) cancel(task);
+        active.set(0);
+        if (!pending.isEmpty()) log.info("Cancelled {} machines", pending.size());
+    }
+
+}
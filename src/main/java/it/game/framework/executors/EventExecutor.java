@@ -0,0 +1,283 @@
+package it.game.framework.executors;
+
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.events.EventQueue;
+import it.game.framework.executors.events.GameEvent;
+import it.game.framework.executors.library.TimerCallback;
+import it.game.framework.stateconnections.ExceptionStateConnection;
+import it.game.framework.stateconnections.GameStateConnection;
+import it.game.framework.statemachines.CompiledStateMachine;
+import it.game.framework.states.GameState;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This executor advances the machine only when an input event arrives.
+ * <br>Every session owns a bounded lock-free queue of GameEvents, the events
+ * can be offered by any thread. When no connection of the current GameState
+ * returns true the executor doesn't end the machine: it parks the thread
+ * until new events arrive, drains them in batches applying them to the GameContext
+ * and re-evaluates the connections. The machine ends on a GameState without
+ * connections of its own, when it is stopped or when the thread is interrupted.
+ * <br>While the machine waits it doesn't use CPU and an event is handled as soon as it is offered.
+ * The TimedStateConnections of the machine are armed on the shared TimingWheel,
+ * when their deadline expires the machine is woken like for an event.
+ */
+@Slf4j
+@Getter
+@Setter
+@NoArgsConstructor
+@Component
+public class EventExecutor extends GameExecutor {
+
+    @Value("${game.framework.executor.event_queue_capacity}")
+    private int queueCapacity = 1024;
+    @Value("${game.framework.executor.event_batch_size}")
+    private int batchSize = 64;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile EventQueue<GameEvent> queue;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Thread waiter;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile boolean signalled;
+    @Setter(AccessLevel.NONE)
+    private volatile boolean stopped;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicLong eventsProcessed = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicLong eventsRejected = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicLong waits = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+
+    public EventExecutor(int queueCapacity, int batchSize) {
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the queue of the session, the queue is created at the first use
+     * with the configured capacity
+     * @return The queue of the events
+     */
+    public EventQueue<GameEvent> getQueue() {
+        EventQueue<GameEvent> q = queue;
+        if (q == null) {
+            synchronized (this) {
+                q = queue;
+                if (q == null) queue = q = new EventQueue<>(queueCapacity);
+            }
+        }
+        return q;
+    }
+
+    /**
+     * Adds an event to the queue of the session and wakes the machine, can be called by any thread
+     * @param event The event
+     * @return True if the event has been queued, false if the queue is full
+     */
+    public boolean offer(GameEvent event) {
+        EventQueue<GameEvent> q = getQueue();
+        if (!q.offer(event)) {
+            eventsRejected.incrementAndGet();
+            return false;
+        }
+        maxQueueDepth.accumulate(q.size());
+        LockSupport.unpark(waiter);
+        return true;
+    }
+
+    /**
+     * Wakes the machine to re-evaluate the connections of the current GameState
+     * without an event, e.g. when the GameContext has been modified by another thread
+     */
+    public void wake() {
+        signalled = true;
+        LockSupport.unpark(waiter);
+    }
+
+    /**
+     * Stops the machine, if it is waiting for events it ends
+     * without executing other GameStates
+     */
+    public void stop() {
+        stopped = true;
+        wake();
+    }
+
+    /**
+     * Resets the executor discarding the events still in the queue
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        getQueue().drain(event -> { }, Integer.MAX_VALUE);
+        stopped = false;
+        signalled = false;
+    }
+
+    @Override
+    protected void begin() throws GameException {
+        stopped = false;
+        super.begin();
+    }
+
+    /**
+     * Creates the timers of the TimedStateConnections, every deadline
+     * scheduled on the shared TimingWheel wakes the machine
+     *
+     * @return The TimerCallback of the execution
+     */
+    @Override
+    protected TimerCallback createTimers() {
+        return new TimerCallback(stateMachine, this::wake);
+    }
+
+    /**
+     * Selects the next GameState applying the pending events first, when no connection
+     * returns true and the GameState has connections of its own the thread waits for
+     * new events and re-evaluates the connections
+     *
+     * @param state  The executed GameState
+     * @param caught The exception thrown by the GameState or null
+     * @throws Exception in case of exceptions thrown by the events or by the expressions of the connections,
+     *                   InterruptedException if the thread is interrupted while waiting
+     */
+    @Override
+    protected void advance(GameState state, Exception caught) throws Exception {
+        if (caught != null) {
+            super.advance(state, caught);
+            return;
+        }
+        GameState nextGameState = null;
+        while (!stopped) {
+            signalled = false;
+            drainEvents();
+            nextGameState = getNextGameState();
+            if (nextGameState != null || !hasOwnConnections(state)) break;
+            awaitEvents();
+        }
+        if (timers != null) timers.nextSelectedGameState(state, nextGameState, context);
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).nextSelectedGameState(state, nextGameState, context);
+        currentGameState = nextGameState;
+    }
+
+    /**
+     * Applies up to batchSize pending events to the GameContext
+     *
+     * @return The number of applied events
+     * @throws Exception in case of exceptions thrown by the events
+     */
+    protected int drainEvents() throws Exception {
+        EventQueue<GameEvent> q = getQueue();
+        int count = 0;
+        GameEvent event;
+        while (count < batchSize && (event = q.poll()) != null) {
+            event.apply(context);
+            count++;
+        }
+        if (count > 0) eventsProcessed.addAndGet(count);
+        return count;
+    }
+
+    /**
+     * Parks the thread until an event is offered or the machine is woken
+     *
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private void awaitEvents() throws InterruptedException {
+        EventQueue<GameEvent> q = getQueue();
+        waits.incrementAndGet();
+        waiter = Thread.currentThread();
+        try {
+            while (q.isEmpty() && !signalled && !stopped) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) throw new InterruptedException("Event loop interrupted");
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * Checks if the GameState has connections of its own, the GameStates
+     * with only global or exception connections end the machine instead of waiting
+     */
+    private boolean hasOwnConnections(GameState state) {
+        CompiledStateMachine.Transitions transitions = stateMachine.compile().of(state);
+        List<GameStateConnection> connections = transitions.getConnectionList();
+        for (int i = connections.size() - transitions.getOwnConnections(); i < connections.size(); i++) {
+            if (!(connections.get(i) instanceof ExceptionStateConnection)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of events waiting in the queue
+     * @return The depth of the queue
+     */
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    /**
+     * Returns the highest depth of the queue observed after an offer
+     * @return The maximum depth of the queue
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Returns the number of events applied to the GameContext
+     * @return The number of processed events
+     */
+    public long getEventsProcessed() {
+        return eventsProcessed.get();
+    }
+
+    /**
+     * Returns the number of events rejected because the queue was full
+     * @return The number of rejected events
+     */
+    public long getEventsRejected() {
+        return eventsRejected.get();
+    }
+
+    /**
+     * Returns the number of times the machine waited for events
+     * @return The number of waits
+     */
+    public long getWaits() {
+        return waits.get();
+    }
+
+    /**
+     * Resets the metrics of the queue
+     */
+    public void resetStatistics() {
+        eventsProcessed.set(0);
+        eventsRejected.set(0);
+        waits.set(0);
+        maxQueueDepth.reset();
+    }
+
+}
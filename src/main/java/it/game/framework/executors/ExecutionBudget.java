@@ -0,0 +1,129 @@
+package it.game.framework.executors;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.interfaces.ExecutionLimit;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The counters of an execution bounded by the ExecutionLimits, used by the GameExecutor
+ * for its execution and by the SessionExecutor for every session.
+ * <br>The first breach of a limit is returned to be handled by the exception connections
+ * of the GameState and restarts the budget, the following breach interrupts the execution.
+ * A budget belongs to a single execution, it is not thread safe.
+ */
+@Slf4j
+final class ExecutionBudget {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+
+    private long steps;
+    private long startNanos;
+    private long cpuNanos;
+    private boolean breached;
+
+    /**
+     * Starts the budget of a new execution
+     */
+    void start() {
+        restart();
+        breached = false;
+    }
+
+    private void restart() {
+        steps = 0;
+        startNanos = System.nanoTime();
+        cpuNanos = 0;
+    }
+
+    /**
+     * Checks if any limit is set
+     * @param maxSteps The maximum number of steps, 0 or less means no limit
+     * @param maxWallTimeMillis The maximum wall time, 0 or less means no limit
+     * @param maxCpuTimeMillis The maximum CPU time, 0 or less means no limit
+     * @return True if at least one of the limits is set
+     */
+    static boolean hasLimits(long maxSteps, long maxWallTimeMillis, long maxCpuTimeMillis) {
+        return maxSteps > 0 || maxWallTimeMillis > 0 || maxCpuTimeMillis > 0;
+    }
+
+    /**
+     * Checks if the CPU time of the GameStates has to be measured
+     * @param maxCpuTimeMillis The CPU time limit, 0 or less means no limit
+     * @return True if the limit is set and the JVM measures the CPU time of the threads
+     */
+    static boolean measuresCpu(long maxCpuTimeMillis) {
+        return maxCpuTimeMillis > 0 && CPU_TIME_SUPPORTED;
+    }
+
+    /**
+     * Returns the CPU time of the current thread
+     * @return The CPU time in nanoseconds
+     */
+    static long cpuTime() {
+        return THREADS.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Adds the CPU time spent executing a GameState
+     * @param start The CPU time of the thread before the GameState, from {@link #cpuTime()}
+     */
+    void addCpu(long start) {
+        cpuNanos += THREADS.getCurrentThreadCpuTime() - start;
+    }
+
+    /**
+     * Executes a GameState, its CPU time is added to the budget only if the CPU time limit is measured
+     * @param state The GameState to execute
+     * @param context The GameContext of the execution
+     * @param maxCpuTimeMillis The maximum CPU time, 0 or less means no limit
+     * @throws Exception The exceptions thrown by the GameState
+     */
+    void execute(GameState state, GameContext context, long maxCpuTimeMillis) throws Exception {
+        if (!measuresCpu(maxCpuTimeMillis)) {
+            state.execute(context);
+            return;
+        }
+        long cpu = cpuTime();
+        try {
+            state.execute(context);
+        } finally {
+            addCpu(cpu);
+        }
+    }
+
+    /**
+     * Counts the step and checks the limits
+     * @param maxSteps The maximum number of steps, 0 or less means no limit
+     * @param maxWallTimeMillis The maximum wall time, 0 or less means no limit
+     * @param maxCpuTimeMillis The maximum CPU time, 0 or less means no limit
+     * @param machine The executed machine, the breaches are recorded into its statistics
+     * @param state The GameState that is going to be executed
+     * @return The GameException of the breached limit or null if no limit is breached
+     * @throws GameException If a limit is breached for the second time
+     */
+    GameException check(long maxSteps, long maxWallTimeMillis, long maxCpuTimeMillis, StateMachine machine, GameState state) throws GameException {
+        steps++;
+        ExecutionLimit limit = null;
+        if (maxSteps > 0 && steps > maxSteps) limit = ExecutionLimit.STEPS;
+        else if (maxWallTimeMillis > 0 && System.nanoTime() - startNanos > TimeUnit.MILLISECONDS.toNanos(maxWallTimeMillis)) limit = ExecutionLimit.WALL_TIME;
+        else if (maxCpuTimeMillis > 0 && cpuNanos > TimeUnit.MILLISECONDS.toNanos(maxCpuTimeMillis)) limit = ExecutionLimit.CPU_TIME;
+        if (limit == null) return null;
+        machine.recordLimitHit(limit);
+        GameException e = new GameException(ExceptionLibrary.get(limit.getExceptionName()), state.getName());
+        if (breached) throw e;
+        breached = true;
+        restart();
+        log.warn("Execution limit {} exceeded in GameState {}", limit, state.getName());
+        return e;
+    }
+
+}
@@ -0,0 +1,211 @@
+package it.game.framework.executors;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.executors.interfaces.IGameExecutor;
+import it.game.framework.statemachines.StateMachine;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A pool of executors with their GameContexts, used when many short sessions
+ * are started and ended (e.g. one session for every match).
+ * <br>The pool hands out PooledSessions, a pair of IGameExecutor and GameContext bound
+ * to the StateMachine of the pool. When the session is released the executor is reset
+ * and the context is cleaned up, then the pair is kept for the next session instead
+ * of being thrown away, so the executors, the contexts and their internal tables
+ * are created only when the pool is empty.
+ */
+@Slf4j
+public class ExecutorPool {
+
+    /**
+     * An executor and its GameContext borrowed from the pool,
+     * the session is released back to the pool when the execution started by {@link #execute()} ends
+     * or when it is closed.
+     * <br>The ThreadedExecutor and the AsyncExecutor return from execute while the machine is still running,
+     * their sessions are released when the future of the execution completes and a close
+     * during the execution is deferred to its end, so the pair is never reset under a live machine.
+     * <br>Every acquire returns a new session wrapping the pooled pair, so a session kept
+     * after its release cannot release the pair again while another caller owns it
+     */
+    public static class PooledSession implements AutoCloseable {
+
+        private final ExecutorPool pool;
+        @Getter
+        private final IGameExecutor executor;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile CompletableFuture<GameContext> running;
+
+        private PooledSession(ExecutorPool pool, IGameExecutor executor) {
+            this.pool = pool;
+            this.executor = executor;
+        }
+
+        public GameContext getContext() {
+            return executor.getContext();
+        }
+
+        /**
+         * Executes the machine and releases the session to the pool when the execution ends,
+         * the session must not be used after this call
+         */
+        public void execute() {
+            CompletableFuture<GameContext> f = submit(executor);
+            if (f == null) {
+                try {
+                    executor.execute();
+                } finally {
+                    close();
+                }
+                return;
+            }
+            running = f;
+            f.whenComplete((c, t) -> release());
+        }
+
+        /**
+         * Starts the execution of the executors that don't wait for the machine
+         * @return The future of the execution or null if the executor blocks until the machine ends
+         */
+        private static CompletableFuture<GameContext> submit(IGameExecutor executor) {
+            if (executor instanceof ThreadedExecutor) return ((ThreadedExecutor) executor).submit();
+            if (executor instanceof AsyncExecutor) return ((AsyncExecutor) executor).submit();
+            return null;
+        }
+
+        public boolean isReleased() {
+            return released.get();
+        }
+
+        /**
+         * Releases the session to the pool, the following calls do nothing.
+         * If the execution started by {@link #execute()} is still running the session
+         * is released when it ends
+         */
+        @Override
+        public void close() {
+            CompletableFuture<GameContext> f = running;
+            if (f != null && !f.isDone()) return;
+            release();
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) pool.release(this);
+        }
+    }
+
+    @Getter
+    private final StateMachine stateMachine;
+    private final Supplier<? extends IGameExecutor> executorFactory;
+    private final Supplier<? extends GameContext> contextFactory;
+    private final ArrayBlockingQueue<IGameExecutor> idle;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+
+    /**
+     * Creates a pool of sessions
+     * @param stateMachine The StateMachine executed by the sessions
+     * @param executorFactory Creates a new executor when the pool is empty
+     * @param contextFactory Creates a new GameContext when the pool is empty
+     * @param maxIdle The maximum number of idle sessions kept by the pool, the others are discarded
+     */
+    public ExecutorPool(StateMachine stateMachine, Supplier<? extends IGameExecutor> executorFactory, Supplier<? extends GameContext> contextFactory, int maxIdle) {
+        this.stateMachine = stateMachine;
+        this.executorFactory = executorFactory;
+        this.contextFactory = contextFactory;
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+        stateMachine.compile();
+    }
+
+    /**
+     * Takes an idle session from the pool or creates a new one if the pool is empty,
+     * the executor is ready to start the machine and the context is empty
+     * @return The session
+     */
+    public PooledSession acquire() {
+        IGameExecutor executor = idle.poll();
+        if (executor != null) {
+            hits.increment();
+            return new PooledSession(this, executor);
+        }
+        misses.increment();
+        executor = executorFactory.get();
+        executor.setStateMachine(stateMachine);
+        executor.setContext(contextFactory.get());
+        return new PooledSession(this, executor);
+    }
+
+    /**
+     * Resets the executor and the context of the session and keeps them for the next acquire,
+     * if the pool is full they are discarded
+     */
+    private void release(PooledSession session) {
+        releases.increment();
+        IGameExecutor executor = session.executor;
+        try {
+            executor.reset();
+            executor.getContext().cleanup();
+        } catch (RuntimeException e) {
+            log.warn("Session discarded, reset failed: {}", e.getMessage());
+            discards.increment();
+            return;
+        }
+        if (!idle.offer(executor)) discards.increment();
+    }
+
+    /**
+     * Removes all the idle sessions
+     */
+    public void clear() {
+        idle.clear();
+    }
+
+    public int getIdle() {
+        return idle.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getReleases() {
+        return releases.sum();
+    }
+
+    public long getDiscards() {
+        return discards.sum();
+    }
+
+    /**
+     * Returns the ratio between the sessions taken from the pool and all the acquired sessions
+     * @return The hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Resets the statistics of the pool
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        releases.reset();
+        discards.reset();
+    }
+
+}
@@ -1,14 +1,17 @@
 package it.game.framework.executors;
 
 import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.interfaces.Snapshottable;
 import it.game.framework.exceptions.ExceptionLibrary;
 import it.game.framework.exceptions.GameException;
 import it.game.framework.executors.interfaces.ExecutorCallback;
 import it.game.framework.executors.interfaces.IGameExecutor;
+import it.game.framework.executors.library.TimerCallback;
 import it.game.framework.stateconnections.ExceptionStateConnection;
 import it.game.framework.stateconnections.GameStateConnection;
 import it.game.framework.statemachines.StateMachine;
 import it.game.framework.states.GameState;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -19,13 +22,18 @@ import org.springframework.stereotype.Component;
 import java.util.ArrayList;
 import java.util.List;
 
-
 /**
  * The executor class iter and activate the statemachine.
  * The executor class extends GameState so it can be used as a single GameState in a statemachine.
  * It takes the first GameState of the statemachine and execute it, then
  * It chooses the first GameStateConnection that returns true end sets it
  * as currentState and starts over until there are no more GameStates
+ * <br>An execution can be bounded by a maximum number of steps, wall time and CPU time, so a machine
+ * that cycles without exit can't spin forever. The first breach throws the GameException of the limit
+ * from the current GameState, so it can be handled by an ExceptionStateConnection, and gives a new
+ * budget to the handling GameStates; a second breach interrupts the execution.
+ * <br>When no ExceptionStateConnection handles the exception of a GameState the machine ends,
+ * the exception is kept as the unhandled exception of the execution.
  */
 @Slf4j
 @Getter
@@ -41,7 +49,44 @@ public class GameExecutor implements IGameExecutor {
     protected GameState currentGameState;
     protected StateMachine stateMachine;
     protected GameContext context;
-    protected List<ExecutorCallback> callbacks;
+    protected List<ExecutorCallback> callbacks = new ArrayList<>();
+    @Value("${game.framework.executor.max_steps}")
+    private long maxSteps;
+    @Value("${game.framework.executor.max_wall_time_ms}")
+    private long maxWallTimeMillis;
+    @Value("${game.framework.executor.max_cpu_time_ms}")
+    private long maxCpuTimeMillis;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final ExecutionBudget budget = new ExecutionBudget();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Snapshottable.Snapshot entrySnapshot;
+    /**
+     * The exception of the GameState that ended the last execution because
+     * no ExceptionStateConnection handled it, null if the execution ended normally
+     */
+    @Setter(AccessLevel.NONE)
+    private volatile Exception unhandledException;
+    /**
+     * The timers of the TimedStateConnections, created by {@link #begin()}
+     * only if the machine has timed connections
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    protected TimerCallback timers;
+    /**
+     * True if the last step selected no connection and the machine stays
+     * in its GameState until one of its TimedStateConnections expires
+     */
+    @Setter(AccessLevel.NONE)
+    private boolean waitingTimer;
+    /**
+     * True if the changes of the context are cleared before every GameState,
+     * the branches of a ParallelGameState that share the context of the parent machine
+     * don't clear them, so the parent still sees the keys changed by the parallel state
+     */
+    private boolean clearingChanges = true;
 
     public GameExecutor(@Value("${game.framework.executor.global_blocking_exception}") boolean globalExecutionExceptionBlocking, @Value("${game.framework.executor.game_executor_blocking_exception}") boolean thisExecutionExceptionBlocking, GameState currentGameState, StateMachine stateMachine, GameContext context, List<ExecutorCallback> callbacks) {
         GlobalExecutionExceptionBlocking = globalExecutionExceptionBlocking;
@@ -64,20 +109,44 @@ public class GameExecutor implements IGameExecutor {
      */
     @Override
     public void execute() {
+        executeLoop();
+    }
+
+    /**
+     * Runs the three stages of the execution and returns the exception
+     * that interrupted the execution, if any. This method is used by the
+     * executors that have to report the outcome of the execution to the caller.
+     *
+     * @return The exception that escaped the main loop or null if the machine ended normally
+     */
+    protected Exception executeLoop() {
+        Exception caught = null;
         try {
             log.info("Executing state machine");
             begin();
-            callbacks.forEach(c -> c.beforeLoop(context));
-            while (currentGameState != null) {
-                process();
-            }
-            callbacks.forEach(c -> c.afterLoop(context));
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).beforeLoop(context);
+            loop();
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).afterLoop(context);
         } catch (Exception e) {
-            callbacks.forEach(c -> c.caughtException(currentGameState, e, context));
-            log.error(GameException.format(e, currentGameState.getName()));
+            caught = e;
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).caughtException(currentGameState, e, context);
+            log.error(GameException.format(e, currentGameState == null ? getClass().getSimpleName() : currentGameState.getName()));
         }
         log.info("Ending state machine execution");
         end();
+        return caught;
+    }
+
+    /**
+     * Loop calls process until there are no more GameStates to execute,
+     * executors that have to pace or interleave the execution override this method
+     *
+     * @throws Exception in case of unhandled exceptions throws exception
+     */
+    protected void loop() throws Exception {
+        while (currentGameState != null) {
+            process();
+        }
     }
 
     /**
@@ -85,35 +154,200 @@ public class GameExecutor implements IGameExecutor {
      * inside the GameState, checks the connections and select the next GameState.
      * In case of exception check into the ExceptionGameStateConnection if it can handle and
      * continue execution therwise throw an exception and interrupt the execution of the machine.
+     * <br>While the machine is waiting for the TimedStateConnections of its GameState the GameState
+     * is not executed again, only its connections are checked, see {@link #recheckTimers(GameState)}.
+     * <br>In steady state this method doesn't allocate: the callbacks are iterated by index,
+     * the connections come from the compiled machine and the GameState tracing is logged
+     * only at debug level.
      *
      * @throws Exception in case of unhandled exceptions throws exception
      */
     protected void process() throws Exception {
         Exception caught = null;
+        GameState state = currentGameState;
+        if (waitingTimer) {
+            recheckTimers(state);
+            return;
+        }
+        GameException breach = countStep(state);
         try {
-            log.info("Entering GameState: {}", currentGameState.getName());
-            callbacks.forEach(c -> c.beforeExecution(currentGameState, context));
-            currentGameState.execute(context);
-            callbacks.forEach(c -> c.afterExecution(currentGameState, context));
-            log.info("Exiting GameState: {}", currentGameState.getName());
+            if (breach != null) throw breach;
+            enterState(state);
+            budget.execute(state, context, maxCpuTimeMillis);
+            exitState(state);
         } catch (Exception e) {
             caught = e;
-            callbacks.forEach(c -> c.caughtException(currentGameState, e, context));
-            log.error(GameException.format(e, currentGameState.getName()));
-            if (isGlobalExecutionExceptionBlocking() || isThisExecutionExceptionBlocking()) {
-                throw new RuntimeException(e);
-            }
+            stateFailed(state, e);
         }
+        advance(state, caught);
+    }
+
+    /**
+     * Counts the step of a GameState for the limits of the execution if any limit is set,
+     * the executors that execute some GameStates outside {@link #process()} call it before each of them
+     *
+     * @param state The GameState that is going to be executed
+     * @return The GameException of the breached limit or null if no limit is breached
+     * @throws GameException If a limit is breached for the second time
+     */
+    protected GameException countStep(GameState state) throws GameException {
+        return ExecutionBudget.hasLimits(maxSteps, maxWallTimeMillis, maxCpuTimeMillis) ? checkLimits(state) : null;
+    }
+
+    /**
+     * Checks if the CPU time of the GameStates has to be measured
+     *
+     * @return True if the CPU time limit is set and the JVM measures the CPU time of the threads
+     */
+    protected boolean measuresCpu() {
+        return ExecutionBudget.measuresCpu(maxCpuTimeMillis);
+    }
+
+    /**
+     * Adds the CPU time spent by the current thread executing a GameState to the budget
+     *
+     * @param start The CPU time of the thread before the GameState, from {@link ExecutionBudget#cpuTime()}
+     */
+    protected void addCpuTime(long start) {
+        budget.addCpu(start);
+    }
+
+    /**
+     * Counts the step and checks the limits of the execution, the first breach
+     * is returned to be handled by the exception connections of the GameState and
+     * restarts the budget, the following breach interrupts the execution
+     *
+     * @param state The GameState that is going to be executed
+     * @return The GameException of the breached limit or null if no limit is breached
+     * @throws GameException If a limit is breached for the second time
+     */
+    protected GameException checkLimits(GameState state) throws GameException {
+        return budget.check(maxSteps, maxWallTimeMillis, maxCpuTimeMillis, stateMachine, state);
+    }
+
+    /**
+     * Notifies the callbacks that the GameState is going to be executed and clears the changes of the context
+     * unless {@link #clearingChanges} is disabled,
+     * if the state has rollback exception connections takes a snapshot of the Snapshottable context.
+     * The TimedStateConnections of the GameState are armed when the GameState is entered
+     *
+     * @param state The GameState that is going to be executed
+     */
+    protected void enterState(GameState state) {
+        if (log.isDebugEnabled()) log.debug("Entering GameState: {}", state.getName());
+        if (timers != null) timers.beforeExecution(state, context);
+        if (clearingChanges) context.clearChanges();
+        if (context instanceof Snapshottable && stateMachine.compile().of(state).isRollback())
+            entrySnapshot = ((Snapshottable) context).snapshot();
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).beforeExecution(state, context);
+    }
+
+    /**
+     * Notifies the callbacks that the GameState has been executed without exceptions
+     *
+     * @param state The executed GameState
+     */
+    protected void exitState(GameState state) {
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).afterExecution(state, context);
+        if (log.isDebugEnabled()) log.debug("Exiting GameState: {}", state.getName());
+    }
+
+    /**
+     * Notifies the callbacks that the execution of the GameState threw an exception,
+     * if the executor is blocking the exception interrupts the execution of the machine
+     *
+     * @param state The GameState that threw the exception
+     * @param e     The caught exception
+     */
+    protected void stateFailed(GameState state, Exception e) {
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).caughtException(state, e, context);
+        log.error(GameException.format(e, state.getName()));
+        if (isGlobalExecutionExceptionBlocking() || isThisExecutionExceptionBlocking()) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Selects the next GameState, from the connections if the GameState ended
+     * normally or from the exception connections if it threw an exception,
+     * and moves the machine to it.
+     * <br>If no connection is selected while TimedStateConnections of the GameState are armed
+     * the executor waits for them with {@link #awaitTimers()}, if it doesn't wait
+     * the machine stays in the GameState
+     *
+     * @param state  The executed GameState
+     * @param caught The exception thrown by the GameState or null
+     * @throws Exception in case of exceptions thrown by the expressions of the connections
+     */
+    protected void advance(GameState state, Exception caught) throws Exception {
         GameState nextGameState;
+        waitingTimer = false;
         if (caught == null) {
-            nextGameState = getNextGameState();
+            GameStateConnection c = getNextConnection();
+            while (c == null && timers != null && timers.getArmed() > 0 && awaitTimers()) c = getNextConnection();
+            waitingTimer = c == null && timers != null && timers.getArmed() > 0;
+            nextGameState = waitingTimer ? state : c == null ? null : c.getResultState();
         } else {
             nextGameState = getNextExceptionGameState(caught);
+            if (nextGameState == null) unhandledException = caught;
         }
-        callbacks.forEach(c -> c.nextSelectedGameState(currentGameState, nextGameState, context));
+        entrySnapshot = null;
+        if (timers != null) timers.nextSelectedGameState(state, nextGameState, context);
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).nextSelectedGameState(state, nextGameState, context);
+        currentGameState = nextGameState;
+    }
+
+    /**
+     * Checks again the connections of a GameState that is waiting for its TimedStateConnections,
+     * the GameState is not executed, the step doesn't count for the limits and the callbacks
+     * are notified only when a connection is selected and the machine leaves the GameState
+     *
+     * @param state The waiting GameState
+     * @throws Exception in case of exceptions thrown by the expressions of the connections
+     */
+    protected void recheckTimers(GameState state) throws Exception {
+        GameStateConnection c = findConnection();
+        if (c == null && timers.getArmed() > 0) return;
+        waitingTimer = false;
+        GameState nextGameState = c == null ? null : c.getResultState();
+        timers.nextSelectedGameState(state, nextGameState, context);
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).nextSelectedGameState(state, nextGameState, context);
         currentGameState = nextGameState;
     }
 
+    /**
+     * Returns the first deadline of the TimedStateConnections the machine is waiting for
+     *
+     * @return The deadline in {@link System#nanoTime()} units, or the current time if the machine is not waiting
+     */
+    public long getTimerDeadline() {
+        return waitingTimer ? timers.nextDeadline() : System.nanoTime();
+    }
+
+    /**
+     * Called when no connection of the GameState is selected while its TimedStateConnections are armed,
+     * the GameExecutor parks the thread until the first deadline and checks the connections again.
+     * The executors that must not block the caller return false, so the machine stays
+     * in the GameState and only checks its connections at the next step
+     *
+     * @return True if the connections have to be checked again
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    protected boolean awaitTimers() throws InterruptedException {
+        timers.await();
+        return true;
+    }
+
+    /**
+     * Creates the timers of the TimedStateConnections of the machine,
+     * the executors that wait for events schedule a wake up at every deadline
+     *
+     * @return The TimerCallback of the execution
+     */
+    protected TimerCallback createTimers() {
+        return new TimerCallback(stateMachine, null, null);
+    }
+
     /**
      * Begin contains command to setup the process of the machine
      *
@@ -122,6 +356,11 @@ public class GameExecutor implements IGameExecutor {
     protected void begin() throws GameException {
         executionChecks();
         if (currentGameState == null) currentGameState = stateMachine.getStartState();
+        if (timers != null) timers.disarm();
+        timers = TimerCallback.hasTimedConnections(stateMachine) ? createTimers() : null;
+        waitingTimer = false;
+        budget.start();
+        unhandledException = null;
     }
 
     /**
@@ -129,6 +368,18 @@ public class GameExecutor implements IGameExecutor {
      * where everything is wrapped up and closed
      */
     protected void end() {
+        if (timers != null) timers.disarm();
+    }
+
+    /**
+     * Resets the executor, the next execution starts from the
+     * starting state of the machine
+     */
+    @Override
+    public void reset() {
+        currentGameState = null;
+        waitingTimer = false;
+        if (timers != null) timers.disarm();
     }
 
     @Override
@@ -148,37 +399,52 @@ public class GameExecutor implements IGameExecutor {
 
     /**
      * Iterates all the GameStateConditions and return the game state of
-     * the FIRST game state condition returning TRUE
+     * the FIRST game state condition returning TRUE, the connections
+     * are read from the compiled transition table of the machine
      *
      * @return The GameState with the condition that returned true
      */
     protected GameState getNextGameState() throws Exception {
-        List<GameStateConnection> GameStateConnections = stateMachine.getConnectionsOf(currentGameState);
-        callbacks.forEach(c -> c.connectionChoice(currentGameState, GameStateConnections, context));
-        for (GameStateConnection c : GameStateConnections) {
-            if (c.checkExpression(context)) {
-                return c.getResultState();
-            }
-        }
-        return null;
+        GameStateConnection c = getNextConnection();
+        return c == null ? null : c.getResultState();
+    }
+
+    /**
+     * Returns the FIRST connection of the current GameState returning TRUE,
+     * the TimedStateConnections are checked by the timers of the executor
+     *
+     * @return The selected connection or null if none of the connections returned true
+     */
+    protected GameStateConnection getNextConnection() throws Exception {
+        List<GameStateConnection> GameStateConnections = stateMachine.compile().of(currentGameState).getConnectionList();
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).connectionChoice(currentGameState, GameStateConnections, context);
+        return findConnection();
+    }
+
+    private GameStateConnection findConnection() throws Exception {
+        if (timers == null) return stateMachine.compile().select(currentGameState, context);
+        return timers.select(stateMachine.compile().of(currentGameState).getConnectionList(), context);
     }
 
     /**
      * In case of an exception iterates all the ExceptionGameStateConditions and returns the game state of
-     * the FIRST ExceptionGameStateCondition returning TRUE, handling the exception
+     * the FIRST ExceptionGameStateCondition returning TRUE, handling the exception.
+     * <br>If the connection is a rollback one the context is restored to the snapshot
+     * taken when the failed GameState was entered
      *
      * @param e The exception to check
      * @return The GameState with the condition that returned true
      */
     protected GameState getNextExceptionGameState(Exception e) throws Exception {
-        List<ExceptionStateConnection> GameStateConnections = stateMachine.getExceptionConnectionsOf(currentGameState);
-        callbacks.forEach(c -> c.exceptionConnectionChoice(currentGameState, GameStateConnections, context));
-        for (ExceptionStateConnection c : GameStateConnections) {
-            if (c.checkExpression(e)) {
-                return c.getResultState();
-            }
+        List<ExceptionStateConnection> GameStateConnections = stateMachine.compile().of(currentGameState).getExceptionConnectionList();
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).exceptionConnectionChoice(currentGameState, GameStateConnections, context);
+        ExceptionStateConnection c = stateMachine.compile().selectException(currentGameState, e);
+        if (c == null) return null;
+        if (c.isRollback() && entrySnapshot != null) {
+            if (log.isDebugEnabled()) log.debug("Rolling back the context of GameState: {}", currentGameState.getName());
+            ((Snapshottable) context).restore(entrySnapshot);
         }
-        return null;
+        return c.getResultState();
     }
 
     /**
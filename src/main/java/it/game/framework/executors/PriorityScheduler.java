@@ -0,0 +1,302 @@
+package it.game.framework.executors;
+
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.interfaces.ExecutionPriority;
+import it.game.framework.executors.interfaces.Prioritized;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pool of threads that serves the executions by priority class.
+ * <br>Every ExecutionPriority has its own FIFO queue, the workers take the oldest execution
+ * of the highest class that has one. To avoid the starvation of the lower classes an execution
+ * that waited longer than the aging threshold of its class is served before the higher classes,
+ * the threshold grows with the distance from the highest class (agingNanos for the second class,
+ * twice that for the third and so on).
+ * <br>The priority of an execution is read from the {@link Prioritized} interface, like the
+ * ThreadedExecutor, the other tasks are NORMAL. The time spent in the queue is recorded into a
+ * latency histogram for each class.
+ */
+@Slf4j
+public class PriorityScheduler extends AbstractExecutorService {
+
+    /**
+     * A histogram of latencies with a bucket for each power of two of nanoseconds,
+     * recording is lock free and doesn't allocate
+     */
+    public static class LatencyHistogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        /**
+         * Records a latency
+         * @param nanos The latency in nanoseconds
+         */
+        public void record(long nanos) {
+            buckets.incrementAndGet(nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos));
+        }
+
+        /**
+         * Returns the number of recorded latencies
+         * @return The number of recorded latencies
+         */
+        public long getCount() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) count += buckets.get(i);
+            return count;
+        }
+
+        /**
+         * Returns the upper bound of the bucket that contains the percentile
+         * @param percentile The percentile between 0 and 100
+         * @return The upper bound of the latency in nanoseconds, 0 if nothing has been recorded
+         */
+        public long getPercentile(double percentile) {
+            long count = getCount();
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) return i == 63 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+            return Long.MAX_VALUE;
+        }
+
+        /**
+         * Returns the number of latencies of each bucket, the bucket i
+         * contains the latencies between 2^i and 2^(i+1) - 1 nanoseconds
+         * @return The counts of the buckets
+         */
+        public long[] getBuckets() {
+            long[] copy = new long[buckets.length()];
+            for (int i = 0; i < copy.length; i++) copy[i] = buckets.get(i);
+            return copy;
+        }
+
+        public void reset() {
+            for (int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+        }
+    }
+
+    /**
+     * A task with the time it entered the queue
+     */
+    private static final class Queued {
+        private final Runnable task;
+        private final long enqueuedNanos;
+
+        private Queued(Runnable task) {
+            this.task = task;
+            this.enqueuedNanos = System.nanoTime();
+        }
+    }
+
+    private static final ExecutionPriority[] CLASSES = ExecutionPriority.values();
+
+    @Getter
+    private final long agingNanos;
+    private final List<ArrayDeque<Queued>> queues = new ArrayList<>(CLASSES.length);
+    private final LatencyHistogram[] histograms = new LatencyHistogram[CLASSES.length];
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition terminated = lock.newCondition();
+    private final Thread[] workers;
+    private int running;
+    private int size;
+    private volatile boolean shutdown;
+
+    /**
+     * Creates and starts the scheduler
+     * @param threads The number of worker threads
+     * @param aging The time after which an execution of the second class is served before the higher class
+     * @param unit The unit of the aging time
+     */
+    public PriorityScheduler(int threads, long aging, TimeUnit unit) {
+        this.agingNanos = unit.toNanos(aging);
+        for (int i = 0; i < CLASSES.length; i++) {
+            queues.add(new ArrayDeque<>());
+            histograms[i] = new LatencyHistogram();
+        }
+        this.workers = new Thread[threads];
+        this.running = threads;
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::work, "priority-scheduler-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Queues the task with the priority of the task if it is Prioritized or NORMAL otherwise
+     * @param task The task
+     */
+    @Override
+    public void execute(Runnable task) {
+        execute(task, task instanceof Prioritized ? ((Prioritized) task).getPriority() : ExecutionPriority.NORMAL);
+    }
+
+    /**
+     * Queues the task with the given priority
+     * @param task The task
+     * @param priority The priority class of the task
+     */
+    public void execute(Runnable task, ExecutionPriority priority) {
+        Queued queued = new Queued(task);
+        lock.lock();
+        try {
+            if (shutdown) throw new RejectedExecutionException("The scheduler is shut down");
+            queues.get((priority == null ? ExecutionPriority.NORMAL : priority).ordinal()).addLast(queued);
+            size++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Selects the next task, must be called holding the lock with at least one queued task
+     * @return The index of the selected class
+     */
+    private int select(long now) {
+        for (int c = CLASSES.length - 1; c > 0; c--) {
+            Queued head = queues.get(c).peekFirst();
+            if (head != null && now - head.enqueuedNanos > agingNanos * c) return c;
+        }
+        for (int c = 0; c < CLASSES.length; c++) {
+            if (!queues.get(c).isEmpty()) return c;
+        }
+        return -1;
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                Queued queued;
+                int selected;
+                lock.lock();
+                try {
+                    while (size == 0) {
+                        if (shutdown) return;
+                        notEmpty.await(100, TimeUnit.MILLISECONDS);
+                    }
+                    long now = System.nanoTime();
+                    selected = select(now);
+                    queued = queues.get(selected).pollFirst();
+                    size--;
+                } finally {
+                    lock.unlock();
+                }
+                histograms[selected].record(System.nanoTime() - queued.enqueuedNanos);
+                try {
+                    queued.task.run();
+                } catch (RuntimeException e) {
+                    log.error(GameException.format(e, Thread.currentThread().getName()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.lock();
+            try {
+                if (--running == 0) terminated.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the histogram of the time spent in the queue by the executions of a class
+     * @param priority The priority class
+     * @return The latency histogram of the class
+     */
+    public LatencyHistogram getLatency(ExecutionPriority priority) {
+        return histograms[priority.ordinal()];
+    }
+
+    /**
+     * Returns the number of executions of a class waiting in the queue
+     * @param priority The priority class
+     * @return The depth of the queue of the class
+     */
+    public int getQueueDepth(ExecutionPriority priority) {
+        lock.lock();
+        try {
+            return queues.get(priority.ordinal()).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting tasks, the queued tasks are still executed
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * Stops accepting tasks and interrupts the workers
+     * @return The tasks that were still queued
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = new ArrayList<>();
+        lock.lock();
+        try {
+            shutdown = true;
+            for (ArrayDeque<Queued> queue : queues) {
+                for (Queued q : queue) tasks.add(q.task);
+                queue.clear();
+            }
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) worker.interrupt();
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        lock.lock();
+        try {
+            return shutdown && running == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long left = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!(shutdown && running == 0)) {
+                if (left <= 0) return false;
+                left = terminated.awaitNanos(left);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,341 @@
+package it.game.framework.executors;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.interfaces.Snapshottable;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.interfaces.ExecutorCallback;
+import it.game.framework.executors.library.TimerCallback;
+import it.game.framework.stateconnections.ExceptionStateConnection;
+import it.game.framework.stateconnections.GameStateConnection;
+import it.game.framework.statemachines.CompiledStateMachine;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This executor runs many sessions of the same StateMachine at once.
+ * Each session is only a GameContext, the executor shares a single compiled
+ * snapshot of the machine between all of them and drives every session
+ * to completion on a work-stealing ForkJoinPool.
+ * <br>The machine is compiled when the executor is created, later modifications
+ * of the StateMachine are not seen by this executor. The callbacks are shared
+ * between all the sessions, so they have to be thread-safe.
+ * <br>The execution limits work like the ones of the GameExecutor and are applied to every session:
+ * the first breach is handled by the exception connections of the GameState, the second one
+ * ends the session with the GameException of the limit.
+ * <br>A blocking executor ends the session at the first exception of a GameState, the exception
+ * is wrapped in a RuntimeException like the GameExecutor does.
+ * <br>If the machine has TimedStateConnections every session gets its own TimerCallback,
+ * a session waiting for a deadline blocks its worker as a managed blocker of the pool.
+ */
+@Slf4j
+public class SessionExecutor {
+
+    /**
+     * The result of the execution of a single session
+     */
+    @Getter
+    public static class SessionResult {
+        private final GameContext context;
+        private GameState lastGameState;
+        private long steps;
+        private long elapsedNanos;
+        private Exception exception;
+
+        SessionResult(GameContext context) {
+            this.context = context;
+        }
+
+        /**
+         * Returns true if the session ended because of an unhandled exception
+         * @return True if the session failed
+         */
+        public boolean isFailed() {
+            return exception != null;
+        }
+    }
+
+    /**
+     * Splits the list of sessions until a single session is left and executes it,
+     * the halves are forked so idle workers can steal them
+     */
+    private class Batch extends RecursiveTask<SessionResult[]> {
+        private final List<GameContext> contexts;
+        private final SessionResult[] results;
+        private final int from;
+        private final int to;
+
+        Batch(List<GameContext> contexts, SessionResult[] results, int from, int to) {
+            this.contexts = contexts;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SessionResult[] compute() {
+            if (to - from <= 1) {
+                if (to > from) results[from] = run(contexts.get(from));
+                return results;
+            }
+            int middle = (from + to) >>> 1;
+            Batch left = new Batch(contexts, results, from, middle);
+            left.fork();
+            new Batch(contexts, results, middle, to).compute();
+            left.join();
+            return results;
+        }
+    }
+
+    @Getter
+    private final StateMachine stateMachine;
+    private final CompiledStateMachine compiled;
+    @Getter
+    private final ForkJoinPool pool;
+    @Getter
+    private final List<ExecutorCallback> callbacks;
+    @Getter
+    private final boolean exceptionBlocking;
+    private final boolean timed;
+    /**
+     * The maximum number of GameStates executed by a session, 0 means no limit
+     */
+    @Getter
+    @Setter
+    private long maxSteps;
+    /**
+     * The maximum time elapsed since the beginning of a session, 0 means no limit
+     */
+    @Getter
+    @Setter
+    private long maxWallTimeMillis;
+    /**
+     * The maximum CPU time spent executing the GameStates of a session, 0 means no limit
+     */
+    @Getter
+    @Setter
+    private long maxCpuTimeMillis;
+
+    private final LongAdder sessionsCompleted = new LongAdder();
+    private final LongAdder sessionsFailed = new LongAdder();
+    private final LongAdder stepsExecuted = new LongAdder();
+    private final LongAdder elapsedNanos = new LongAdder();
+
+    public SessionExecutor(StateMachine stateMachine) {
+        this(stateMachine, ForkJoinPool.commonPool());
+    }
+
+    public SessionExecutor(StateMachine stateMachine, ForkJoinPool pool) {
+        this(stateMachine, pool, null, false);
+    }
+
+    public SessionExecutor(StateMachine stateMachine, ForkJoinPool pool, List<ExecutorCallback> callbacks, boolean exceptionBlocking) {
+        this.stateMachine = stateMachine;
+        this.compiled = stateMachine.compile();
+        this.pool = pool;
+        this.callbacks = callbacks == null ? new ArrayList<>() : callbacks;
+        this.exceptionBlocking = exceptionBlocking;
+        this.timed = TimerCallback.hasTimedConnections(stateMachine);
+    }
+
+    /**
+     * Executes all the sessions to completion and waits for them
+     * @param contexts The GameContexts of the sessions, one for each session
+     * @return The results of the sessions, in the same order of the contexts
+     */
+    public List<SessionResult> execute(List<GameContext> contexts) {
+        return Arrays.asList(submit(contexts).join());
+    }
+
+    /**
+     * Executes all the sessions to completion and waits for them
+     * @param contexts The GameContexts of the sessions, one for each session
+     * @return The results of the sessions, in the same order of the contexts
+     */
+    public List<SessionResult> execute(GameContext... contexts) {
+        return execute(Arrays.asList(contexts));
+    }
+
+    /**
+     * Submits all the sessions to the pool without waiting for them
+     * @param contexts The GameContexts of the sessions, one for each session
+     * @return The task that completes with the results of the sessions, in the same order of the contexts
+     */
+    public ForkJoinTask<SessionResult[]> submit(List<GameContext> contexts) {
+        List<GameContext> sessions = new ArrayList<>(contexts);
+        return pool.submit(new Batch(sessions, new SessionResult[sessions.size()], 0, sessions.size()));
+    }
+
+    /**
+     * Returns the number of sessions that ended without unhandled exceptions
+     * @return The number of completed sessions
+     */
+    public long getSessionsCompleted() {
+        return sessionsCompleted.sum();
+    }
+
+    /**
+     * Returns the number of sessions that ended with an unhandled exception
+     * @return The number of failed sessions
+     */
+    public long getSessionsFailed() {
+        return sessionsFailed.sum();
+    }
+
+    /**
+     * Returns the number of GameStates executed by all the sessions
+     * @return The number of executed steps
+     */
+    public long getStepsExecuted() {
+        return stepsExecuted.sum();
+    }
+
+    /**
+     * Returns the average throughput of the executor, calculated as the executed
+     * steps divided by the sum of the execution time of all the sessions
+     * @return The number of steps executed per second by a single worker
+     */
+    public double getThroughput() {
+        long nanos = elapsedNanos.sum();
+        return nanos == 0 ? 0 : getStepsExecuted() * 1_000_000_000d / nanos;
+    }
+
+    /**
+     * Resets all the counters of the executor
+     */
+    public void resetStatistics() {
+        sessionsCompleted.reset();
+        sessionsFailed.reset();
+        stepsExecuted.reset();
+        elapsedNanos.reset();
+    }
+
+    /**
+     * Drives a single session to completion, the loop mirrors the one of
+     * the GameExecutor but it reads the connections from the shared compiled machine
+     * @param context The GameContext of the session
+     * @return The result of the session
+     */
+    private SessionResult run(GameContext context) {
+        SessionResult result = new SessionResult(context);
+        long start = System.nanoTime();
+        GameState current = stateMachine.getStartState();
+        TimerCallback timers = timed ? new TimerCallback(stateMachine, null, null) : null;
+        ExecutionBudget budget = new ExecutionBudget();
+        budget.start();
+        try {
+            if (context == null) throw new GameException(ExceptionLibrary.get("CONTEXT_IS_NULL"));
+            if (current == null) throw new GameException(ExceptionLibrary.get("STARTING_STATE_IS_NULL"));
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).beforeLoop(context);
+            while (current != null) {
+                result.lastGameState = current;
+                current = step(current, context, result, timers, budget);
+                result.steps++;
+            }
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).afterLoop(context);
+        } catch (Exception e) {
+            result.exception = e;
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).caughtException(current, e, context);
+            log.error(GameException.format(e, current == null ? "SessionExecutor" : current.getName()));
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        stepsExecuted.add(result.steps);
+        elapsedNanos.add(result.elapsedNanos);
+        if (result.isFailed()) sessionsFailed.increment();
+        else sessionsCompleted.increment();
+        return result;
+    }
+
+    /**
+     * Executes the current GameState of a session and selects the next one
+     * @param current The GameState to execute
+     * @param context The GameContext of the session
+     * @param result The result of the session where unhandled exceptions are stored
+     * @param timers The timers of the session or null if the machine has no timed connections
+     * @param budget The execution limits of the session
+     * @return The next GameState or null if the session is ended
+     * @throws Exception If an expression throws an exception or a limit is breached twice, if the executor
+     *                   is blocking the exception of the GameState is wrapped in a RuntimeException like the GameExecutor does
+     */
+    private GameState step(GameState current, GameContext context, SessionResult result, TimerCallback timers, ExecutionBudget budget) throws Exception {
+        Exception caught = null;
+        GameException breach = ExecutionBudget.hasLimits(maxSteps, maxWallTimeMillis, maxCpuTimeMillis)
+                ? budget.check(maxSteps, maxWallTimeMillis, maxCpuTimeMillis, stateMachine, current)
+                : null;
+        CompiledStateMachine.Transitions transitions = compiled.of(current);
+        Snapshottable.Snapshot snapshot = context instanceof Snapshottable && transitions.isRollback()
+                ? ((Snapshottable) context).snapshot()
+                : null;
+        context.clearChanges();
+        if (timers != null && breach == null) timers.beforeExecution(current, context);
+        try {
+            if (breach != null) throw breach;
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).beforeExecution(current, context);
+            budget.execute(current, context, maxCpuTimeMillis);
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).afterExecution(current, context);
+        } catch (Exception e) {
+            caught = e;
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).caughtException(current, e, context);
+            log.error(GameException.format(e, current.getName()));
+            if (exceptionBlocking) throw new RuntimeException(e);
+        }
+        GameState next;
+        if (caught == null) {
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).connectionChoice(current, transitions.getConnectionList(), context);
+            GameStateConnection c = timers == null ? compiled.select(current, context) : select(transitions, context, timers);
+            next = c == null ? null : c.getResultState();
+        } else {
+            for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).exceptionConnectionChoice(current, transitions.getExceptionConnectionList(), context);
+            ExceptionStateConnection c = compiled.selectException(current, caught);
+            if (c == null) result.exception = caught;
+            else if (c.isRollback() && snapshot != null) ((Snapshottable) context).restore(snapshot);
+            next = c == null ? null : c.getResultState();
+        }
+        if (timers != null) timers.nextSelectedGameState(current, next, context);
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).nextSelectedGameState(current, next, context);
+        return next;
+    }
+
+    /**
+     * Selects the first connection of the GameState with the timers of the session like the GameExecutor,
+     * if none returns true while timers are armed the worker waits for the first deadline
+     * as a managed blocker and checks the connections again
+     * @param transitions The connections of the GameState
+     * @param context The GameContext of the session
+     * @param timers The timers of the session
+     * @return The selected connection or null if none of the connections returned true
+     * @throws Exception The exceptions thrown by the expressions or InterruptedException if the worker is interrupted
+     */
+    private static GameStateConnection select(CompiledStateMachine.Transitions transitions, GameContext context, TimerCallback timers) throws Exception {
+        List<GameStateConnection> connections = transitions.getConnectionList();
+        GameStateConnection c = timers.select(connections, context);
+        while (c == null && timers.getArmed() > 0) {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    timers.await();
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return false;
+                }
+            });
+            c = timers.select(connections, context);
+        }
+        return c;
+    }
+
+}
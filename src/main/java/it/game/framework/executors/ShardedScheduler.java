@@ -0,0 +1,266 @@
+package it.game.framework.executors;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.events.EventQueue;
+import it.game.framework.executors.interfaces.IGameExecutor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * This scheduler partitions the sessions between N shard threads.
+ * <br>The key of a session is hashed to a shard that owns the executor and the GameContext
+ * of the session exclusively: every command to the session is queued into the lock-free queue
+ * of the shard and executed by its thread, so the machines and the contexts are only touched
+ * by one thread and the non thread safe contexts like the SimpleContext can be used without locks.
+ * <br>Each command returns a CompletableFuture that completes on the shard thread.
+ * Long executions block the other sessions of the same shard, so sessions should be
+ * executed a step at a time (e.g. with a SteppedExecutor or a TickExecutor with a short tick).
+ */
+@Slf4j
+public class ShardedScheduler implements AutoCloseable {
+
+    /**
+     * A command queued into a shard with the future of its result,
+     * the command is either executed by the shard or rejected when the scheduler closes, never both
+     */
+    private static final class Command implements Runnable {
+
+        private final CompletableFuture<?> future;
+        private final Runnable body;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Command(CompletableFuture<?> future, Runnable body) {
+            this.future = future;
+            this.body = body;
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) body.run();
+        }
+
+        private void reject() {
+            if (claimed.compareAndSet(false, true)) {
+                future.completeExceptionally(new RejectedExecutionException("The scheduler is closed, the command has not been executed"));
+            }
+        }
+    }
+
+    /**
+     * A shard thread with its queue of commands and the sessions it owns
+     */
+    public static final class Shard implements Runnable {
+
+        private final EventQueue<Command> commands;
+        private final Map<Object, IGameExecutor> sessions = new HashMap<>();
+        private final Thread thread;
+        @Getter
+        private volatile long commandsExecuted;
+        @Getter
+        private volatile int sessionCount;
+        private volatile boolean running = true;
+
+        private Shard(int index, int queueCapacity) {
+            this.commands = new EventQueue<>(queueCapacity);
+            this.thread = new Thread(this, "shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Command command = commands.poll();
+                if (command == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    log.error(GameException.format(e, thread.getName()));
+                }
+                commandsExecuted++;
+            }
+            // the thread is the only consumer of the queue, the commands left are rejected before it ends
+            for (Command command = commands.poll(); command != null; command = commands.poll()) {
+                command.reject();
+            }
+        }
+
+        private boolean offer(Command command) {
+            if (!running || !commands.offer(command)) return false;
+            LockSupport.unpark(thread);
+            return true;
+        }
+
+        /**
+         * Returns the number of commands waiting in the queue of the shard
+         * @return The depth of the queue
+         */
+        public int getQueueDepth() {
+            return commands.size();
+        }
+    }
+
+    private final Shard[] shards;
+
+    /**
+     * Creates a scheduler with a shard for each available processor
+     */
+    public ShardedScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    /**
+     * Creates and starts the shards of the scheduler
+     * @param shards The number of shard threads
+     * @param queueCapacity The capacity of the queue of commands of each shard
+     */
+    public ShardedScheduler(int shards, int queueCapacity) {
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(i, queueCapacity);
+            this.shards[i].thread.start();
+        }
+    }
+
+    /**
+     * Returns the index of the shard that owns the session
+     * @param key The key of the session
+     * @return The index of the shard
+     */
+    public int shardOf(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return Math.floorMod(h, shards.length);
+    }
+
+    public Shard getShard(int index) {
+        return shards[index];
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Registers a session into its shard, from now on the executor and its GameContext
+     * must be used only through the commands of the scheduler
+     * @param key The key of the session
+     * @param executor The executor of the session with its StateMachine and GameContext
+     * @return The future that completes when the session is registered or fails with a SESSION_ALREADY_REGISTERED
+     */
+    public CompletableFuture<Void> register(Object key, IGameExecutor executor) {
+        Shard shard = shards[shardOf(key)];
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        enqueue(shard, future, () -> {
+            if (shard.sessions.putIfAbsent(key, executor) != null) {
+                future.completeExceptionally(new GameException(ExceptionLibrary.get("SESSION_ALREADY_REGISTERED"), String.valueOf(key)));
+                return;
+            }
+            shard.sessionCount = shard.sessions.size();
+            future.complete(null);
+        });
+        return future;
+    }
+
+    /**
+     * Removes a session from its shard
+     * @param key The key of the session
+     * @return The future that completes with the executor of the session or fails with a SESSION_NOT_REGISTERED
+     */
+    public CompletableFuture<IGameExecutor> unregister(Object key) {
+        Shard shard = shards[shardOf(key)];
+        CompletableFuture<IGameExecutor> future = new CompletableFuture<>();
+        enqueue(shard, future, () -> {
+            IGameExecutor executor = shard.sessions.remove(key);
+            shard.sessionCount = shard.sessions.size();
+            if (executor == null) future.completeExceptionally(notRegistered(key));
+            else future.complete(executor);
+        });
+        return future;
+    }
+
+    /**
+     * Runs a command on the executor of the session into the thread of its shard
+     * @param key The key of the session
+     * @param command The command, e.g. the input of a player written into the GameContext
+     * @param <T> The type of the result of the command
+     * @return The future that completes with the result of the command or fails with its exception
+     */
+    public <T> CompletableFuture<T> submit(Object key, Function<IGameExecutor, T> command) {
+        Shard shard = shards[shardOf(key)];
+        CompletableFuture<T> future = new CompletableFuture<>();
+        enqueue(shard, future, () -> {
+            IGameExecutor executor = shard.sessions.get(key);
+            if (executor == null) {
+                future.completeExceptionally(notRegistered(key));
+                return;
+            }
+            try {
+                future.complete(command.apply(executor));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Calls the execute method of the executor of the session into the thread of its shard,
+     * with a SteppedExecutor this executes a single step of the machine
+     * @param key The key of the session
+     * @return The future that completes with the GameContext of the session
+     */
+    public CompletableFuture<GameContext> execute(Object key) {
+        return submit(key, executor -> {
+            executor.execute();
+            return executor.getContext();
+        });
+    }
+
+    private static void enqueue(Shard shard, CompletableFuture<?> future, Runnable body) {
+        Command command = new Command(future, body);
+        if (!shard.offer(command)) {
+            future.completeExceptionally(new RejectedExecutionException("The queue of " + shard.thread.getName() + " is full or the scheduler is closed"));
+        } else if (!shard.running) {
+            // the scheduler closed while the command was queued, the shard may have already drained its queue
+            command.reject();
+        }
+    }
+
+    private static GameException notRegistered(Object key) {
+        return new GameException(ExceptionLibrary.get("SESSION_NOT_REGISTERED"), String.valueOf(key));
+    }
+
+    /**
+     * Stops the shard threads, the command in execution on each shard is completed
+     * and the commands still in the queues fail with a RejectedExecutionException
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+}
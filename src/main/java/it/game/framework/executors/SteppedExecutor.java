@@ -4,7 +4,7 @@ import it.game.framework.contexts.GameContext;
 import it.game.framework.exceptions.GameException;
 import it.game.framework.statemachines.StateMachine;
 import it.game.framework.states.GameState;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -24,7 +24,6 @@ import java.util.Optional;
 @Slf4j
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 @Component
 public class SteppedExecutor extends GameExecutor implements Iterable<Optional<GameState>>, Iterator<Optional<GameState>> {
@@ -45,6 +44,17 @@ public class SteppedExecutor extends GameExecutor implements Iterable<Optional<G
     @Value("${game.framework.executor.stepped_executor_blocking_exception}")
     private boolean thisExecutionExceptionBlocking;
     private Steps currentStep = Steps.START;
+    /**
+     * The exception that interrupted the last step, null if the step ended normally
+     */
+    @Setter(AccessLevel.NONE)
+    private Exception lastException;
+
+    public SteppedExecutor(boolean GlobalExecutionExceptionBlocking, boolean thisExecutionExceptionBlocking, Steps currentStep) {
+        this.GlobalExecutionExceptionBlocking = GlobalExecutionExceptionBlocking;
+        this.thisExecutionExceptionBlocking = thisExecutionExceptionBlocking;
+        this.currentStep = currentStep;
+    }
 
     /**
      * Resets the execution of the machine
@@ -53,6 +63,15 @@ public class SteppedExecutor extends GameExecutor implements Iterable<Optional<G
         currentStep = Steps.START;
     }
 
+    /**
+     * Resets the executor and restarts the execution of the machine
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        restart();
+    }
+
     /**
      * Execute overrides the execute method.
      * This method executes the state machine one state a the time
@@ -61,6 +80,7 @@ public class SteppedExecutor extends GameExecutor implements Iterable<Optional<G
      */
     @Override
     public void execute() {
+        lastException = null;
         try {
             switch (currentStep) {
                 case START:
@@ -77,10 +97,33 @@ public class SteppedExecutor extends GameExecutor implements Iterable<Optional<G
                     end();
             }
         } catch (Exception e) {
-            log.error(GameException.format(e, currentGameState.getName()));
+            lastException = e;
+            log.error(GameException.format(e, currentGameState == null ? getClass().getSimpleName() : currentGameState.getName()));
         }
     }
 
+    /**
+     * Executes a single step of the machine like {@link #next()} but returns
+     * the current GameState directly, without wrapping it into an Optional,
+     * so the stepping doesn't allocate
+     * @return The current GameState after the step or null if the machine is ended
+     */
+    public GameState step() {
+        execute();
+        return currentGameState;
+    }
+
+    /**
+     * A step never blocks the caller, a GameState waiting for
+     * its TimedStateConnections is not executed again, its connections are checked at the next step
+     *
+     * @return False
+     */
+    @Override
+    protected boolean awaitTimers() {
+        return false;
+    }
+
     @Override
     public boolean hasNext() {
         return currentStep != Steps.END;
@@ -88,8 +131,7 @@ public class SteppedExecutor extends GameExecutor implements Iterable<Optional<G
 
     @Override
     public Optional<GameState> next() {
-        execute();
-        return Optional.ofNullable(currentGameState);
+        return Optional.ofNullable(step());
     }
 
     @Override
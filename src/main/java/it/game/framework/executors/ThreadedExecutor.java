@@ -1,37 +1,325 @@
 package it.game.framework.executors;
 
-import lombok.AllArgsConstructor;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.interfaces.ExecutionPriority;
+import it.game.framework.executors.interfaces.Prioritized;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.Executor;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This executor creates and executes the StateMachine
  * in a separate Thread.
+ * <br>The executions run on a shared pool, by default a cached pool of daemon threads
+ * shared by all the ThreadedExecutors, or on the pool given to the executor.
+ * When {@code game.framework.executor.threaded_virtual_threads} is true and the JVM supports them,
+ * every execution runs on its own virtual thread.
+ * When {@code game.framework.executor.threaded_queue_capacity} is greater than 0 the executions
+ * run on a shared BoundedExecutor that admits at most that many queued executions and applies
+ * the {@code threaded_rejection_policy} when it is full, the executors with the same pool size,
+ * capacity and policy share the same BoundedExecutor.
+ * <br>The priority class of the executor is used by the PriorityScheduler to order the executions.
+ * <br>Each execution is bound to a CompletableFuture that completes with the GameContext
+ * of the machine or fails with the exception that escaped the execution.
+ * An executor runs one execution at a time, a submit while an execution is running
+ * returns a future failed with EXECUTION_ALREADY_RUNNING.
  */
 @Slf4j
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 @Component
-public class ThreadedExecutor extends GameExecutor implements Runnable{
+public class ThreadedExecutor extends GameExecutor implements Runnable, AutoCloseable, Prioritized {
 
-    Executor executor = Executors.newSingleThreadExecutor();
+    private static volatile ExecutorService sharedPool;
+    private static volatile ExecutorService virtualThreadPool;
+    private static final Map<String, BoundedExecutor> boundedPools = new ConcurrentHashMap<>();
 
+    @Value("${game.framework.executor.threaded_virtual_threads}")
+    private boolean virtualThreads;
+    @Value("${game.framework.executor.threaded_queue_capacity}")
+    private int queueCapacity;
+    @Value("${game.framework.executor.threaded_pool_size}")
+    private int poolSize;
+    @Value("${game.framework.executor.threaded_rejection_policy}")
+    private BoundedExecutor.RejectionPolicy rejectionPolicy = BoundedExecutor.RejectionPolicy.BLOCK;
+    @Value("${game.framework.executor.threaded_priority}")
+    private ExecutionPriority priority = ExecutionPriority.NORMAL;
+    protected ExecutorService executor;
+    @Setter(AccessLevel.NONE)
+    private volatile CompletableFuture<GameContext> future;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Thread runner;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicBoolean running = new AtomicBoolean();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Execution execution;
+
+    public ThreadedExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the pool shared by all the ThreadedExecutors, a cached pool
+     * of daemon threads that are released after 60 seconds of inactivity
+     * @return The shared pool
+     */
+    public static ExecutorService sharedPool() {
+        if (sharedPool == null) {
+            synchronized (ThreadedExecutor.class) {
+                if (sharedPool == null) {
+                    AtomicInteger count = new AtomicInteger();
+                    sharedPool = Executors.newCachedThreadPool(r -> {
+                        Thread t = new Thread(r, "threaded-executor-" + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+                }
+            }
+        }
+        return sharedPool;
+    }
+
+    /**
+     * Returns a shared pool that starts a new virtual thread for every execution,
+     * virtual threads are available from Java 21, on older JVMs this method
+     * returns the shared pool
+     * @return The virtual thread per task pool or the shared pool if the JVM doesn't support virtual threads
+     */
+    public static ExecutorService virtualThreadPool() {
+        if (virtualThreadPool == null) {
+            synchronized (ThreadedExecutor.class) {
+                if (virtualThreadPool == null) {
+                    try {
+                        virtualThreadPool = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                    } catch (ReflectiveOperationException e) {
+                        log.warn("Virtual threads are not supported by this JVM, using the shared pool");
+                        virtualThreadPool = sharedPool();
+                    }
+                }
+            }
+        }
+        return virtualThreadPool;
+    }
+
+    /**
+     * Returns a shared pool with a bounded admission queue, the pools are shared by
+     * configuration: the calls with the same threads, capacity and policy return the same pool,
+     * a different configuration gets its own pool. A pool that has been shut down is replaced
+     * @param threads The number of threads, 0 or less means one for each available processor
+     * @param capacity The capacity of the admission queue
+     * @param policy The policy applied when the queue is full
+     * @return The shared bounded pool of the configuration
+     */
+    public static BoundedExecutor boundedPool(int threads, int capacity, BoundedExecutor.RejectionPolicy policy) {
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        String key = n + "/" + capacity + "/" + policy;
+        BoundedExecutor pool = boundedPools.get(key);
+        if (pool != null && !pool.isShutdown()) return pool;
+        return boundedPools.compute(key, (k, p) -> {
+            if (p != null && !p.isShutdown()) return p;
+            log.debug("Creating the bounded pool {}", k);
+            return new BoundedExecutor(n, capacity, policy);
+        });
+    }
+
+    /**
+     * Returns the pool where the executions run, if no pool
+     * is set it returns the shared one. The shared pool is looked up at every call
+     * and not kept by the executor, so after {@link #shutdownSharedPools()} the next
+     * execution runs on the new shared pool
+     * @return The pool of the executor
+     */
+    public ExecutorService getExecutor() {
+        if (executor != null) return executor;
+        if (virtualThreads) return virtualThreadPool();
+        if (queueCapacity > 0) return boundedPool(poolSize, queueCapacity, rejectionPolicy);
+        return sharedPool();
+    }
+
+    /**
+     * Starts the execution of the machine into the pool of the executor
+     * without waiting for it, to wait for the result use {@link #submit()}
+     */
     @Override
     public void execute() {
-        executor.execute(this);
+        submit();
     }
 
+    /**
+     * Starts the execution of the machine into the pool of the executor
+     * @return The future that completes with the GameContext at the end of the execution
+     * or fails with the exception that escaped the execution, if an execution is already running
+     * the future fails with EXECUTION_ALREADY_RUNNING
+     */
+    public CompletableFuture<GameContext> submit() {
+        Execution e = start();
+        if (e == null) return alreadyRunning();
+        try {
+            getExecutor().execute(e);
+        } catch (RejectedExecutionException ex) {
+            e.release();
+            e.future.completeExceptionally(ex);
+        }
+        return e.future;
+    }
+
+    /**
+     * Executes the machine on the calling thread, like a submit that doesn't use the pool.
+     * If an execution is already running this call does nothing
+     */
     @Override
     public void run() {
-        super.execute();
+        Execution e = start();
+        if (e != null) e.run();
+    }
+
+    private static CompletableFuture<GameContext> alreadyRunning() {
+        CompletableFuture<GameContext> f = new CompletableFuture<>();
+        f.completeExceptionally(new GameException(ExceptionLibrary.get("EXECUTION_ALREADY_RUNNING")));
+        return f;
+    }
+
+    /**
+     * Reserves the executor for a new execution
+     * @return The new execution or null if an execution is already running
+     */
+    private Execution start() {
+        if (!running.compareAndSet(false, true)) return null;
+        Execution e = new Execution();
+        execution = e;
+        future = e.future;
+        return e;
+    }
+
+    /**
+     * An execution of the machine, the task queued into the pool.
+     * The future is bound to the task, so every submit completes its own future
+     */
+    public final class Execution implements Runnable, Prioritized {
+
+        private final CompletableFuture<GameContext> future = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        @Override
+        public ExecutionPriority getPriority() {
+            return priority;
+        }
+
+        public ThreadedExecutor getExecutor() {
+            return ThreadedExecutor.this;
+        }
+
+        public CompletableFuture<GameContext> getFuture() {
+            return future;
+        }
+
+        /**
+         * Runs the execution, the executor is released before the future is completed
+         * so the callbacks of the future can submit again
+         */
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) return;
+            Exception e;
+            runner = Thread.currentThread();
+            try {
+                e = future.isDone() ? null : executeLoop();
+            } catch (RuntimeException ex) {
+                e = ex;
+            } finally {
+                runner = null;
+                Thread.interrupted();
+                release();
+            }
+            if (e == null) future.complete(context);
+            else future.completeExceptionally(e);
+        }
+
+        /**
+         * Cancels the execution, if it hasn't started yet it will not run and the executor is released,
+         * otherwise the machine stops before the next GameState and the running GameState is interrupted
+         * @return True if the execution has been cancelled, false if it was already completed
+         */
+        public boolean cancel() {
+            if (!future.cancel(true)) return false;
+            if (started.compareAndSet(false, true)) {
+                release();
+            } else {
+                Thread t = runner;
+                if (t != null) t.interrupt();
+            }
+            return true;
+        }
+
+        private void release() {
+            if (execution == this) execution = null;
+            running.set(false);
+        }
+    }
+
+    /**
+     * Checks the cancellation of the execution before
+     * processing the current GameState
+     *
+     * @throws Exception CancellationException if the execution has been cancelled
+     */
+    @Override
+    protected void process() throws Exception {
+        CompletableFuture<GameContext> f = future;
+        if (f != null && f.isCancelled()) throw new CancellationException("Execution cancelled");
+        super.process();
+    }
+
+    /**
+     * Cancels the current execution, the machine stops before the next GameState
+     * and the running GameState is interrupted
+     * @return True if the execution has been cancelled, false if it was already completed
+     */
+    public boolean cancel() {
+        Execution e = execution;
+        return e != null && e.cancel();
+    }
+
+    /**
+     * Cancels the current execution, the pools are shared so they are not shut down
+     */
+    @Override
+    public void close() {
+        cancel();
+        future = null;
+    }
+
+    /**
+     * Shuts down the shared pools, the executions already started are completed
+     * and new pools are created at the next execution
+     */
+    public static synchronized void shutdownSharedPools() {
+        if (virtualThreadPool != null && virtualThreadPool != sharedPool) virtualThreadPool.shutdown();
+        if (sharedPool != null) sharedPool.shutdown();
+        boundedPools.values().forEach(ExecutorService::shutdown);
+        boundedPools.clear();
+        virtualThreadPool = null;
+        sharedPool = null;
     }
 
 }
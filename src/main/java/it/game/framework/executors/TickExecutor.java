@@ -0,0 +1,219 @@
+package it.game.framework.executors;
+
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This executor advances the machine on a fixed timestep, like the
+ * loop of a real-time game server.
+ * Every tick processes GameStates until the tick's wall time budget is used or the
+ * maximum number of steps per tick is reached. When the executor falls
+ * behind, the lag is recovered by running more ticks in a row, up to the
+ * catch up limit, then the remaining lag is dropped and counted as skipped ticks.
+ * <br>The executor uses the begin, process and end phases of the GameExecutor
+ * so the callbacks work like in the other executors.
+ * <br>The tick rate, the steps per tick and the catch up ticks must be greater than 0,
+ * the constructor and the setters reject invalid values with an IllegalArgumentException and
+ * the values injected by Spring are checked when the execution begins.
+ */
+@Slf4j
+@Getter
+@Setter
+@NoArgsConstructor
+@Component
+public class TickExecutor extends GameExecutor {
+
+    /**
+     * The statistics of the ticks executed by the executor
+     */
+    @Getter
+    public static class TickStatistics {
+        private volatile long ticks;
+        private volatile long steps;
+        private volatile long overruns;
+        private volatile long skippedTicks;
+        private volatile long totalTickNanos;
+        private volatile long maxTickNanos;
+        private volatile long lastTickNanos;
+
+        /**
+         * Returns the average duration of a tick
+         * @return The average duration of a tick in nanoseconds
+         */
+        public long getAverageTickNanos() {
+            return ticks == 0 ? 0 : totalTickNanos / ticks;
+        }
+
+        /**
+         * Resets all the statistics
+         */
+        public void reset() {
+            ticks = steps = overruns = skippedTicks = totalTickNanos = maxTickNanos = lastTickNanos = 0;
+        }
+
+        private void record(long nanos, int stepCount, boolean overrun) {
+            ticks++;
+            steps += stepCount;
+            totalTickNanos += nanos;
+            lastTickNanos = nanos;
+            if (nanos > maxTickNanos) maxTickNanos = nanos;
+            if (overrun) overruns++;
+        }
+    }
+
+    @Value("${game.framework.executor.tick_rate}")
+    private int tickRate = 60;
+    @Value("${game.framework.executor.tick_max_steps}")
+    private int maxStepsPerTick = 1;
+    @Value("${game.framework.executor.tick_max_catch_up}")
+    private int maxCatchUpTicks = 5;
+    /**
+     * The wall time budget of a single tick, measured with System.nanoTime
+     * like the tick period, 0 or less means the whole tick period
+     */
+    private long tickWallBudgetNanos;
+    private final TickStatistics statistics = new TickStatistics();
+
+    public TickExecutor(int tickRate, int maxStepsPerTick, int maxCatchUpTicks, long tickWallBudgetNanos) {
+        setTickRate(tickRate);
+        setMaxStepsPerTick(maxStepsPerTick);
+        setMaxCatchUpTicks(maxCatchUpTicks);
+        this.tickWallBudgetNanos = tickWallBudgetNanos;
+    }
+
+    /**
+     * Sets the number of ticks per second
+     * @param tickRate The ticks per second, between 1 and 1000000000
+     */
+    public void setTickRate(int tickRate) {
+        String error = checkTickRate(tickRate);
+        if (error != null) throw new IllegalArgumentException(error);
+        this.tickRate = tickRate;
+    }
+
+    /**
+     * Sets the maximum number of GameStates processed in a tick
+     * @param maxStepsPerTick The maximum steps, greater than 0
+     */
+    public void setMaxStepsPerTick(int maxStepsPerTick) {
+        String error = checkPositive("maxStepsPerTick", maxStepsPerTick);
+        if (error != null) throw new IllegalArgumentException(error);
+        this.maxStepsPerTick = maxStepsPerTick;
+    }
+
+    /**
+     * Sets the maximum number of ticks run in a row to recover the lag
+     * @param maxCatchUpTicks The maximum catch up ticks, greater than 0
+     */
+    public void setMaxCatchUpTicks(int maxCatchUpTicks) {
+        String error = checkPositive("maxCatchUpTicks", maxCatchUpTicks);
+        if (error != null) throw new IllegalArgumentException(error);
+        this.maxCatchUpTicks = maxCatchUpTicks;
+    }
+
+    private static String checkTickRate(int tickRate) {
+        return tickRate > 0 && tickRate <= TimeUnit.SECONDS.toNanos(1) ? null : "tickRate must be between 1 and 1000000000: " + tickRate;
+    }
+
+    private static String checkPositive(String name, int value) {
+        return value > 0 ? null : name + " must be greater than 0: " + value;
+    }
+
+    /**
+     * Checks the tick parameters, that can be injected by Spring without the setters,
+     * before the checks of the GameExecutor
+     *
+     * @throws GameException INVALID_EXECUTOR_CONFIGURATION if a parameter is invalid
+     */
+    @Override
+    protected void begin() throws GameException {
+        String error = checkTickRate(tickRate);
+        if (error == null) error = checkPositive("maxStepsPerTick", maxStepsPerTick);
+        if (error == null) error = checkPositive("maxCatchUpTicks", maxCatchUpTicks);
+        if (error != null) throw new GameException(ExceptionLibrary.get("INVALID_EXECUTOR_CONFIGURATION"), " - " + error);
+        super.begin();
+    }
+
+    /**
+     * Returns the duration of a tick
+     * @return The duration of a tick in nanoseconds
+     */
+    public long getTickPeriodNanos() {
+        return TimeUnit.SECONDS.toNanos(1) / tickRate;
+    }
+
+    /**
+     * Runs the ticks at the fixed rate until there are no more GameStates,
+     * the accumulated lag is recovered running up to maxCatchUpTicks ticks in a row
+     *
+     * @throws Exception in case of unhandled exceptions or if the thread is interrupted
+     */
+    @Override
+    protected void loop() throws Exception {
+        long period = getTickPeriodNanos();
+        long previous = System.nanoTime();
+        long lag = period;
+        while (currentGameState != null) {
+            long now = System.nanoTime();
+            lag += now - previous;
+            previous = now;
+            int ticks = 0;
+            while (lag >= period && currentGameState != null) {
+                if (ticks == maxCatchUpTicks) {
+                    statistics.skippedTicks += lag / period;
+                    lag %= period;
+                    break;
+                }
+                tick();
+                lag -= period;
+                ticks++;
+            }
+            if (currentGameState != null) {
+                LockSupport.parkNanos(this, period - lag);
+                if (Thread.interrupted()) throw new InterruptedException("Tick loop interrupted");
+            }
+        }
+    }
+
+    /**
+     * The machine is never blocked inside a tick, a GameState waiting for
+     * its TimedStateConnections is not executed again, its connections are checked at the next tick
+     *
+     * @return False
+     */
+    @Override
+    protected boolean awaitTimers() {
+        return false;
+    }
+
+    /**
+     * Executes a single tick, processing GameStates until the wall time budget of the tick
+     * is used, the maximum number of steps per tick is reached or the machine
+     * waits for a TimedStateConnection
+     *
+     * @throws Exception in case of unhandled exceptions throws exception
+     */
+    protected void tick() throws Exception {
+        long budget = tickWallBudgetNanos > 0 ? tickWallBudgetNanos : getTickPeriodNanos();
+        long start = System.nanoTime();
+        long elapsed = 0;
+        int steps = 0;
+        while (currentGameState != null && steps < maxStepsPerTick && elapsed < budget) {
+            process();
+            steps++;
+            elapsed = System.nanoTime() - start;
+            if (isWaitingTimer()) break;
+        }
+        statistics.record(elapsed, steps, elapsed > budget);
+    }
+
+}
@@ -0,0 +1,118 @@
+package it.game.framework.executors.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded lock-free ring buffer with many producers and a single consumer.
+ * <br>Every slot has a sequence number: a producer claims a position with a CAS
+ * on the tail and publishes the element by advancing the sequence of the slot,
+ * the consumer reads the slot only when its sequence says it is published and
+ * releases it by advancing the sequence by one lap. Producers never wait for
+ * each other and never take a lock, when the buffer is full the offer fails.
+ * <br>Only one thread at a time may call {@link #poll()} and {@link #drain(Consumer, int)}.
+ *
+ * @param <E> The type of the elements
+ */
+public class EventQueue<E> {
+
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * Creates the queue, the capacity is rounded up to the next power of two
+     * @param capacity The minimum number of elements of the queue
+     */
+    public EventQueue(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("The capacity must be positive");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.buffer = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    /**
+     * Adds an element to the queue without blocking, can be called by any thread
+     * @param e The element
+     * @return True if the element has been added, false if the queue is full
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = e;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the first element of the queue, must be called only by the consumer
+     * @return The first element or null if the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) return null;
+        E e = (E) buffer[index];
+        buffer[index] = null;
+        sequences.set(index, position + buffer.length);
+        head = position + 1;
+        return e;
+    }
+
+    /**
+     * Removes up to max elements passing them to the consumer,
+     * must be called only by the consumer
+     * @param consumer The consumer of the elements
+     * @param max The maximum number of elements to remove
+     * @return The number of removed elements
+     */
+    public int drain(Consumer<? super E> consumer, int max) {
+        int count = 0;
+        E e;
+        while (count < max && (e = poll()) != null) {
+            consumer.accept(e);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of elements in the queue, the value is an estimate
+     * while the producers and the consumer are running
+     * @return The number of elements in the queue
+     */
+    public int size() {
+        long size = tail.get() - head;
+        if (size < 0) return 0;
+        return (int) Math.min(size, buffer.length);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+}
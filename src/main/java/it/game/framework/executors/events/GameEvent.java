@@ -0,0 +1,30 @@
+package it.game.framework.executors.events;
+
+import it.game.framework.contexts.GameContext;
+
+/**
+ * An input event of an EventExecutor (e.g. the move of a player),
+ * when the executor drains the event it applies it to the GameContext
+ * and then re-evaluates the connections of the current GameState
+ */
+public interface GameEvent {
+
+    /**
+     * Applies the event to the GameContext
+     * @param c The GameContext of the session
+     * @throws Exception in case of errors the execution of the machine is interrupted
+     */
+    void apply(GameContext c) throws Exception;
+
+    /**
+     * Creates an event that puts the value into the GameContext
+     * @param key The key of the value
+     * @param value The value
+     * @param <V> The type of the value
+     * @return The event
+     */
+    static <V> GameEvent put(String key, V value) {
+        return c -> c.put(key, value);
+    }
+
+}
@@ -0,0 +1,27 @@
+package it.game.framework.executors.interfaces;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The limits that bound a single execution of a machine,
+ * each limit is breached with its own GameException of the ExceptionLibrary
+ */
+@Getter
+@AllArgsConstructor
+public enum ExecutionLimit {
+    /**
+     * The maximum number of executed GameStates
+     */
+    STEPS("STEP_LIMIT_EXCEEDED"),
+    /**
+     * The maximum time elapsed since the beginning of the execution
+     */
+    WALL_TIME("WALL_TIME_LIMIT_EXCEEDED"),
+    /**
+     * The maximum CPU time spent executing the GameStates
+     */
+    CPU_TIME("CPU_TIME_LIMIT_EXCEEDED");
+
+    private final String exceptionName;
+}
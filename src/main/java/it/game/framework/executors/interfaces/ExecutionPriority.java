@@ -0,0 +1,20 @@
+package it.game.framework.executors.interfaces;
+
+/**
+ * The priority classes of the executions, from the highest to the lowest.
+ * The schedulers that support priorities serve the higher classes first
+ */
+public enum ExecutionPriority {
+    /**
+     * Sessions with human players that need low latency
+     */
+    INTERACTIVE,
+    /**
+     * The default class
+     */
+    NORMAL,
+    /**
+     * Sessions that only need throughput, e.g. bots and replays
+     */
+    BACKGROUND
+}
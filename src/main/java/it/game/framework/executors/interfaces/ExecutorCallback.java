@@ -34,6 +34,8 @@ public abstract class ExecutorCallback implements Serializable {
     /**
      * This method is called inside the main loop just after
      * the execution of the current state.
+     * <br>The changes of the context are cleared before each state,
+     * so {@code context.changedKeys()} contains the keys changed by this state.
      * @param currentState The state that has been executed
      * @param context the GameContext of the game
      */
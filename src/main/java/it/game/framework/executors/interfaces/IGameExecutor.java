@@ -21,6 +21,15 @@ public interface IGameExecutor {
      */
     void execute();
 
+    /**
+     * Resets the executor to the state before the first execution
+     * so it can be reused for a new session, the StateMachine, the GameContext
+     * and the callbacks are kept
+     */
+    default void reset() {
+        setCurrentGameState(null);
+    }
+
     /**
      * Returns the current GameState
      * @return The current GameState
@@ -0,0 +1,14 @@
+package it.game.framework.executors.interfaces;
+
+/**
+ * This interface is implemented by the executions that have a priority class,
+ * the PriorityScheduler reads it to order the executions
+ */
+public interface Prioritized {
+
+    /**
+     * Returns the priority class of the execution
+     * @return The priority class
+     */
+    ExecutionPriority getPriority();
+}
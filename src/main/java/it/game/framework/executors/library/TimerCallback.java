@@ -0,0 +1,173 @@
+package it.game.framework.executors.library;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.executors.interfaces.ExecutorCallback;
+import it.game.framework.stateconnections.GameStateConnection;
+import it.game.framework.stateconnections.TimedStateConnection;
+import it.game.framework.statemachines.CompiledStateMachine;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import it.game.framework.timers.Timeout;
+import it.game.framework.timers.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This callback arms the TimedStateConnections of a session.
+ * <br>When a GameState is entered the deadlines of its timed connections are kept by the callback
+ * and scheduled into the TimingWheel, when the machine moves to another GameState they are cancelled.
+ * A GameState executed again without leaving it keeps its deadlines, so the delay counts the time
+ * spent in the GameState. When a deadline expires the wheel runs the timeout action,
+ * e.g. {@code EventExecutor::wake}, so the session re-evaluates its connections.
+ * <br>The deadlines are never written into the GameContext, the executors check the connections
+ * with {@link #check(GameStateConnection, GameContext)}. The GameExecutor creates the callback
+ * by itself when its machine has timed connections.
+ * <br>The callback keeps the timers of a single session, every executor needs its own instance.
+ */
+public class TimerCallback extends ExecutorCallback {
+
+    private final transient StateMachine machine;
+    private final transient TimingWheel wheel;
+    private final transient Runnable onTimeout;
+    private final transient List<TimedStateConnection> armed = new ArrayList<>();
+    private final transient List<Timeout> timeouts = new ArrayList<>();
+    private transient long[] deadlines = new long[4];
+    private transient GameState armedState;
+
+    public TimerCallback(StateMachine machine, Runnable onTimeout) {
+        this(machine, TimingWheel.shared(), onTimeout);
+    }
+
+    public TimerCallback(StateMachine machine, TimingWheel wheel, Runnable onTimeout) {
+        this.machine = machine;
+        this.wheel = wheel;
+        this.onTimeout = onTimeout;
+    }
+
+    /**
+     * Checks if the machine has timed connections, only these machines need a TimerCallback
+     * @param machine The StateMachine
+     * @return True if a connection or a global connection of the machine is a TimedStateConnection
+     */
+    public static boolean hasTimedConnections(StateMachine machine) {
+        CompiledStateMachine compiled = machine.compile();
+        if (compiled.of(null).isTimed()) return true;
+        for (int i = 0; i < compiled.size(); i++) {
+            if (compiled.of(compiled.stateAt(i)).isTimed()) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void beforeExecution(GameState currentState, GameContext context) {
+        if (currentState == armedState) return;
+        disarm();
+        CompiledStateMachine.Transitions transitions = machine.compile().of(currentState);
+        if (!transitions.isTimed()) return;
+        List<GameStateConnection> connections = transitions.getConnectionList();
+        for (int i = 0; i < connections.size(); i++) {
+            if (!(connections.get(i) instanceof TimedStateConnection)) continue;
+            TimedStateConnection connection = (TimedStateConnection) connections.get(i);
+            long deadline = connection.deadline();
+            if (armed.size() == deadlines.length) {
+                long[] d = new long[deadlines.length * 2];
+                System.arraycopy(deadlines, 0, d, 0, deadlines.length);
+                deadlines = d;
+            }
+            deadlines[armed.size()] = deadline;
+            armed.add(connection);
+            if (onTimeout != null) timeouts.add(wheel.scheduleAt(onTimeout, deadline));
+        }
+        armedState = currentState;
+    }
+
+    @Override
+    public void nextSelectedGameState(GameState currentState, GameState nextGameState, GameContext context) {
+        if (nextGameState != currentState) disarm();
+    }
+
+    @Override
+    public void afterLoop(GameContext context) {
+        disarm();
+    }
+
+    /**
+     * Checks a connection of the current GameState, a TimedStateConnection returns true
+     * when its deadline is expired, the other connections check their expression
+     * @param connection The connection to check
+     * @param context The GameContext of the session
+     * @return The result of the connection
+     * @throws Exception The exceptions thrown by the expression of the connection
+     */
+    public boolean check(GameStateConnection connection, GameContext context) throws Exception {
+        if (!(connection instanceof TimedStateConnection)) return connection.checkExpression(context);
+        for (int i = 0; i < armed.size(); i++) {
+            if (armed.get(i) == connection) return System.nanoTime() - deadlines[i] >= 0;
+        }
+        return false;
+    }
+
+    /**
+     * Selects the first connection that returns true, checking the connections
+     * with {@link #check(GameStateConnection, GameContext)}
+     * @param connections The connections of the current GameState
+     * @param context The GameContext of the session
+     * @return The selected connection or null if none of the connections returned true
+     * @throws Exception The exceptions thrown by the expressions of the connections
+     */
+    public GameStateConnection select(List<GameStateConnection> connections, GameContext context) throws Exception {
+        for (int i = 0; i < connections.size(); i++) {
+            GameStateConnection c = connections.get(i);
+            if (check(c, context)) return c;
+        }
+        return null;
+    }
+
+    /**
+     * Parks the thread until the first armed deadline expires
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void await() throws InterruptedException {
+        if (armed.isEmpty()) return;
+        long first = nextDeadline();
+        for (long remaining = first - System.nanoTime(); remaining > 0; remaining = first - System.nanoTime()) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) throw new InterruptedException("Timer wait interrupted");
+        }
+    }
+
+    /**
+     * Returns the first armed deadline
+     * @return The deadline in {@link System#nanoTime()} units, or the current time if nothing is armed
+     */
+    public long nextDeadline() {
+        if (armed.isEmpty()) return System.nanoTime();
+        long first = deadlines[0];
+        for (int i = 1; i < armed.size(); i++) {
+            if (deadlines[i] - first < 0) first = deadlines[i];
+        }
+        return first;
+    }
+
+    /**
+     * Cancels the pending timers and forgets the deadlines
+     */
+    public void disarm() {
+        armedState = null;
+        if (armed.isEmpty()) return;
+        for (int i = 0; i < timeouts.size(); i++) timeouts.get(i).cancel();
+        timeouts.clear();
+        armed.clear();
+    }
+
+    /**
+     * Returns the number of timed connections armed for the current GameState
+     * @return The number of armed connections
+     */
+    public int getArmed() {
+        return armed.size();
+    }
+
+}
@@ -3,27 +3,44 @@ package it.game.framework.stateconnections;
 import it.game.framework.contexts.GameContext;
 import it.game.framework.stateconnections.interfaces.Expression;
 import it.game.framework.states.GameState;
+import lombok.Getter;
+import lombok.Setter;
 
 /**
  * This GameStateConnection is a special one, this type of connections
  * are checked only when an Exception occurs inside the main loop of a GameExecutor
  * these are used to handle exceptions and move the StateMachine to a state where the
  * exception can be handled or close pending operations.
+ * <br>A rollback connection also restores the GameContext to the content it had
+ * when the failed GameState was entered, if the context is Snapshottable.
  */
 public class ExceptionStateConnection extends GameStateConnection {
 
     int exceptionToCatch;
     Exception e;
+    @Getter
+    @Setter
+    private boolean rollback;
 
     public ExceptionStateConnection(String expressionDescription, GameState startingState, int hash, GameState resultState) {
+        this(expressionDescription, startingState, hash, resultState, false);
+    }
+
+    public ExceptionStateConnection(String expressionDescription, GameState startingState, int hash, GameState resultState, boolean rollback) {
         super(expressionDescription, startingState, null, resultState);
         this.exceptionToCatch = hash;
+        this.rollback = rollback;
     }
 
     public ExceptionStateConnection(String expressionDescription, GameState startingState, Exception exception, GameState resultState) {
+        this(expressionDescription, startingState, exception, resultState, false);
+    }
+
+    public ExceptionStateConnection(String expressionDescription, GameState startingState, Exception exception, GameState resultState, boolean rollback) {
         super(expressionDescription, startingState, null, resultState);
         this.e = exception;
         this.exceptionToCatch = this.e.hashCode();
+        this.rollback = rollback;
     }
 
     /**
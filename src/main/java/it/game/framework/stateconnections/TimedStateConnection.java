@@ -0,0 +1,75 @@
+package it.game.framework.stateconnections;
+
+import it.game.framework.states.GameState;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This GameStateConnection returns true when the machine has been in the
+ * starting state for longer than the delay (e.g. "AFTER:30s" go to TIMEOUT).
+ * <br>The deadline is kept by the TimerCallback of the executor, which arms it when the starting
+ * state is entered and schedules it into a TimingWheel so the session waiting for events is woken
+ * when it expires. Nothing is written into the GameContext, so the expression of the connection
+ * checked against the context alone always returns false and the executors check the connection
+ * with {@link it.game.framework.executors.library.TimerCallback#check}.
+ */
+@Getter
+public class TimedStateConnection extends GameStateConnection {
+
+    private static final Pattern DELAY = Pattern.compile("(\\d+)\\s*(ms|s|m|h)?");
+
+    private final Duration delay;
+
+    public TimedStateConnection(GameState startingState, Duration delay, GameState resultState) {
+        this(String.format("AFTER:%s", format(delay)), startingState, delay, resultState);
+    }
+
+    public TimedStateConnection(String expressionDescription, GameState startingState, Duration delay, GameState resultState) {
+        super(expressionDescription, startingState, null, resultState);
+        this.delay = delay;
+        setExpression((c) -> false);
+    }
+
+    /**
+     * Returns the deadline of the connection for a starting state entered now
+     * @return The deadline as a {@link System#nanoTime()} value
+     */
+    public long deadline() {
+        return System.nanoTime() + delay.toNanos();
+    }
+
+    /**
+     * Parses a delay of the form {@code <amount>[ms|s|m|h]}, without unit the delay is in milliseconds
+     * <br>e.g. "30s", "500ms", "2m"
+     * @param text The delay as a string
+     * @return The delay
+     * @throws IllegalArgumentException if the text is not a valid delay
+     */
+    public static Duration parse(String text) {
+        Matcher m = DELAY.matcher(text.trim().toLowerCase(Locale.ROOT));
+        if (!m.matches()) throw new IllegalArgumentException("Invalid delay: " + text);
+        long amount = Long.parseLong(m.group(1));
+        String unit = m.group(2) == null ? "ms" : m.group(2);
+        switch (unit) {
+            case "s":
+                return Duration.ofSeconds(amount);
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            default:
+                return Duration.ofMillis(amount);
+        }
+    }
+
+    private static String format(Duration delay) {
+        long millis = delay.toMillis();
+        if (millis % 1000 != 0) return millis + "ms";
+        return millis / 1000 + "s";
+    }
+
+}
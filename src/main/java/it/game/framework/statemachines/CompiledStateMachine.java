@@ -0,0 +1,201 @@
+package it.game.framework.statemachines;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.stateconnections.ExceptionStateConnection;
+import it.game.framework.stateconnections.GameStateConnection;
+import it.game.framework.stateconnections.TimedStateConnection;
+import it.game.framework.states.GameState;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is the compiled form of a StateMachine, it is an immutable
+ * transition table where every GameState of the machine is resolved to a dense index
+ * and every index has a precomputed array of outgoing connections (the global ones
+ * first, then the ones starting from the GameState) and a separate array
+ * of ExceptionStateConnections.
+ * <br>Looking up the connections of a GameState costs an identity hash lookup
+ * and doesn't allocate, so a step of the executors costs O(out-degree).
+ * <br>The compiled form is a snapshot: it is created by {@link StateMachine#compile()}
+ * and discarded by {@link StateMachine#invalidate()} when the machine is modified.
+ */
+public final class CompiledStateMachine {
+
+    /**
+     * The precomputed connections of a single GameState
+     */
+    public static final class Transitions {
+        private final GameStateConnection[] connections;
+        private final ExceptionStateConnection[] exceptionConnections;
+        @Getter
+        private final List<GameStateConnection> connectionList;
+        @Getter
+        private final List<ExceptionStateConnection> exceptionConnectionList;
+        @Getter
+        private final int ownConnections;
+        /**
+         * True if an exception connection of the state rolls the context back,
+         * the executors take a snapshot of the context only for these states
+         */
+        @Getter
+        private final boolean rollback;
+        /**
+         * True if a connection of the state is a TimedStateConnection,
+         * the executors arm the timers only for these states
+         */
+        @Getter
+        private final boolean timed;
+
+        private Transitions(List<GameStateConnection> globals, List<GameStateConnection> own) {
+            List<GameStateConnection> all = new ArrayList<>(globals.size() + own.size());
+            all.addAll(globals);
+            all.addAll(own);
+            List<ExceptionStateConnection> exceptions = new ArrayList<>();
+            boolean rollback = false;
+            boolean timed = false;
+            for (GameStateConnection c : all) {
+                timed |= c instanceof TimedStateConnection;
+                if (!(c instanceof ExceptionStateConnection)) continue;
+                exceptions.add((ExceptionStateConnection) c);
+                rollback |= ((ExceptionStateConnection) c).isRollback();
+            }
+            this.rollback = rollback;
+            this.timed = timed;
+            this.connections = all.toArray(new GameStateConnection[0]);
+            this.exceptionConnections = exceptions.toArray(new ExceptionStateConnection[0]);
+            this.connectionList = Collections.unmodifiableList(Arrays.asList(connections));
+            this.exceptionConnectionList = Collections.unmodifiableList(Arrays.asList(exceptionConnections));
+            this.ownConnections = own.size();
+        }
+    }
+
+    private final GameState[] states;
+    private final Transitions[] transitions;
+    private final Map<GameState, Integer> indexes;
+    private final Map<String, Integer> keys;
+    private final Transitions globals;
+
+    CompiledStateMachine(StateMachine machine) {
+        List<GameState> machineStates = new ArrayList<>();
+        this.indexes = new IdentityHashMap<>();
+        this.keys = new HashMap<>();
+        for (GameState s : machine.getStates()) {
+            register(s, machineStates);
+        }
+        List<List<GameStateConnection>> own = new ArrayList<>();
+        for (int i = 0; i < machineStates.size(); i++) own.add(new ArrayList<>());
+        for (GameStateConnection c : machine.getConnections()) {
+            if (c.getStartingState() == null) continue;
+            int i = register(c.getStartingState(), machineStates);
+            if (i == own.size()) own.add(new ArrayList<>());
+            own.get(i).add(c);
+        }
+        this.states = machineStates.toArray(new GameState[0]);
+
+        List<GameStateConnection> globalConnections = machine.getGlobalConnections();
+        this.globals = new Transitions(globalConnections, Collections.emptyList());
+        this.transitions = new Transitions[states.length];
+        for (int i = 0; i < states.length; i++) {
+            transitions[i] = new Transitions(globalConnections, own.get(i));
+        }
+    }
+
+    /**
+     * Indexes the GameState, equal GameStates (same class and ID) share the same index
+     * @param gameState The GameState to index
+     * @param machineStates The list of the already indexed GameStates
+     * @return The index of the GameState
+     */
+    private int register(GameState gameState, List<GameState> machineStates) {
+        if (gameState == null) return -1;
+        Integer i = indexes.get(gameState);
+        if (i != null) return i;
+        i = keys.computeIfAbsent(key(gameState), k -> {
+            machineStates.add(gameState);
+            return machineStates.size() - 1;
+        });
+        indexes.put(gameState, i);
+        return i;
+    }
+
+    private static String key(GameState gameState) {
+        return gameState.getClass().getName() + "#" + gameState.ID();
+    }
+
+    /**
+     * Returns the dense index of the GameState inside the compiled machine
+     * @param gameState The GameState to search
+     * @return The index of the GameState or -1 if the GameState is not part of the machine
+     */
+    public int indexOf(GameState gameState) {
+        if (gameState == null) return -1;
+        Integer i = indexes.get(gameState);
+        if (i == null) i = keys.get(key(gameState));
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Returns the GameState stored at the given index
+     * @param index The dense index of the GameState
+     * @return The GameState at the given index
+     */
+    public GameState stateAt(int index) {
+        return states[index];
+    }
+
+    /**
+     * Returns the number of GameStates in the compiled machine
+     * @return The number of GameStates
+     */
+    public int size() {
+        return states.length;
+    }
+
+    /**
+     * Returns the precomputed connections of the given GameState,
+     * GameStates that aren't part of the machine (and null) have only the global connections
+     * @param gameState The target GameState
+     * @return The Transitions of the GameState
+     */
+    public Transitions of(GameState gameState) {
+        int i = indexOf(gameState);
+        return i < 0 ? globals : transitions[i];
+    }
+
+    /**
+     * Returns the first connection of the given GameState whose expression returns true
+     * @param gameState The current GameState
+     * @param context The GameContext the expressions are checked against
+     * @return The selected connection or null if none of the connections returned true
+     * @throws Exception The exceptions thrown by the expressions
+     */
+    public GameStateConnection select(GameState gameState, GameContext context) throws Exception {
+        GameStateConnection[] connections = of(gameState).connections;
+        for (GameStateConnection c : connections) {
+            if (c.checkExpression(context)) return c;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first ExceptionStateConnection of the given GameState that handles the exception
+     * @param gameState The current GameState
+     * @param e The caught exception
+     * @return The selected connection or null if the exception is not handled
+     */
+    public ExceptionStateConnection selectException(GameState gameState, Exception e) {
+        ExceptionStateConnection[] connections = of(gameState).exceptionConnections;
+        for (ExceptionStateConnection c : connections) {
+            if (c.checkExpression(e)) return c;
+        }
+        return null;
+    }
+
+}
@@ -1,18 +1,21 @@
 package it.game.framework.statemachines;
 
+import it.game.framework.contexts.SlotLayout;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.interfaces.ExecutionLimit;
 import it.game.framework.serializations.Serializer;
 import it.game.framework.stateconnections.ExceptionStateConnection;
 import it.game.framework.stateconnections.GameStateConnection;
 import it.game.framework.statemachines.interfaces.IterationAction;
 import it.game.framework.states.GameState;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
@@ -23,13 +26,21 @@ import java.util.stream.Collectors;
 @Slf4j
 @Setter
 @Getter
-@AllArgsConstructor
 public class StateMachine {
 
     private GameState startState;
     private List<GameState> states;
     private List<GameStateConnection> connections;
     private List<GameStateConnection> globalConnections;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile CompiledStateMachine compiled;
+    /**
+     * The slots of the keys used by the machine, for the SlotContexts of its executions
+     */
+    private final SlotLayout layout = new SlotLayout();
+    @Getter(AccessLevel.NONE)
+    private final LongAdder[] limitHits = new LongAdder[ExecutionLimit.values().length];
 
     public StateMachine() {
         this(
@@ -40,6 +51,51 @@ public class StateMachine {
         );
     }
 
+    public StateMachine(GameState startState, List<GameState> states, List<GameStateConnection> connections, List<GameStateConnection> globalConnections) {
+        this.startState = startState;
+        this.states = states;
+        this.connections = connections;
+        this.globalConnections = globalConnections;
+        for (int i = 0; i < limitHits.length; i++) limitHits[i] = new LongAdder();
+    }
+
+    public void setStates(List<GameState> states) {
+        this.states = states;
+        invalidate();
+    }
+
+    public void setConnections(List<GameStateConnection> connections) {
+        this.connections = connections;
+        invalidate();
+    }
+
+    public void setGlobalConnections(List<GameStateConnection> globalConnections) {
+        this.globalConnections = globalConnections;
+        invalidate();
+    }
+
+    /**
+     * Returns the compiled transition table of the machine, building it
+     * if the machine has been modified since the last compilation
+     * @return The CompiledStateMachine of this machine
+     */
+    public CompiledStateMachine compile() {
+        CompiledStateMachine c = compiled;
+        if (c == null) {
+            c = new CompiledStateMachine(this);
+            compiled = c;
+        }
+        return c;
+    }
+
+    /**
+     * Discards the compiled transition table, this method has to be called
+     * every time the lists of states or connections are modified directly
+     */
+    public void invalidate() {
+        compiled = null;
+    }
+
     /**
      * Returns all the connections of the given GameState,
      * first the global ones then the ones that start from the given GameState
@@ -48,12 +104,7 @@ public class StateMachine {
      * start from the given GameState
      */
     public List<GameStateConnection> getConnectionsOf(GameState gameState) {
-        List<GameStateConnection> ret = new ArrayList<>();
-        ret.addAll(globalConnections);
-        ret.addAll(getConnections().stream().filter(v ->
-                v.getStartingState().equals(gameState)
-        ).collect(Collectors.toList()));
-        return ret;
+        return new ArrayList<>(compile().of(gameState).getConnectionList());
     }
 
     /**
@@ -64,10 +115,28 @@ public class StateMachine {
      * start from the given GameState
      */
     public List<ExceptionStateConnection> getExceptionConnectionsOf(GameState gameState) {
-        return getConnectionsOf(gameState).stream().filter(v ->
-                        v instanceof ExceptionStateConnection
-                ).map(ExceptionStateConnection.class::cast)
-                .collect(Collectors.toList());
+        return new ArrayList<>(compile().of(gameState).getExceptionConnectionList());
+    }
+
+    /**
+     * Counts a breach of an execution limit by an executor of this machine
+     * @param limit The breached limit
+     */
+    public void recordLimitHit(ExecutionLimit limit) {
+        limitHits[limit.ordinal()].increment();
+    }
+
+    /**
+     * Returns how many times the executions of this machine breached a limit
+     * @param limit The limit
+     * @return The number of breaches of the limit
+     */
+    public long getLimitHits(ExecutionLimit limit) {
+        return limitHits[limit.ordinal()].sum();
+    }
+
+    public void resetLimitHits() {
+        for (LongAdder hits : limitHits) hits.reset();
     }
 
     /**
@@ -81,8 +150,9 @@ public class StateMachine {
     /**
      * Deserialize the data of the StateMachine from a gfobject file
      * @param filename The name of the gfobject file without extension
+     * @throws GameException If the saved layout conflicts with the layout of the machine
      */
-    public void loadFrom(String filename) {
+    public void loadFrom(String filename) throws GameException {
         StateMachineData loaded = Serializer.load(filename);
         assert loaded != null;
         loaded.populate(this);
@@ -1,5 +1,8 @@
 package it.game.framework.statemachines;
 
+import it.game.framework.contexts.SlotLayout;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
 import it.game.framework.stateconnections.GameStateConnection;
 import it.game.framework.states.GameState;
 import lombok.Getter;
@@ -16,23 +19,53 @@ import java.util.List;
 @Getter
 @Setter
 public class StateMachineData implements Serializable {
+    /**
+     * The serialVersionUID computed for the class before the layout was added,
+     * so the gfobject files saved by the previous versions can still be loaded
+     */
+    private static final long serialVersionUID = 6905780690711952703L;
+
     private GameState startState;
     private List<GameState> states;
     private List<GameStateConnection> connections;
     private List<GameStateConnection> globalConnections;
-
+    /**
+     * The keys of the SlotLayout in slot order, the expressions compiled by the
+     * YamlBuilder read the context by slot so the keys must keep their slots
+     */
+    private List<String> layout;
 
     public StateMachineData(StateMachine machine) {
         this.startState = machine.getStartState();
         this.states = new ArrayList<>(machine.getStates());
         this.connections = new ArrayList<>(machine.getConnections());
         this.globalConnections = new ArrayList<>(machine.getGlobalConnections());
+        SlotLayout slots = machine.getLayout();
+        this.layout = new ArrayList<>(slots.size());
+        for (int i = 0; i < slots.size(); i++) layout.add(slots.keyOf(i));
     }
 
-    public void populate(StateMachine machine){
+    /**
+     * Loads the data into a StateMachine, the keys of the saved layout are declared
+     * with the same slots in the layout of the machine.
+     * The data saved before the layout was stored have no layout and load as before
+     * @param machine The StateMachine to populate
+     * @throws GameException If a key of the saved layout has a different slot in the layout of the machine,
+     *                       the machine is not modified
+     */
+    public void populate(StateMachine machine) throws GameException {
+        SlotLayout slots = machine.getLayout();
+        if (layout != null) {
+            for (int i = 0; i < layout.size(); i++) {
+                int slot = slots.slotOf(layout.get(i));
+                if (slot != i && (slot >= 0 || i < slots.size()))
+                    throw new GameException(ExceptionLibrary.get("LAYOUT_SLOT_CONFLICT"), layout.get(i));
+            }
+        }
         machine.setStartState(startState);
         machine.setStates(states);
         machine.setConnections(connections);
         machine.setGlobalConnections(globalConnections);
+        if (layout != null) layout.forEach(slots::declare);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package it.game.framework.states;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This GameState has an asynchronous action, the action starts an operation
+ * (e.g. a database query or a call to a remote service) and returns a CompletionStage
+ * that completes when the operation is done.
+ * <br>The AsyncExecutor suspends the machine while the stage is pending without
+ * holding a thread, the other executors execute the state synchronously waiting for the stage.
+ */
+public abstract class AsyncGameState extends GameState {
+
+    public AsyncGameState(String name, String description) {
+        super(name, description);
+    }
+
+    public AsyncGameState(String name) {
+        super(name);
+    }
+
+    public AsyncGameState() {
+        super();
+    }
+
+    /**
+     * The asynchronous action that will be executed during the execution of the state into the StateMachine,
+     * the action must not block and the context must not be modified after the stage completes
+     * @param c The GameContext
+     * @return The stage that completes when the action is done
+     */
+    public abstract CompletionStage<?> executeAsync(GameContext c);
+
+    /**
+     * Executes the asynchronous action and waits for its stage
+     * @param c The GameContext
+     * @throws GameException The exception of the stage, exceptions that aren't GameExceptions
+     *                       are wrapped into an ASYNC_STATE_EXCEPTION
+     */
+    @Override
+    public void execute(GameContext c) throws GameException {
+        try {
+            executeAsync(c).toCompletableFuture().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw wrap(e);
+        } catch (ExecutionException e) {
+            throw wrap(e.getCause());
+        }
+    }
+
+    /**
+     * Converts the exception of a stage into a GameException
+     * @param t The exception that completed the stage
+     * @return The GameException itself or an ASYNC_STATE_EXCEPTION that wraps the exception
+     */
+    public static GameException wrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        if (t instanceof GameException) return (GameException) t;
+        ExceptionLibrary.Entry entry = ExceptionLibrary.get("ASYNC_STATE_EXCEPTION");
+        return new GameException(entry.getHash(), entry.getMessage() + " - " + t, t);
+    }
+}
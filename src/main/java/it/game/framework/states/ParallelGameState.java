@@ -0,0 +1,220 @@
+package it.game.framework.states;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.ThreadedExecutor;
+import it.game.framework.statemachines.StateMachine;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * This special GameState is a parallel region, it forks several sub-machines
+ * onto a pool and joins on all, any or the first N of them. By default the branches
+ * run on the shared pool of the ThreadedExecutor, a ForkJoinPool can be given to bound
+ * the parallelism, the common pool is a poor choice since GameStates may block.
+ * <br>Each branch runs its StateMachine with a GameContext chosen by the branch:
+ * the context of the parent machine, its own context or a new scoped context
+ * created for every execution. The branches that share the context of the parent machine
+ * don't clear its changed keys, so the callbacks of the parent see all the keys changed by the branches.
+ * When the join is satisfied the branches still running
+ * are cancelled. The exceptions of a branch are routed through the ExceptionStateConnections
+ * of its own machine first, the first branch that ends with an exception that its machine
+ * didn't handle fails the parallel state, the exception is rethrown to the parent machine
+ * so it can be handled by its ExceptionStateConnections.
+ * <br>The state is asynchronous: the AsyncExecutor suspends the parent machine
+ * until the join, the other executors wait for it.
+ */
+@Getter
+@Setter
+public class ParallelGameState extends AsyncGameState {
+
+    /**
+     * How many branches must complete before the parent machine continues
+     */
+    public enum JoinMode {
+        /**
+         * Waits for all the branches
+         */
+        ALL,
+        /**
+         * Waits for the first branch, the others are cancelled
+         */
+        ANY,
+        /**
+         * Waits for the first N branches, the others are cancelled
+         */
+        FIRST_N
+    }
+
+    /**
+     * A sub-machine of the parallel region with the strategy that
+     * selects its GameContext from the context of the parent machine
+     */
+    @Getter
+    public static class Branch {
+
+        private final StateMachine stateMachine;
+        private final Function<GameContext, GameContext> contextSelector;
+
+        public Branch(StateMachine stateMachine, Function<GameContext, GameContext> contextSelector) {
+            this.stateMachine = stateMachine;
+            this.contextSelector = contextSelector;
+        }
+
+        /**
+         * Creates a branch that runs on the context of the parent machine,
+         * the context must be thread safe since the branches run concurrently
+         * @param stateMachine The StateMachine of the branch
+         * @return The branch
+         */
+        public static Branch shared(StateMachine stateMachine) {
+            return new Branch(stateMachine, c -> c);
+        }
+
+        /**
+         * Creates a branch that runs on its own context
+         * @param stateMachine The StateMachine of the branch
+         * @param context The GameContext of the branch
+         * @return The branch
+         */
+        public static Branch own(StateMachine stateMachine, GameContext context) {
+            return new Branch(stateMachine, c -> context);
+        }
+
+        /**
+         * Creates a branch that runs on a new SimpleContext for every execution,
+         * the context is filled with the listed keys of the parent context
+         * @param stateMachine The StateMachine of the branch
+         * @param keys The keys copied from the parent context
+         * @return The branch
+         */
+        public static Branch scoped(StateMachine stateMachine, String... keys) {
+            return new Branch(stateMachine, c -> {
+                GameContext scope = new SimpleContext();
+                for (String key : keys) {
+                    try {
+                        if (c.contains(key)) scope.put(key, c.get(key));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return scope;
+            });
+        }
+    }
+
+    private final List<Branch> branches;
+    private JoinMode joinMode;
+    private int joinCount;
+    private ExecutorService pool;
+    /**
+     * The key where the contexts of the completed branches are stored into
+     * the parent context in order of completion, if null they are not stored
+     */
+    private String resultKey;
+
+    public ParallelGameState(JoinMode joinMode, List<Branch> branches) {
+        this(joinMode, branches.size(), ThreadedExecutor.sharedPool(), branches);
+    }
+
+    public ParallelGameState(JoinMode joinMode, int joinCount, ExecutorService pool, List<Branch> branches) {
+        super("ParallelGameState", "Executes state machines in parallel and joins them");
+        this.joinMode = joinMode;
+        this.joinCount = joinCount;
+        this.pool = pool;
+        this.branches = branches;
+    }
+
+    /**
+     * Returns the number of branches that must complete, depending on the JoinMode
+     * @return The number of branches to wait for
+     */
+    public int getRequiredBranches() {
+        switch (joinMode) {
+            case ANY:
+                return Math.min(1, branches.size());
+            case FIRST_N:
+                return joinCount;
+            default:
+                return branches.size();
+        }
+    }
+
+    /**
+     * Forks the branches onto the pool and returns the stage that completes
+     * when the join is satisfied or fails with the exception of the first failed branch
+     * @param c The GameContext
+     * @return The stage of the join
+     */
+    @Override
+    public CompletionStage<?> executeAsync(GameContext c) {
+        int required = getRequiredBranches();
+        if (required < 0 || required > branches.size()) {
+            return CompletableFuture.failedFuture(new GameException(ExceptionLibrary.get("PARALLEL_BRANCH_EXCEPTION"),
+                    String.format("cannot join %d of %d branches", required, branches.size())));
+        }
+        CompletableFuture<Void> joined = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(required);
+        List<GameContext> completed = Collections.synchronizedList(new ArrayList<>(required));
+        List<ThreadedExecutor> executors = new ArrayList<>(branches.size());
+        if (required == 0) joined.complete(null);
+        for (Branch branch : branches) {
+            if (joined.isDone()) break;
+            ThreadedExecutor executor = new ThreadedExecutor(pool);
+            executor.setStateMachine(branch.getStateMachine());
+            try {
+                executor.setContext(branch.getContextSelector().apply(c));
+                executor.setClearingChanges(executor.getContext() != c);
+            } catch (RuntimeException e) {
+                joined.completeExceptionally(unwrap(e));
+                break;
+            }
+            executors.add(executor);
+            executor.submit().whenComplete((context, t) -> {
+                if (t == null && executor.getUnhandledException() != null) {
+                    joined.completeExceptionally(unwrap(executor.getUnhandledException()));
+                } else if (t == null) {
+                    completed.add(context);
+                    if (remaining.decrementAndGet() == 0) joined.complete(null);
+                } else if (!(t instanceof CancellationException)) {
+                    joined.completeExceptionally(unwrap(t));
+                }
+            });
+        }
+        return joined.whenComplete((v, t) -> {
+            for (ThreadedExecutor executor : executors) executor.cancel();
+        }).thenRun(() -> {
+            if (resultKey != null) {
+                synchronized (completed) {
+                    c.put(resultKey, new ArrayList<>(completed));
+                }
+            }
+        });
+    }
+
+    /**
+     * Converts the exception that ended a branch into the GameException rethrown to the parent machine
+     * @param t The exception of the branch
+     * @return The GameException of the branch or a PARALLEL_BRANCH_EXCEPTION that wraps the exception
+     */
+    private static GameException unwrap(Throwable t) {
+        while (!(t instanceof GameException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        if (t instanceof GameException) return (GameException) t;
+        ExceptionLibrary.Entry entry = ExceptionLibrary.get("PARALLEL_BRANCH_EXCEPTION");
+        return new GameException(entry.getHash(), entry.getMessage() + " - " + t, t);
+    }
+}
@@ -0,0 +1,60 @@
+package it.game.framework.timers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The handle of a task scheduled into a TimingWheel, the handle
+ * is also the node of the bucket that contains it, so it can be
+ * unlinked from the wheel in constant time
+ */
+public final class Timeout {
+
+    static final int PENDING = 0;
+    static final int CANCELLED = 1;
+    static final int EXPIRED = 2;
+
+    private final TimingWheel wheel;
+    private final Runnable task;
+    final long deadlineNanos;
+    final AtomicInteger status = new AtomicInteger(PENDING);
+    long deadlineTick;
+    TimingWheel.Bucket bucket;
+    Timeout previous;
+    Timeout next;
+
+    Timeout(TimingWheel wheel, Runnable task, long deadlineNanos) {
+        this.wheel = wheel;
+        this.task = task;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Cancels the task if it isn't already expired
+     * @return True if the task has been cancelled, false if it was already expired or cancelled
+     */
+    public boolean cancel() {
+        if (!status.compareAndSet(PENDING, CANCELLED)) return false;
+        wheel.cancelled(this);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return status.get() == CANCELLED;
+    }
+
+    public boolean isExpired() {
+        return status.get() == EXPIRED;
+    }
+
+    /**
+     * Returns the deadline of the task
+     * @return The deadline as a {@link System#nanoTime()} value
+     */
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    Runnable getTask() {
+        return task;
+    }
+}
@@ -0,0 +1,263 @@
+package it.game.framework.timers;
+
+import it.game.framework.exceptions.GameException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hierarchical timing wheel that runs delayed tasks.
+ * <br>The wheel has several levels of buckets: the buckets of the first level
+ * cover a tick each, the buckets of every following level cover a whole rotation
+ * of the previous one. A task is put into the bucket of the lowest level that can
+ * contain its deadline and, when the lower levels reach that bucket, the tasks are
+ * cascaded down until they expire on the first level.
+ * <br>Scheduling and cancelling a task cost O(1): the task is queued by the caller and linked
+ * into its bucket by the thread of the wheel, cancelled tasks are unlinked from their bucket.
+ * The pending tasks cost nothing until their bucket is reached, so millions of timers
+ * can be pending at the same time.
+ * <br>The tasks run on the thread of the wheel, so they must be short (e.g. waking a session).
+ */
+@Slf4j
+public class TimingWheel implements AutoCloseable {
+
+    /**
+     * A doubly linked list of Timeouts
+     */
+    static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout t) {
+            t.bucket = this;
+            t.previous = tail;
+            t.next = null;
+            if (tail == null) head = t;
+            else tail.next = t;
+            tail = t;
+        }
+
+        void remove(Timeout t) {
+            if (t.previous == null) head = t.next;
+            else t.previous.next = t.next;
+            if (t.next == null) tail = t.previous;
+            else t.next.previous = t.previous;
+            t.previous = t.next = null;
+            t.bucket = null;
+        }
+
+        Timeout poll() {
+            Timeout t = head;
+            if (t != null) remove(t);
+            return t;
+        }
+    }
+
+    private static volatile TimingWheel shared;
+
+    @Getter
+    private final long tickNanos;
+    private final int bits;
+    private final int mask;
+    private final Bucket[][] levels;
+    private final long startNanos;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long currentTick;
+
+    /**
+     * Creates a wheel with 6 levels of 64 buckets
+     * @param tick The duration of a tick, the precision of the wheel
+     * @param unit The unit of the tick
+     */
+    public TimingWheel(long tick, TimeUnit unit) {
+        this(tick, unit, 64, 6);
+    }
+
+    /**
+     * Creates and starts a wheel
+     * @param tick The duration of a tick, the precision of the wheel
+     * @param unit The unit of the tick
+     * @param wheelSize The number of buckets of each level, rounded up to a power of two
+     * @param levelCount The number of levels, the wheel covers wheelSize^levelCount ticks
+     *                   and farther deadlines are cascaded from the last level more times
+     */
+    public TimingWheel(long tick, TimeUnit unit, int wheelSize, int levelCount) {
+        if (tick <= 0 || wheelSize < 2 || levelCount < 1) throw new IllegalArgumentException("Invalid timing wheel configuration");
+        this.tickNanos = unit.toNanos(tick);
+        this.bits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        this.mask = (1 << bits) - 1;
+        this.levels = new Bucket[Math.min(levelCount, 62 / bits)][1 << bits];
+        for (Bucket[] level : levels) {
+            for (int i = 0; i < level.length; i++) level[i] = new Bucket();
+        }
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, "timing-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Returns the wheel shared by the whole application, a wheel
+     * with a tick of 10 milliseconds that is created at the first use
+     * @return The shared wheel
+     */
+    public static TimingWheel shared() {
+        if (shared == null) {
+            synchronized (TimingWheel.class) {
+                if (shared == null) shared = new TimingWheel(10, TimeUnit.MILLISECONDS);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Schedules a task, can be called by any thread
+     * @param task The task to run on the thread of the wheel
+     * @param delay The delay after which the task runs
+     * @param unit The unit of the delay
+     * @return The handle to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return scheduleAt(task, System.nanoTime() + unit.toNanos(Math.max(delay, 0)));
+    }
+
+    /**
+     * Schedules a task at a deadline, can be called by any thread
+     * @param task The task to run on the thread of the wheel
+     * @param deadlineNanos The deadline as a {@link System#nanoTime()} value
+     * @return The handle to cancel the task
+     */
+    public Timeout scheduleAt(Runnable task, long deadlineNanos) {
+        if (!running) throw new IllegalStateException("The timing wheel is closed");
+        Timeout timeout = new Timeout(this, task, deadlineNanos);
+        pending.incrementAndGet();
+        scheduled.offer(timeout);
+        return timeout;
+    }
+
+    void cancelled(Timeout timeout) {
+        pending.decrementAndGet();
+        cancelled.offer(timeout);
+    }
+
+    /**
+     * Returns the number of tasks scheduled and not yet expired or cancelled
+     * @return The number of pending tasks
+     */
+    public long getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Returns the number of tasks that have been run
+     * @return The number of expired tasks
+     */
+    public long getExpired() {
+        return expired.get();
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickNanos = startNanos + (currentTick + 1) * tickNanos;
+            long wait = nextTickNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            currentTick++;
+            transferCancelled();
+            transferScheduled();
+            cascade();
+            expire();
+        }
+    }
+
+    private void transferScheduled() {
+        Timeout t;
+        while ((t = scheduled.poll()) != null) {
+            if (t.status.get() != Timeout.PENDING) continue;
+            long offset = t.deadlineNanos - startNanos;
+            t.deadlineTick = offset <= 0 ? 0 : (offset + tickNanos - 1) / tickNanos;
+            place(t);
+        }
+    }
+
+    private void transferCancelled() {
+        Timeout t;
+        while ((t = cancelled.poll()) != null) {
+            if (t.bucket != null) t.bucket.remove(t);
+        }
+    }
+
+    /**
+     * Links the Timeout into the bucket of the lowest level that contains its deadline,
+     * the deadlines already passed are put into the current bucket of the first level
+     */
+    private void place(Timeout t) {
+        long tick = Math.max(t.deadlineTick, currentTick);
+        long distance = tick - currentTick;
+        for (int level = 0; level < levels.length; level++) {
+            if (distance < 1L << (bits * (level + 1))) {
+                levels[level][(int) (tick >>> (bits * level)) & mask].add(t);
+                return;
+            }
+        }
+        int last = levels.length - 1;
+        levels[last][(int) ((currentTick >>> (bits * last)) - 1) & mask].add(t);
+    }
+
+    /**
+     * Moves the tasks of the upper levels to the lower ones when
+     * the lower levels complete a rotation
+     */
+    private void cascade() {
+        for (int level = levels.length - 1; level > 0; level--) {
+            if ((currentTick & ((1L << (bits * level)) - 1)) != 0) continue;
+            Bucket bucket = levels[level][(int) (currentTick >>> (bits * level)) & mask];
+            Timeout t;
+            while ((t = bucket.poll()) != null) place(t);
+        }
+    }
+
+    private void expire() {
+        Bucket bucket = levels[0][(int) currentTick & mask];
+        Timeout t;
+        while ((t = bucket.poll()) != null) {
+            if (t.deadlineTick > currentTick) {
+                place(t);
+                continue;
+            }
+            if (!t.status.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) continue;
+            pending.decrementAndGet();
+            expired.incrementAndGet();
+            try {
+                t.getTask().run();
+            } catch (RuntimeException e) {
+                log.error(GameException.format(e, worker.getName()));
+            }
+        }
+    }
+
+    /**
+     * Stops the wheel, the pending tasks are not run
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        synchronized (TimingWheel.class) {
+            if (shared == this) shared = null;
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package it.game.framework.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the JMH benchmarks of the framework with fixed settings so that
+ * the results of different commits can be compared.
+ * <br>The benchmarks are run by the {@code benchmark} maven profile:<br><br>
+ * {@code mvn -P benchmark -DskipTests test}<br>
+ * {@code mvn -P benchmark -DskipTests -Dbenchmark.include=ContextBenchmark test}<br><br>
+ * The results are written as JSON in {@code target/jmh-result.json}, the file
+ * can be compared with the one of another commit with any JMH visualizer.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * @param args The first argument is the regex of the benchmarks to run (default all of them),
+     *             the second one is the path of the result file
+     * @throws RunnerException If the benchmarks fail
+     */
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 && !args[0].isBlank() ? args[0] : ".*Benchmark.*";
+        String result = args.length > 1 ? args[1] : "target/jmh-result.json";
+        new File(result).getAbsoluteFile().getParentFile().mkdirs();
+        new Runner(new OptionsBuilder()
+                .include(include)
+                .forks(1)
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .jvmArgs("-Xms1g", "-Xmx1g")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build()).run();
+    }
+}
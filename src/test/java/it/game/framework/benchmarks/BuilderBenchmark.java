@@ -0,0 +1,104 @@
+package it.game.framework.benchmarks;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.builders.YamlBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.serializations.Serializer;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.statemachines.StateMachineData;
+import it.game.framework.states.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to build a machine from a yaml file with the YamlBuilder
+ * and the time to save and load a machine with the Serializer.
+ * The YamlBuilder compiles every expression at runtime and a build takes seconds,
+ * so it is measured as single shots.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuilderBenchmark {
+
+    public static class Noop extends GameState {
+
+        @Override
+        public void execute(GameContext c) {
+        }
+    }
+
+    @Param({"10", "100"})
+    int states;
+
+    String yamlPath;
+    String serializedPath;
+    StateMachine machine;
+
+    @Setup
+    public void setup() throws IOException {
+        Benchmarks.quietLogging();
+        StringBuilder yaml = new StringBuilder("globals:\n")
+                .append("  - expression: \"{{fs:Integer}} < 0\"\n")
+                .append("    target: s0\n")
+                .append("states:\n");
+        for (int i = 0; i < states; i++) {
+            yaml.append("  - name: s").append(i).append("\n")
+                    .append("    classname: ").append(Noop.class.getName()).append("\n")
+                    .append("    connections:\n")
+                    .append("      - expression: \"{{fs:Integer}} > ").append(i).append("\"\n")
+                    .append("        target: s0\n")
+                    .append("      - expression: GOTO\n")
+                    .append("        target: ").append(i + 1 < states ? "s" + (i + 1) : "EXIT").append("\n");
+        }
+        File yamlFile = File.createTempFile("builder-benchmark", ".yaml");
+        yamlFile.deleteOnExit();
+        Files.writeString(yamlFile.toPath(), yaml);
+        yamlPath = yamlFile.getPath();
+
+        File serialized = File.createTempFile("builder-benchmark", ".gfobject");
+        serialized.deleteOnExit();
+        serializedPath = serialized.getPath();
+
+        machine = new StateMachine();
+        StepBuilder builder = StepBuilder.builder(machine);
+        GameState previous = null;
+        for (int i = 0; i < states; i++) {
+            GameState s = new Noop();
+            if (previous == null) builder.addStartingState(s);
+            else builder.addGameState(s);
+            if (previous != null) builder.addDirectConnection(previous, s);
+            previous = s;
+        }
+        builder.build();
+        Serializer.save(new StateMachineData(machine), serializedPath);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public StateMachine yamlBuild() {
+        StateMachine m = new StateMachine();
+        YamlBuilder.builder(m, yamlPath).build();
+        return m;
+    }
+
+    @Benchmark
+    public void serializerSave() {
+        Serializer.save(new StateMachineData(machine), serializedPath);
+    }
+
+    @Benchmark
+    public StateMachineData serializerLoad() {
+        return Serializer.load(serializedPath);
+    }
+}
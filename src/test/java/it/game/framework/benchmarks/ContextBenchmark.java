@@ -0,0 +1,107 @@
+package it.game.framework.benchmarks;
+
+import it.game.framework.contexts.ContextKey;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.GuavaContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.contexts.SlotContext;
+import it.game.framework.contexts.SlotLayout;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the get, put and contains operations of the
+ * GameContext implementations with different numbers of keys.
+ * Every invocation accesses the next key so all the keys are visited.
+ * The Key benchmarks access the same keys with ContextKey handles, for the SlotContext
+ * the handles are declared in its layout and the String methods resolve the slot through the layout.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextBenchmark {
+
+    @Param({"SimpleContext", "GuavaContext", "SlotContext"})
+    String implementation;
+
+    /**
+     * The GuavaContext evicts entries near its 1000 entries limit, so the keys stay below it
+     */
+    @Param({"10", "100", "250"})
+    int keys;
+
+    GameContext context;
+    String[] names;
+    ContextKey<Integer>[] handles;
+    int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        Benchmarks.quietLogging();
+        SlotLayout layout = implementation.equals("SlotContext") ? new SlotLayout() : null;
+        names = new String[keys];
+        handles = new ContextKey[keys];
+        for (int i = 0; i < keys; i++) {
+            names[i] = "key" + i;
+            handles[i] = layout == null ? ContextKey.of(names[i], Integer.class) : ContextKey.of(layout, names[i], Integer.class);
+        }
+        context = layout == null ? create(implementation) : new SlotContext(layout);
+        for (int i = 0; i < keys; i++) context.put(names[i], i);
+    }
+
+    static GameContext create(String implementation) {
+        switch (implementation) {
+            case "SimpleContext":
+                return new SimpleContext();
+            case "GuavaContext":
+                return new GuavaContext();
+            default:
+                throw new IllegalArgumentException(implementation);
+        }
+    }
+
+    String nextKey() {
+        if (++next == keys) next = 0;
+        return names[next];
+    }
+
+    ContextKey<Integer> nextHandle() {
+        if (++next == keys) next = 0;
+        return handles[next];
+    }
+
+    @Benchmark
+    public Integer get() throws Exception {
+        return context.get(nextKey(), Integer.class);
+    }
+
+    @Benchmark
+    public void put() {
+        context.put(nextKey(), next);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return context.contains(nextKey());
+    }
+
+    @Benchmark
+    public Integer getKey() throws Exception {
+        return context.get(nextHandle());
+    }
+
+    @Benchmark
+    public void putKey() {
+        context.put(nextHandle(), next);
+    }
+
+    @Benchmark
+    public boolean containsKey() {
+        return context.contains(nextHandle());
+    }
+}
@@ -0,0 +1,76 @@
+package it.game.framework.benchmarks;
+
+import it.game.framework.contexts.ConcurrentContext;
+import it.game.framework.contexts.GameContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the GameContext implementations when several threads share the same context,
+ * with a mix of 90% reads and 10% writes and with read-modify-write increments.
+ * The SimpleContext is not thread safe, so it is guarded by a global lock like the
+ * sessions that share it have to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ContextContentionBenchmark {
+
+    @Param({"SimpleContext", "GuavaContext", "ConcurrentContext"})
+    String implementation;
+
+    @Param({"16", "256"})
+    int keys;
+
+    GameContext context;
+    String[] names;
+    boolean locked;
+
+    @Setup
+    public void setup() {
+        Benchmarks.quietLogging();
+        locked = implementation.equals("SimpleContext");
+        context = implementation.equals("ConcurrentContext") ? new ConcurrentContext() : ContextBenchmark.create(implementation);
+        names = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            names[i] = "key" + i;
+            context.put(names[i], i);
+        }
+    }
+
+    @Benchmark
+    public Object mixed() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String key = names[random.nextInt(keys)];
+        boolean write = random.nextInt(10) == 0;
+        if (locked) {
+            synchronized (context) {
+                return access(key, write);
+            }
+        }
+        return access(key, write);
+    }
+
+    private Object access(String key, boolean write) throws Exception {
+        if (!write) return context.get(key);
+        context.put(key, 1);
+        return null;
+    }
+
+    @Benchmark
+    public int increment() throws Exception {
+        String key = names[ThreadLocalRandom.current().nextInt(keys)];
+        if (context instanceof ConcurrentContext) return ((ConcurrentContext) context).increment(key, 1);
+        synchronized (context) {
+            int value = context.<Integer>get(key) + 1;
+            context.put(key, value);
+            return value;
+        }
+    }
+}
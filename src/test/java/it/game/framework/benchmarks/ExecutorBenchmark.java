@@ -0,0 +1,106 @@
+package it.game.framework.benchmarks;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.executors.GameExecutor;
+import it.game.framework.executors.SteppedExecutor;
+import it.game.framework.stateconnections.DirectStateConnection;
+import it.game.framework.stateconnections.GameStateConnection;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the steps per second of the GameExecutor and the SteppedExecutor
+ * on machines of different sizes. The machine is a chain of GameStates where every
+ * GameState has a conditional connection and a direct one to the next GameState.
+ * The GameExecutor runs the whole chain to the EXIT, the SteppedExecutor
+ * loops on the chain forever. The steps are reported by the "steps" counter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutorBenchmark {
+
+    public static class Step extends GameState {
+
+        @Override
+        public void execute(GameContext c) {
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Steps {
+        public long steps;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            steps = 0;
+        }
+    }
+
+    @Param({"10", "1000", "100000"})
+    int states;
+
+    GameExecutor gameExecutor;
+    SteppedExecutor steppedExecutor;
+
+    @Setup
+    public void setup() {
+        Benchmarks.quietLogging();
+        GameContext context = new SimpleContext();
+        context.put("fs", 0);
+
+        gameExecutor = new GameExecutor();
+        gameExecutor.setStateMachine(chain(false));
+        gameExecutor.setContext(context);
+
+        steppedExecutor = new SteppedExecutor();
+        steppedExecutor.setStateMachine(chain(true));
+        steppedExecutor.setContext(context);
+        steppedExecutor.step();
+    }
+
+    /**
+     * Builds a chain of GameStates, the machine is compiled without the checks
+     * of the StepBuilder that are quadratic on the number of GameStates
+     * @param loop If true the last GameState is connected to the first one, otherwise to the EXIT
+     * @return The machine
+     */
+    StateMachine chain(boolean loop) {
+        StateMachine machine = new StateMachine();
+        GameState[] s = new GameState[states];
+        for (int i = 0; i < states; i++) {
+            s[i] = new Step();
+            machine.getStates().add(s[i]);
+        }
+        for (int i = 0; i < states; i++) {
+            GameState next = i + 1 < states ? s[i + 1] : loop ? s[0] : null;
+            machine.getConnections().add(new GameStateConnection("fs>0", s[i], (c) -> c.<Integer>get("fs") > 0, s[0]));
+            machine.getConnections().add(new DirectStateConnection(s[i], next));
+        }
+        machine.setStartState(s[0]);
+        machine.invalidate();
+        machine.compile();
+        return machine;
+    }
+
+    @Benchmark
+    public GameState gameExecutor(Steps steps) {
+        gameExecutor.execute();
+        steps.steps += states;
+        return gameExecutor.getCurrentGameState();
+    }
+
+    @Benchmark
+    public GameState steppedExecutor(Steps steps) {
+        steps.steps++;
+        return steppedExecutor.step();
+    }
+}
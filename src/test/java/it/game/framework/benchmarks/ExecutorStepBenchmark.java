@@ -0,0 +1,82 @@
+package it.game.framework.benchmarks;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.executors.SteppedExecutor;
+import it.game.framework.executors.interfaces.ExecutorCallback;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single steady-state step of the SteppedExecutor on a cyclic machine
+ * with a conditional connection, direct connections, a global connection and a callback.
+ * Run it with the GC profiler to check the allocation rate of the hot path,
+ * the expected gc.alloc.rate.norm is 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutorStepBenchmark {
+
+    public static class Step extends GameState {
+
+        @Override
+        public void execute(GameContext c) {
+        }
+    }
+
+    public static class Monitor extends ExecutorCallback {
+    }
+
+    SteppedExecutor executor;
+
+    @Setup
+    public void setup() {
+        Benchmarks.quietLogging();
+        Step a = new Step();
+        Step b = new Step();
+        Step c = new Step();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(a)
+                .addConnectionFromLastState("fs>0", (ctx) -> ctx.<Integer>get("fs") > 0, b)
+                .addDirectConnectionFromLastState(c)
+                .addGameState(b)
+                .addDirectConnectionFromLastState(c)
+                .addGameState(c)
+                .addDirectConnectionFromLastState(a)
+                .addGlobalConnection("fs<0", (ctx) -> ctx.<Integer>get("fs") < 0, c)
+                .build();
+
+        GameContext context = new SimpleContext();
+        context.put("fs", 1);
+        executor = new SteppedExecutor();
+        executor.setStateMachine(machine);
+        executor.setContext(context);
+        executor.setCallbacks(new Monitor());
+        executor.step();
+    }
+
+    @Benchmark
+    public GameState step() {
+        return executor.step();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExecutorStepBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package it.game.framework.benchmarks;
+
+import it.game.framework.builders.YamlBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.stateconnections.interfaces.Expression;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the evaluation of the Expressions generated by the YamlBuilder
+ * from strings with the same Expressions written by hand.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    public static class Noop extends GameState {
+
+        @Override
+        public void execute(GameContext c) {
+        }
+    }
+
+    static final String YAML = "states:\n" +
+            "  - name: a\n" +
+            "    classname: " + Noop.class.getName() + "\n" +
+            "    connections:\n" +
+            "      - expression: \"{{val1:Integer}} > 5\"\n" +
+            "        target: b\n" +
+            "      - expression: \"{{val2:String}}.equals(\\\"Ciao\\\")\"\n" +
+            "        target: b\n" +
+            "  - name: b\n" +
+            "    classname: " + Noop.class.getName() + "\n";
+
+    GameContext context;
+    Expression yamlInteger;
+    Expression yamlString;
+    Expression handInteger;
+    Expression handString;
+
+    @Setup
+    public void setup() throws IOException {
+        Benchmarks.quietLogging();
+        File yaml = File.createTempFile("expression-benchmark", ".yaml");
+        yaml.deleteOnExit();
+        Files.writeString(yaml.toPath(), YAML);
+        StateMachine machine = new StateMachine();
+        YamlBuilder.builder(machine, yaml.getPath()).build();
+
+        yamlInteger = machine.getConnections().get(0).getExpression();
+        yamlString = machine.getConnections().get(1).getExpression();
+        handInteger = (c) -> c.get("val1", Integer.class) > 5;
+        handString = (c) -> c.get("val2", String.class).equals("Ciao");
+
+        context = new SimpleContext();
+        context.put("val1", 10);
+        context.put("val2", "Ciao");
+    }
+
+    @Benchmark
+    public boolean yamlInteger() throws Exception {
+        return yamlInteger.check(context);
+    }
+
+    @Benchmark
+    public boolean handInteger() throws Exception {
+        return handInteger.check(context);
+    }
+
+    @Benchmark
+    public boolean yamlString() throws Exception {
+        return yamlString.check(context);
+    }
+
+    @Benchmark
+    public boolean handString() throws Exception {
+        return handString.check(context);
+    }
+}
@@ -0,0 +1,97 @@
+package it.game.framework.benchmarks;
+
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the mapping of a dao through the cached MappingPlans of
+ * {@link GameContext#mapTo} and {@link GameContext#mapFrom} with the reflective path
+ * they replaced, which listed the fields and made them accessible at every call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    public static class Dao {
+        private Integer hp;
+        private Long xp;
+        private Double speed;
+        private Boolean alive;
+        private String name;
+        private List<String> items;
+    }
+
+    GameContext context;
+    Dao dao;
+
+    @Setup
+    public void setup() {
+        Benchmarks.quietLogging();
+        context = new SimpleContext();
+        context.put("hp", 100);
+        context.put("xp", 5L);
+        context.put("speed", 1.5d);
+        context.put("alive", true);
+        context.put("name", "player");
+        context.put("items", List.of("sword"));
+        dao = context.mapTo(new Dao());
+    }
+
+    @Benchmark
+    public Dao mapTo() {
+        return context.mapTo(dao);
+    }
+
+    @Benchmark
+    public Dao reflectiveMapTo() {
+        return reflectiveMapTo(context, dao);
+    }
+
+    @Benchmark
+    public GameContext mapFrom() {
+        context.mapFrom(dao);
+        return context;
+    }
+
+    @Benchmark
+    public GameContext reflectiveMapFrom() throws IllegalAccessException {
+        for (Field f : dao.getClass().getDeclaredFields()) {
+            f.setAccessible(true);
+            context.put(f.getName(), f.get(dao));
+        }
+        return context;
+    }
+
+    /**
+     * The previous implementation of mapTo, with the logging at info level
+     */
+    static <V> V reflectiveMapTo(GameContext context, V instance) {
+        org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GameContext.class);
+        log.info("Starting to map GameContext into class {}", instance.getClass().getSimpleName());
+        for (Field f : instance.getClass().getDeclaredFields()) {
+            if (context.contains(f.getName())) {
+                try {
+                    f.setAccessible(true);
+                    var data = context.get(f.getName(), f.getType());
+                    f.set(instance, data);
+                    log.info("Field {}:{} popultated with: {}", f.getName(), f.getType().getSimpleName(), data);
+                } catch (Exception e) {
+                    log.error(e.getMessage());
+                }
+            } else {
+                log.warn("Field {} is not inside the GameContext", f.getName());
+            }
+        }
+        log.info("Finish to map GameContext into class {}", instance.getClass().getSimpleName());
+        return instance;
+    }
+}
@@ -1,9 +1,14 @@
 package it.game.framework.builders;
 
+import it.game.framework.contexts.SlotContext;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
 import it.game.framework.renderers.Renderer;
 import it.game.framework.stateconnections.DirectStateConnection;
 import it.game.framework.stateconnections.ExceptionStateConnection;
+import it.game.framework.stateconnections.TimedStateConnection;
 import it.game.framework.statemachines.StateMachine;
+import it.game.framework.statemachines.StateMachineData;
 import it.game.framework.testclasses.GameStateA;
 import it.game.framework.testclasses.GameStateB;
 import it.game.framework.testclasses.GameStateC;
@@ -13,6 +18,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.io.ObjectStreamClass;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 @RunWith(SpringRunner.class)
@@ -48,6 +58,76 @@ class YamlBuilderTest {
         assert(machine.getGlobalConnections().get(1).getStartingState() == null && machine.getGlobalConnections().get(1).getResultState() == null);
         assert(machine.getGlobalConnections().get(1) instanceof ExceptionStateConnection);
 
+        assertEquals(2, machine.getLayout().size());
+        assertEquals(0, machine.getLayout().slotOf("val1"));
+        assertEquals(1, machine.getLayout().slotOf("val3"));
+        SlotContext context = new SlotContext(machine.getLayout());
+        context.put("val1", 7);
+        context.put("val3", "Ciao");
+        assert(machine.getConnections().get(0).checkExpression(context));
+        assert(machine.getConnections().get(2).checkExpression(context));
+        assert(!machine.getGlobalConnections().get(0).checkExpression(context));
+
+
+    }
+
+    @Test
+    void layoutPersisted() throws Exception {
+        StateMachine machine = new StateMachine();
+        YamlBuilder.builder(machine, yamlpath).build();
+        StateMachineData data = new StateMachineData(machine);
+
+        StateMachine restored = new StateMachine();
+        data.populate(restored);
+        assertEquals(2, restored.getLayout().size());
+        assertEquals(0, restored.getLayout().slotOf("val1"));
+        assertEquals(1, restored.getLayout().slotOf("val3"));
+        SlotContext context = new SlotContext(restored.getLayout());
+        context.put("val1", 7);
+        assertTrue(restored.getConnections().get(0).checkExpression(context));
+
+        StateMachine conflicting = new StateMachine();
+        conflicting.getLayout().declare("val3");
+        conflicting.getLayout().declare("val4");
+        GameException e = assertThrows(GameException.class, () -> data.populate(conflicting));
+        assertEquals(ExceptionLibrary.get("LAYOUT_SLOT_CONFLICT").getHash(), e.hashCode());
+        assertNull(conflicting.getStartState());
+        assertEquals(2, conflicting.getLayout().size());
+        assertEquals(-1, conflicting.getLayout().slotOf("val1"));
+
+        assertEquals(6905780690711952703L, ObjectStreamClass.lookup(StateMachineData.class).getSerialVersionUID());
+    }
+
+    private static StateMachine buildTimed(String expression) throws Exception {
+        Path yaml = Files.createTempFile("timed", ".yaml");
+        try {
+            Files.writeString(yaml, "states:\n"
+                    + "  - name: a\n"
+                    + "    classname: it.game.framework.testclasses.GameStateA\n"
+                    + "    connections:\n"
+                    + "      - expression: \"" + expression + "\"\n"
+                    + "        target: b\n"
+                    + "  - name: b\n"
+                    + "    classname: it.game.framework.testclasses.GameStateB\n");
+            StateMachine machine = new StateMachine();
+            YamlBuilder.builder(machine, yaml.toString()).build();
+            return machine;
+        } finally {
+            Files.delete(yaml);
+        }
+    }
+
+    @Test
+    void timedConnection() throws Exception {
+        StateMachine machine = buildTimed("AFTER:30s");
+        assertEquals(1, machine.getConnections().size());
+        assertTrue(machine.getConnections().get(0) instanceof TimedStateConnection);
+        assertEquals(Duration.ofSeconds(30), ((TimedStateConnection) machine.getConnections().get(0)).getDelay());
 
+        for (String invalid : new String[]{"AFTER", "AFTER:", "AFTER: ", "AFTER:soon", "AFTER:1s:2s"}) {
+            machine = buildTimed(invalid);
+            assertEquals(2, machine.getStates().size());
+            assertTrue(machine.getConnections().isEmpty(), invalid);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package it.game.framework.contexts;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class ChangeTrackerTest {
+
+    @Test
+    void tracker() {
+        ChangeTracker tracker = new ChangeTracker();
+        for (int i = 0; i < 100; i++) assertTrue(tracker.add("key" + i));
+        assertFalse(tracker.add("key5"));
+        assertEquals(100, tracker.size());
+        assertEquals("key0", tracker.get(0));
+        assertEquals("key99", tracker.get(99));
+        assertTrue(tracker.contains("key42"));
+        assertThrows(IndexOutOfBoundsException.class, () -> tracker.get(100));
+
+        tracker.clear();
+        assertTrue(tracker.isEmpty());
+        assertFalse(tracker.contains("key42"));
+        assertTrue(tracker.add("key42"));
+        assertEquals(1, tracker.size());
+    }
+
+    @Test
+    void contexts() throws Exception {
+        SlotLayout layout = new SlotLayout();
+        layout.declare("hp");
+        List<GameContext> contexts = List.of(
+                new SimpleContext(),
+                new SlotContext(layout),
+                new PersistentContext(),
+                new ConcurrentContext(),
+                OffHeapContext.direct(128)
+        );
+        for (GameContext context : contexts) {
+            String name = context.getClass().getSimpleName();
+            context.put("hp", 100);
+            context.putInt("mana", 10);
+            context.putAll(Map.of("gold", 5));
+            assertEquals(Set.of("hp", "mana", "gold"), context.drainChanges(), name);
+            assertTrue(context.changedKeys().isEmpty(), name);
+
+            context.put("hp", 90);
+            context.remove("gold");
+            context.get("mana");
+            List<String> drained = new ArrayList<>();
+            assertEquals(2, context.drainChanges(drained), name);
+            assertEquals(List.of("hp", "gold"), drained, name);
+
+            context.setChangeTracking(false);
+            context.put("hp", 80);
+            assertTrue(context.changedKeys().isEmpty(), name);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package it.game.framework.contexts;
+
+import it.game.framework.exceptions.GameException;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class ConcurrentContextTest {
+
+    @Test
+    void atomicOperations() throws Exception {
+        ConcurrentContext context = new ConcurrentContext(4);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    try {
+                        context.increment("count", 1);
+                    } catch (GameException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    context.merge("total", 2L, Long::sum);
+                    context.<Integer>compute("max", (k, v) -> v == null ? 1 : v + 1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(4000, context.<Integer>get("count"));
+        assertEquals(8000L, context.get("total", Long.class));
+        assertEquals(4000, context.get("max", Integer.class));
+        assertEquals(3, context.size());
+        assertThrows(GameException.class, () -> context.increment("total", 1));
+    }
+
+    @Test
+    void snapshot() throws Exception {
+        ConcurrentContext context = new ConcurrentContext();
+        context.putAll(Map.of("hp", 0, "maxHp", 0));
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            int i = 0;
+            while (running.get()) {
+                i++;
+                context.putAll(Map.of("hp", i, "maxHp", i));
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 1000; i++) {
+                GameContext snapshot = context.snapshot("hp", "maxHp", "missing");
+                assertEquals(snapshot.<Integer>get("hp"), snapshot.<Integer>get("maxHp"));
+                assertFalse(snapshot.contains("missing"));
+                Thread.yield();
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+
+        context.remove("hp");
+        assertFalse(context.contains("hp"));
+        context.cleanup();
+        assertEquals(0, context.size());
+    }
+
+    @Test
+    void changeTracking() throws Exception {
+        ConcurrentContext context = new ConcurrentContext(4);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String prefix = "t" + t + "-";
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100; i++) context.put(prefix + i, i);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(400, context.changedKeys().size());
+        assertEquals(400, context.drainChanges().size());
+        assertTrue(context.changedKeys().isEmpty());
+
+        List<String> order = List.of("k7", "k1", "k12", "k3", "k9", "k1", "k20");
+        for (String key : order) context.put(key, 0);
+        List<String> drained = new ArrayList<>();
+        assertEquals(6, context.drainChanges(drained));
+        assertEquals(List.of("k7", "k1", "k12", "k3", "k9", "k20"), drained);
+
+        context.put("hp", 1);
+        context.clearChanges();
+        assertTrue(context.changedKeys().isEmpty());
+    }
+
+    @Test
+    void failedIncrementNotTracked() throws Exception {
+        ConcurrentContext context = new ConcurrentContext(4);
+        context.put("name", "hero");
+        context.put("hp", 10);
+        context.clearChanges();
+        assertThrows(GameException.class, () -> context.increment("name", 1));
+        assertThrows(GameException.class, () -> context.increment("hp", 1L));
+        assertTrue(context.changedKeys().isEmpty());
+        assertEquals(11, context.increment("hp", 1));
+        List<String> drained = new ArrayList<>();
+        assertEquals(1, context.drainChanges(drained));
+        assertEquals(List.of("hp"), drained);
+    }
+}
@@ -0,0 +1,67 @@
+package it.game.framework.contexts;
+
+import it.game.framework.exceptions.GameException;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class ContextKeyTest {
+
+    @Test
+    void keys() {
+        SlotLayout layout = new SlotLayout();
+        ContextKey<Integer> hp = ContextKey.of(layout, "hp", int.class);
+        assertEquals(Integer.class, hp.getType());
+        assertEquals(0, hp.getSlot());
+        assertEquals(0, layout.slotOf("hp"));
+        assertEquals(-1, ContextKey.of("hp", Integer.class).getSlot());
+        assertEquals(ContextKey.of("hp", Integer.class), hp);
+        assertNotEquals(ContextKey.of("hp", Long.class), hp);
+        assertEquals("hp:Integer", hp.toString());
+    }
+
+    @Test
+    void contexts() throws Exception {
+        SlotLayout layout = new SlotLayout();
+        ContextKey<Integer> hp = ContextKey.of(layout, "hp", Integer.class);
+        ContextKey<String> name = ContextKey.of("name", String.class);
+        ContextKey<String> wrong = ContextKey.of("hp", String.class);
+        List<GameContext> contexts = List.of(
+                new SimpleContext(),
+                new GuavaContext(),
+                new SlotContext(layout),
+                new SlotContext(new SlotLayout()),
+                new PersistentContext(),
+                new ConcurrentContext(),
+                OffHeapContext.direct(128)
+        );
+        for (GameContext context : contexts) {
+            String type = context.getClass().getSimpleName();
+            assertFalse(context.contains(hp), type);
+            assertNull(context.get(hp), type);
+
+            context.put("other", true);
+            context.put(hp, 100);
+            context.put(name, "player");
+            assertTrue(context.contains(hp), type);
+            assertEquals(100, context.get(hp), type);
+            assertEquals(100, context.<Integer>get("hp"), type);
+            assertEquals("player", context.get(name), type);
+            assertThrows(GameException.class, () -> context.get(wrong), type);
+
+            context.put("hp", 90);
+            assertEquals(90, context.get(hp), type);
+            context.remove(hp);
+            assertFalse(context.contains(hp), type);
+            assertFalse(context.contains("hp"), type);
+            assertEquals("player", context.get(name), type);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -75,5 +76,35 @@ class GuavaContextTest {
 
     @Test
     void cleanup() {
+        GuavaContext context = new GuavaContext();
+        context.put("intVal", 1);
+        context.put("floatVal", 3.14f);
+        context.cleanup();
+
+        assertFalse(context.contains("intVal"));
+        assertFalse(context.contains("floatVal"));
+    }
+
+    @Test
+    void concurrentChangeTracking() throws Exception {
+        GuavaContext context = new GuavaContext();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String prefix = "t" + t + "-";
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    context.put(prefix + i, i);
+                    if (i % 2 == 0) context.remove(prefix + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(800, context.changedKeys().size());
+        for (int t = 0; t < 4; t++) assertTrue(context.changedKeys().contains("t" + t + "-199"));
+        assertEquals(800, context.drainChanges().size());
+        assertTrue(context.changedKeys().isEmpty());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package it.game.framework.contexts;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class MappingPlanTest {
+
+    static class Player {
+        static int instances;
+        private final String id = "player";
+        private int hp;
+        private long xp;
+        private double speed;
+        private boolean alive;
+        private float armor;
+        private String name;
+        private List<String> items;
+    }
+
+    @Test
+    void mapTo() {
+        GameContext context = new SimpleContext();
+        context.put("hp", 100);
+        context.put("xp", 5L);
+        context.put("speed", 1.5d);
+        context.put("alive", true);
+        context.put("armor", 0.5f);
+        context.put("items", List.of("sword"));
+        context.put("id", "other");
+
+        Player player = context.mapTo(new Player());
+        assertEquals(100, player.hp);
+        assertEquals(5L, player.xp);
+        assertEquals(1.5d, player.speed);
+        assertTrue(player.alive);
+        assertEquals(0.5f, player.armor);
+        assertEquals(List.of("sword"), player.items);
+        assertNull(player.name);
+        assertEquals("player", player.id);
+        assertSame(MappingPlan.of(Player.class), MappingPlan.of(Player.class));
+
+        context.put("hp", "not a number");
+        context.put("name", 3);
+        player = context.mapTo(new Player());
+        assertEquals(0, player.hp);
+        assertNull(player.name);
+        assertEquals(5L, player.xp);
+    }
+
+    @Test
+    void mapFrom() throws Exception {
+        Player player = new Player();
+        player.hp = 80;
+        player.xp = 10L;
+        player.speed = 2.5d;
+        player.alive = true;
+        player.armor = 1.5f;
+        player.name = "hero";
+
+        SlotLayout layout = new SlotLayout();
+        layout.declare("hp");
+        SlotContext context = new SlotContext(layout);
+        context.mapFrom(player);
+        assertEquals(80, context.getInt("hp"));
+        assertEquals(10L, context.getLong("xp"));
+        assertEquals(2.5d, context.getDouble("speed"));
+        assertTrue(context.getBoolean("alive"));
+        assertEquals(1.5f, context.<Float>get("armor"));
+        assertEquals("hero", context.<String>get("name"));
+        assertEquals("player", context.<String>get("id"));
+        assertTrue(context.contains("items"));
+        assertNull(context.get("items"));
+        assertFalse(context.contains("instances"));
+
+        Player copy = context.mapTo(new Player());
+        assertEquals(80, copy.hp);
+        assertEquals("hero", copy.name);
+        assertEquals(1.5f, copy.armor);
+    }
+}
@@ -0,0 +1,96 @@
+package it.game.framework.contexts;
+
+import it.game.framework.exceptions.GameException;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class OffHeapContextTest {
+
+    @Test
+    void values() throws Exception {
+        OffHeapContext context = OffHeapContext.direct(128);
+        context.put("hp", 100);
+        context.put("name", "player");
+        context.put("speed", 2.5f);
+        context.put("items", List.of("sword", "shield"));
+        context.put("nothing", null);
+
+        assertEquals(100, context.get("hp", Integer.class));
+        assertEquals("player", context.<String>get("name"));
+        assertEquals(2.5f, context.<Float>get("speed"));
+        assertEquals(List.of("sword", "shield"), context.get("items"));
+        assertTrue(context.contains("nothing"));
+        assertNull(context.get("nothing"));
+        assertNull(context.get("missing"));
+        assertThrows(GameException.class, () -> context.get("name", Integer.class));
+
+        int used = context.getUsedBytes();
+        context.put("hp", 90);
+        assertEquals(used, context.getUsedBytes());
+        context.put("name", "a much longer player name");
+        assertTrue(context.getGarbageBytes() > 0);
+        assertEquals("a much longer player name", context.get("name"));
+
+        context.remove("items");
+        assertFalse(context.contains("items"));
+        assertEquals(4, context.size());
+    }
+
+    @Test
+    void primitives() throws Exception {
+        OffHeapContext context = OffHeapContext.direct(64);
+        context.putInt("hp", 7);
+        context.putLong("gold", 1L << 40);
+        context.putDouble("speed", 1.5);
+        context.putBoolean("alive", true);
+
+        assertEquals(7, context.getInt("hp"));
+        assertEquals(7L, context.getLong("hp"));
+        assertEquals(1L << 40, context.getLong("gold"));
+        assertEquals(1.5, context.getDouble("speed"));
+        assertTrue(context.getBoolean("alive"));
+        assertEquals(7, context.<Integer>get("hp"));
+        assertThrows(GameException.class, () -> context.getInt("speed"));
+        assertThrows(GameException.class, () -> context.getBoolean("missing"));
+    }
+
+    @Test
+    void compactionAndGrowth() throws Exception {
+        OffHeapContext context = OffHeapContext.direct(256);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 100; i++) context.put("key" + i, "value" + i + "-" + round);
+            for (int i = 0; i < 100; i += 2) context.remove("key" + i);
+        }
+        assertEquals(50, context.size());
+        for (int i = 1; i < 100; i += 2) assertEquals("value" + i + "-19", context.get("key" + i));
+        assertTrue(context.getCompactions() > 0);
+        assertTrue(context.getCapacity() < 64 * 1024);
+
+        context.cleanup();
+        assertEquals(0, context.size());
+        assertEquals(0, context.getUsedBytes());
+        assertFalse(context.contains("key1"));
+    }
+
+    @Test
+    void mapped() throws Exception {
+        Path file = Files.createTempFile("session", ".ctx");
+        try (OffHeapContext context = OffHeapContext.mapped(file, 64)) {
+            for (int i = 0; i < 100; i++) context.putInt("key" + i, i);
+            for (int i = 0; i < 100; i++) assertEquals(i, context.getInt("key" + i));
+            assertTrue(context.getCapacity() >= context.getUsedBytes());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
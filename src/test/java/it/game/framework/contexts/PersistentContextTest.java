@@ -0,0 +1,116 @@
+package it.game.framework.contexts;
+
+import it.game.framework.contexts.interfaces.Snapshottable;
+import it.game.framework.exceptions.GameException;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class PersistentContextTest {
+
+    @Test
+    void values() throws Exception {
+        PersistentContext context = new PersistentContext();
+        context.put("hp", 100);
+        context.put("name", "player");
+        context.put("nothing", null);
+
+        assertEquals(100, context.get("hp", Integer.class));
+        assertEquals("player", context.<String>get("name"));
+        assertTrue(context.contains("nothing"));
+        assertNull(context.get("nothing"));
+        assertFalse(context.contains("missing"));
+        assertThrows(GameException.class, () -> context.get("name", Integer.class));
+        assertEquals(3, context.size());
+
+        context.put("hp", 90);
+        assertEquals(90, context.getInt("hp"));
+        assertEquals(3, context.size());
+        context.remove("hp");
+        context.remove("missing");
+        assertFalse(context.contains("hp"));
+        assertEquals(2, context.size());
+        context.cleanup();
+        assertEquals(0, context.size());
+        assertFalse(context.contains("name"));
+    }
+
+    @Test
+    void snapshots() throws Exception {
+        PersistentContext context = new PersistentContext();
+        for (int i = 0; i < 1000; i++) context.put("key" + i, i);
+        Snapshottable.Snapshot snapshot = context.snapshot();
+
+        context.put("key5", -5);
+        context.remove("key6");
+        context.put("new", true);
+        Snapshottable.Snapshot modified = context.snapshot();
+        assertEquals(1000, context.size());
+
+        context.restore(snapshot);
+        assertEquals(1000, context.size());
+        assertEquals(5, context.<Integer>get("key5"));
+        assertEquals(6, context.<Integer>get("key6"));
+        assertFalse(context.contains("new"));
+
+        context.restore(modified);
+        assertEquals(-5, context.<Integer>get("key5"));
+        assertFalse(context.contains("key6"));
+        assertTrue(context.<Boolean>get("new"));
+
+        assertThrows(IllegalArgumentException.class, () -> context.restore(new Snapshottable.Snapshot() {
+        }));
+    }
+
+    @Test
+    void collisions() {
+        // "Aa" and "BB" have the same hash code, so all these keys collide
+        String[] keys = {"AaAa", "AaBB", "BBAa", "BBBB"};
+        PersistentContext context = new PersistentContext();
+        for (int i = 0; i < keys.length; i++) context.put(keys[i], i);
+        Snapshottable.Snapshot snapshot = context.snapshot();
+        for (int i = 0; i < keys.length; i++) assertEquals(i, context.<Integer>get(keys[i]));
+
+        context.remove("AaBB");
+        context.remove("BBBB");
+        context.remove("AaAa");
+        assertEquals(1, context.size());
+        assertEquals(2, context.<Integer>get("BBAa"));
+        assertFalse(context.contains("AaAa"));
+
+        context.restore(snapshot);
+        for (int i = 0; i < keys.length; i++) assertEquals(i, context.<Integer>get(keys[i]));
+    }
+
+    @Test
+    void randomOperations() {
+        Random random = new Random(42);
+        PersistentContext context = new PersistentContext();
+        Map<String, Object> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            String key = "k" + random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                context.remove(key);
+                expected.remove(key);
+            } else {
+                context.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), context.size());
+        for (int i = 0; i < 2000; i++) {
+            String key = "k" + i;
+            assertEquals(expected.containsKey(key), context.contains(key));
+            assertEquals(expected.get(key), context.get(key));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package it.game.framework.contexts;
+
+import it.game.framework.contexts.interfaces.RedisConnection;
+import it.game.framework.exceptions.GameException;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class RedisContextTest {
+
+    /**
+     * An in-memory Redis that counts the round trips
+     */
+    static class FakeRedis implements RedisConnection {
+
+        final Map<String, Map<String, byte[]>> hashes = new HashMap<>();
+        int roundTrips;
+
+        private Map<String, byte[]> hash(byte[] key) {
+            return hashes.computeIfAbsent(new String(key, StandardCharsets.UTF_8), k -> new HashMap<>());
+        }
+
+        @Override
+        public byte[] hget(byte[] key, byte[] field) {
+            roundTrips++;
+            return hash(key).get(new String(field, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public List<byte[]> hmget(byte[] key, byte[]... fields) {
+            roundTrips++;
+            List<byte[]> values = new ArrayList<>();
+            for (byte[] field : fields) values.add(hash(key).get(new String(field, StandardCharsets.UTF_8)));
+            return values;
+        }
+
+        @Override
+        public boolean hexists(byte[] key, byte[] field) {
+            roundTrips++;
+            return hash(key).containsKey(new String(field, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void write(byte[] key, List<byte[]> fields, List<byte[]> values) {
+            roundTrips++;
+            for (int i = 0; i < fields.size(); i++) {
+                String field = new String(fields.get(i), StandardCharsets.UTF_8);
+                if (values.get(i) == null) hash(key).remove(field);
+                else hash(key).put(field, values.get(i));
+            }
+        }
+
+        @Override
+        public void delete(byte[] key) {
+            roundTrips++;
+            hashes.remove(new String(key, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void pipelining() throws Exception {
+        FakeRedis redis = new FakeRedis();
+        RedisContext context = new RedisContext(redis, "session:1", 4, 16, null);
+        for (int i = 0; i < 10; i++) context.put("key" + i, i);
+
+        assertEquals(2, redis.roundTrips);
+        assertEquals(2, context.getPendingWrites());
+        assertEquals(9, context.<Integer>get("key9"));
+        assertFalse(redis.hashes.get("session:1").containsKey("key9"));
+
+        context.close();
+        assertEquals(3, redis.roundTrips);
+        assertEquals(10, redis.hashes.get("session:1").size());
+        assertEquals(10, context.getCommands());
+        assertEquals(7, context.getRoundTripsSaved());
+
+        context.remove("key0");
+        assertFalse(context.contains("key0"));
+        context.flush();
+        assertFalse(redis.hashes.get("session:1").containsKey("key0"));
+    }
+
+    @Test
+    void nearCache() throws Exception {
+        FakeRedis redis = new FakeRedis();
+        RedisContext writer = new RedisContext(redis, "session:2", 1, 0, null);
+        writer.putAll(Map.of("hp", 100, "name", "player"));
+
+        RedisContext reader = new RedisContext(redis, "session:2", 8, 4, null);
+        redis.roundTrips = 0;
+        for (int i = 0; i < 10; i++) assertEquals(100, reader.get("hp", Integer.class));
+        assertEquals(1, redis.roundTrips);
+        assertEquals(0.9, reader.getNearCacheHitRatio(), 1e-9);
+
+        assertFalse(reader.contains("missing"));
+        assertNull(reader.get("missing"));
+        assertEquals(2, redis.roundTrips);
+
+        writer.put("hp", 50);
+        assertEquals(100, reader.<Integer>get("hp"));
+        reader.invalidate("hp");
+        assertEquals(50, reader.<Integer>get("hp"));
+
+        reader.invalidateAll();
+        redis.roundTrips = 0;
+        reader.prefetch("hp", "name", "missing");
+        assertEquals("player", reader.get("name"));
+        assertEquals(50, reader.<Integer>get("hp"));
+        assertEquals(1, redis.roundTrips);
+        assertThrows(GameException.class, () -> reader.get("name", Integer.class));
+
+        reader.cleanup();
+        assertFalse(redis.hashes.containsKey("session:2"));
+    }
+
+    @Test
+    void expiration() throws Exception {
+        FakeRedis redis = new FakeRedis();
+        RedisContext context = new RedisContext(redis, "session:3", 1, 16, Duration.ofMillis(1));
+        context.put("hp", 100);
+        Thread.sleep(5);
+        redis.roundTrips = 0;
+        assertEquals(100, context.<Integer>get("hp"));
+        assertEquals(1, redis.roundTrips);
+    }
+}
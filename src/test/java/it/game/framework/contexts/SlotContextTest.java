@@ -0,0 +1,146 @@
+package it.game.framework.contexts;
+
+import it.game.framework.exceptions.GameException;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class SlotContextTest {
+
+    @Test
+    void slots() throws Exception {
+        SlotLayout layout = new SlotLayout();
+        int hp = layout.declare("hp");
+        int name = layout.declare("name");
+        assertEquals(hp, layout.declare("hp"));
+        assertEquals("name", layout.keyOf(name));
+
+        SlotContext context = new SlotContext(layout);
+        assertFalse(context.contains(hp, "hp"));
+        context.put(hp, "hp", 10);
+        context.put("name", "player");
+
+        assertTrue(context.contains("hp"));
+        assertEquals(10, context.<Integer>get("hp"));
+        assertEquals("player", context.get(name, "name", String.class));
+        assertThrows(GameException.class, () -> context.get(hp, "hp", String.class));
+
+        context.remove("hp");
+        assertFalse(context.contains(hp, "hp"));
+        assertNull(context.get(hp, "hp"));
+    }
+
+    @Test
+    void fallback() throws Exception {
+        SlotLayout layout = new SlotLayout();
+        SlotContext context = new SlotContext(layout);
+        context.putAll(Map.of("score", 5, "level", 2));
+        assertTrue(context.contains("score"));
+        assertEquals(2, context.get("level", Integer.class));
+
+        int mana = layout.declare("mana");
+        context.put(mana, "mana", 30);
+        assertEquals(30, context.<Integer>get("mana"));
+        assertEquals(5, context.<Integer>get("score"));
+
+        context.cleanup();
+        assertFalse(context.contains("score"));
+        assertFalse(context.contains("mana"));
+    }
+
+    @Test
+    void declaredAfterPut() throws Exception {
+        SlotLayout layout = new SlotLayout();
+        SlotContext context = new SlotContext(layout);
+        context.put("score", 5);
+        context.putInt("gold", 7);
+        context.put("removed", true);
+
+        int score = layout.declare("score");
+        int gold = layout.declare("gold");
+        int removed = layout.declare("removed");
+        assertTrue(context.contains(score, "score"));
+        assertEquals(5, context.<Integer>get(score, "score"));
+        assertEquals(5, context.<Integer>get("score"));
+        assertEquals(7, context.getInt(gold, "gold"));
+
+        context.remove("removed");
+        assertFalse(context.contains(removed, "removed"));
+        assertFalse(context.contains("removed"));
+        context.put(ContextKey.of(layout, "level", Integer.class), 3);
+        assertEquals(3, context.<Integer>get("level"));
+    }
+
+    @Test
+    void defaultSlotAccess() throws Exception {
+        GameContext context = new SimpleContext();
+        context.put(3, "hp", 10);
+        assertTrue(context.contains(3, "hp"));
+        assertEquals(10, context.get(3, "hp", Integer.class));
+    }
+
+    @Test
+    void primitives() throws Exception {
+        SlotLayout layout = new SlotLayout();
+        int hp = layout.declare("hp");
+        int gold = layout.declare("gold");
+        int speed = layout.declare("speed");
+        int alive = layout.declare("alive");
+        SlotContext context = new SlotContext(layout);
+
+        context.putInt(hp, "hp", 100);
+        context.putLong(gold, "gold", 1L << 40);
+        context.putDouble(speed, "speed", 2.5);
+        context.putBoolean(alive, "alive", true);
+        context.putInt("armor", 3);
+
+        assertEquals(100, context.getInt(hp, "hp"));
+        assertEquals(100L, context.getLong(hp, "hp"));
+        assertEquals(100.0, context.getDouble("hp"));
+        assertEquals(1L << 40, context.getLong("gold"));
+        assertEquals(2.5, context.getDouble(speed, "speed"));
+        assertTrue(context.getBoolean(alive, "alive"));
+        assertEquals(3, context.getInt("armor"));
+
+        assertEquals(100, context.<Integer>get("hp"));
+        assertEquals(2.5, context.get("speed", Double.class));
+        assertThrows(GameException.class, () -> context.getInt(speed, "speed"));
+        assertThrows(GameException.class, () -> context.getBoolean(hp, "hp"));
+
+        context.put(hp, "hp", 50);
+        assertEquals(50, context.getInt(hp, "hp"));
+        context.remove("hp");
+        assertThrows(GameException.class, () -> context.getInt(hp, "hp"));
+    }
+
+    @Test
+    void slotOfAnotherLayout() throws Exception {
+        SlotLayout machineA = new SlotLayout();
+        int hpA = machineA.declare("hp");
+        SlotLayout machineB = new SlotLayout();
+        machineB.declare("mana");
+        machineB.declare("hp");
+        SlotContext context = new SlotContext(machineB);
+        context.putInt("mana", 5);
+        context.putInt("hp", 100);
+
+        assertEquals(100, context.getInt(hpA, "hp"));
+        assertEquals(100, context.<Integer>get(hpA, "hp"));
+        context.putInt(hpA, "hp", 90);
+        assertEquals(5, context.getInt("mana"));
+        assertEquals(90, context.getInt("hp"));
+
+        assertFalse(context.contains(hpA, "gold"));
+        context.put(hpA, "gold", 7);
+        assertEquals(5, context.getInt("mana"));
+        assertEquals(7, context.<Integer>get(hpA, "gold"));
+        assertEquals(7, context.getInt(42, "gold"));
+    }
+}
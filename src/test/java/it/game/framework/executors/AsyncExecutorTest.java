@@ -0,0 +1,177 @@
+package it.game.framework.executors;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.interfaces.ExecutionLimit;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.AsyncGameState;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class AsyncExecutorTest {
+
+    static class Lookup extends AsyncGameState {
+
+        final CompletableFuture<Integer> pending = new CompletableFuture<>();
+
+        @Override
+        public CompletionStage<?> executeAsync(GameContext c) {
+            return pending.thenAccept(v -> c.put("value", v));
+        }
+    }
+
+    static class Inline extends AsyncGameState {
+
+        @Override
+        public CompletionStage<?> executeAsync(GameContext c) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    static class Reject extends AsyncGameState {
+
+        static final IllegalStateException REJECTED = new IllegalStateException("rejected");
+
+        @Override
+        public CompletionStage<?> executeAsync(GameContext c) {
+            throw REJECTED;
+        }
+    }
+
+    static class Done extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            c.put("done", Thread.currentThread().getName());
+        }
+    }
+
+    @Test
+    void suspendAndResume() throws Exception {
+        Lookup lookup = new Lookup();
+        Done done = new Done();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(lookup)
+                .addDirectConnectionFromLastState(done)
+                .addGameState(done)
+                .build();
+
+        AsyncExecutor executor = new AsyncExecutor();
+        executor.setStateMachine(machine);
+        executor.setContext(new SimpleContext());
+        CompletableFuture<GameContext> future = executor.submit();
+
+        assertFalse(future.isDone());
+        assertEquals(1, executor.getSuspensions());
+        assertSame(lookup, executor.getCurrentGameState());
+
+        Thread completer = new Thread(() -> lookup.pending.complete(42), "completer");
+        completer.start();
+        GameContext context = future.get(5, TimeUnit.SECONDS);
+
+        assertEquals(42, context.<Integer>get("value"));
+        assertEquals("completer", context.get("done"));
+        assertNull(executor.getCurrentGameState());
+    }
+
+    @Test
+    void exceptionRouting() throws Exception {
+        Lookup lookup = new Lookup();
+        Done done = new Done();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(lookup)
+                .addExceptionConnectionFromLastState("CATCH:9999", new GameException(9999), done)
+                .addGameState(done)
+                .build();
+
+        AsyncExecutor executor = new AsyncExecutor();
+        executor.setStateMachine(machine);
+        executor.setContext(new SimpleContext());
+        CompletableFuture<GameContext> future = executor.submit();
+        lookup.pending.completeExceptionally(new GameException(9999));
+
+        GameContext context = future.get(5, TimeUnit.SECONDS);
+        assertTrue(context.contains("done"));
+        assertFalse(context.contains("value"));
+    }
+
+    @Test
+    void stepLimit() throws Exception {
+        Inline ping = new Inline();
+        Inline pong = new Inline();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(ping)
+                .addDirectConnectionFromLastState(pong)
+                .addGameState(pong)
+                .addDirectConnectionFromLastState(ping)
+                .build();
+
+        AsyncExecutor executor = new AsyncExecutor();
+        executor.setStateMachine(machine);
+        executor.setContext(new SimpleContext());
+        executor.setMaxSteps(10);
+        executor.submit().get(5, TimeUnit.SECONDS);
+
+        assertEquals(ExceptionLibrary.get("STEP_LIMIT_EXCEEDED").getHash(), executor.getUnhandledException().hashCode());
+        assertEquals(1, machine.getLimitHits(ExecutionLimit.STEPS));
+    }
+
+    @Test
+    void synchronousExceptionRouting() throws Exception {
+        Reject reject = new Reject();
+        Done done = new Done();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(reject)
+                .addExceptionConnectionFromLastState("CATCH:rejected", Reject.REJECTED, done)
+                .addGameState(done)
+                .build();
+
+        AsyncExecutor executor = new AsyncExecutor();
+        executor.setStateMachine(machine);
+        executor.setContext(new SimpleContext());
+        GameContext context = executor.submit().get(5, TimeUnit.SECONDS);
+
+        assertTrue(context.contains("done"));
+        assertNull(executor.getUnhandledException());
+    }
+
+    @Test
+    void submitWhileRunning() throws Exception {
+        Lookup lookup = new Lookup();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(lookup).build();
+
+        AsyncExecutor executor = new AsyncExecutor();
+        executor.setStateMachine(machine);
+        executor.setContext(new SimpleContext());
+        CompletableFuture<GameContext> first = executor.submit();
+        CompletableFuture<GameContext> second = executor.submit();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertEquals(ExceptionLibrary.get("EXECUTION_ALREADY_RUNNING").getHash(), e.getCause().hashCode());
+        assertFalse(first.isDone());
+        lookup.pending.complete(1);
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).<Integer>get("value"));
+        executor.reset();
+        assertTrue(executor.submit().isDone());
+    }
+}
@@ -0,0 +1,94 @@
+package it.game.framework.executors;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class BoundedExecutorTest {
+
+    static class Gate extends GameState {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch open = new CountDownLatch(1);
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            started.countDown();
+            try {
+                open.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new GameException(9999, "interrupted");
+            }
+        }
+    }
+
+    @Test
+    void failFast() throws Exception {
+        BoundedExecutor pool = new BoundedExecutor(1, 2, BoundedExecutor.RejectionPolicy.FAIL_FAST);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch open = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            try {
+                open.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        pool.execute(() -> { });
+        pool.execute(() -> { });
+
+        assertThrows(RejectedExecutionException.class, () -> pool.execute(() -> { }));
+        assertEquals(2, pool.getQueueDepth());
+        assertEquals(1, pool.getRejected());
+
+        open.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(3, pool.getSubmitted());
+        assertTrue(pool.getMaxWaitNanos() > 0);
+    }
+
+    @Test
+    void shedOldest() throws Exception {
+        Gate gate = new Gate();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(gate).build();
+        BoundedExecutor pool = new BoundedExecutor(1, 2, BoundedExecutor.RejectionPolicy.SHED_OLDEST);
+
+        List<CompletableFuture<GameContext>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ThreadedExecutor executor = new ThreadedExecutor(pool);
+            executor.setStateMachine(machine);
+            executor.setContext(new SimpleContext());
+            futures.add(executor.submit());
+            if (i == 0) assertTrue(gate.started.await(5, TimeUnit.SECONDS));
+        }
+        gate.open.countDown();
+
+        assertThrows(CancellationException.class, () -> futures.get(1).join());
+        for (int i : new int[]{0, 2, 3}) assertNotNull(futures.get(i).get(5, TimeUnit.SECONDS));
+        assertEquals(1, pool.getShed());
+        assertEquals(2, pool.getMaxQueueDepth());
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,120 @@
+package it.game.framework.executors;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class CooperativeSchedulerTest {
+
+    static class Count extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            try {
+                c.put("count", c.<Integer>get("count") + 1);
+            } catch (Exception e) {
+                throw new GameException(9999, e.getMessage());
+            }
+        }
+    }
+
+    static class Fail extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            throw new GameException(1234);
+        }
+    }
+
+    static SteppedExecutor session(StateMachine machine, int limit) {
+        GameContext context = new SimpleContext();
+        context.put("count", 0);
+        context.put("limit", limit);
+        SteppedExecutor executor = new SteppedExecutor();
+        executor.setStateMachine(machine);
+        executor.setContext(context);
+        return executor;
+    }
+
+    @Test
+    void interleave() throws Exception {
+        Count count = new Count();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(count)
+                .addConnectionFromLastState("count<limit", (c) -> c.<Integer>get("count") < c.<Integer>get("limit"), count)
+                .build();
+
+        try (CooperativeScheduler scheduler = new CooperativeScheduler(2, 4)) {
+            CompletableFuture<GameContext> longSession = scheduler.submit(session(machine, 200_000));
+            List<CompletableFuture<GameContext>> shortSessions = new ArrayList<>();
+            for (int i = 1; i <= 100; i++) shortSessions.add(scheduler.submit(session(machine, i)));
+
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i + 1, shortSessions.get(i).get(5, TimeUnit.SECONDS).<Integer>get("count"));
+            }
+            assertFalse(longSession.isDone());
+            assertEquals(200_000, longSession.get(30, TimeUnit.SECONDS).<Integer>get("count"));
+            assertEquals(101, scheduler.getCompleted());
+            assertEquals(0, scheduler.getActive());
+        }
+    }
+
+    @Test
+    void failure() {
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(new Fail()).build();
+        SteppedExecutor executor = session(machine, 0);
+        executor.setThisExecutionExceptionBlocking(true);
+
+        try (CooperativeScheduler scheduler = new CooperativeScheduler(1, 1)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> scheduler.submit(executor).get(5, TimeUnit.SECONDS));
+            assertEquals(1234, e.getCause().getCause().hashCode());
+            assertEquals(1, scheduler.getFailed());
+        }
+    }
+
+    @Test
+    void timedConnectionSleeps() throws Exception {
+        Count count = new Count();
+        Count after = new Count();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(count)
+                .addGameState(after)
+                .addTimedConnection(count, Duration.ofMillis(50), after)
+                .build();
+
+        try (CooperativeScheduler scheduler = new CooperativeScheduler(1, 4)) {
+            CompletableFuture<GameContext> future = scheduler.submit(session(machine, 0));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (scheduler.getSleeping() == 0 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertEquals(1, scheduler.getSleeping());
+            long steps = scheduler.getSteps();
+            Thread.sleep(20);
+            assertEquals(steps, scheduler.getSteps());
+
+            assertEquals(2, future.get(5, TimeUnit.SECONDS).<Integer>get("count"));
+            assertEquals(0, scheduler.getSleeping());
+            assertEquals(0, scheduler.getActive());
+        }
+    }
+}
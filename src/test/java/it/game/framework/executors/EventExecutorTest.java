@@ -0,0 +1,126 @@
+package it.game.framework.executors;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.events.GameEvent;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class EventExecutorTest {
+
+    static class Lobby extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            c.put("players", 0);
+        }
+    }
+
+    static class Play extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            c.put("playing", true);
+        }
+    }
+
+    static void awaitWaiting(EventExecutor executor, long waits) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getWaits() < waits && System.nanoTime() < deadline) Thread.sleep(1);
+        assertEquals(waits, executor.getWaits());
+    }
+
+    @Test
+    void advanceOnEvents() throws Exception {
+        Lobby lobby = new Lobby();
+        Play play = new Play();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(lobby)
+                .addConnectionFromLastState("players>=2", (c) -> c.<Integer>get("players") >= 2, play)
+                .addGameState(play)
+                .build();
+
+        EventExecutor executor = new EventExecutor(8, 4);
+        executor.setStateMachine(machine);
+        executor.setContext(new SimpleContext());
+        Thread session = new Thread(executor::execute);
+        session.start();
+
+        awaitWaiting(executor, 1);
+        assertSame(lobby, executor.getCurrentGameState());
+        assertTrue(executor.offer(GameEvent.put("players", 1)));
+        awaitWaiting(executor, 2);
+        assertFalse(executor.getContext().contains("playing"));
+
+        assertTrue(executor.offer(GameEvent.put("players", 2)));
+        session.join(5000);
+
+        assertFalse(session.isAlive());
+        assertTrue(executor.getContext().<Boolean>get("playing"));
+        assertEquals(2, executor.getEventsProcessed());
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    void stop() throws Exception {
+        Lobby lobby = new Lobby();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(lobby)
+                .addConnectionFromLastState("never", (c) -> false, lobby)
+                .build();
+
+        EventExecutor executor = new EventExecutor(2, 1);
+        executor.setStateMachine(machine);
+        executor.setContext(new SimpleContext());
+        Thread session = new Thread(executor::execute);
+        session.start();
+
+        awaitWaiting(executor, 1);
+        executor.stop();
+        session.join(5000);
+
+        assertFalse(session.isAlive());
+        assertNull(executor.getCurrentGameState());
+    }
+
+    @Test
+    void timedConnection() throws Exception {
+        Lobby lobby = new Lobby();
+        Play play = new Play();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(lobby)
+                .addConnectionFromLastState("players>=2", (c) -> c.<Integer>get("players") >= 2, lobby)
+                .addTimedConnectionFromLastState(Duration.ofMillis(50), play)
+                .addGameState(play)
+                .build();
+
+        EventExecutor executor = new EventExecutor(8, 4);
+        executor.setStateMachine(machine);
+        executor.setContext(new SimpleContext());
+        long start = System.nanoTime();
+        Thread session = new Thread(executor::execute);
+        session.start();
+        session.join(5000);
+
+        assertFalse(session.isAlive());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(executor.getContext().<Boolean>get("playing"));
+        assertEquals(1, executor.getWaits());
+    }
+}
@@ -0,0 +1,129 @@
+package it.game.framework.executors;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.GuavaContext;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class ExecutorPoolTest {
+
+    static class Write extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            if (c.contains("written")) throw new GameException(9999, "context not cleaned");
+            c.put("written", true);
+        }
+    }
+
+    static class Await extends GameState {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            entered.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                throw new GameException(9998, "interrupted");
+            }
+            c.put("written", true);
+        }
+    }
+
+    static StateMachine machine() {
+        return machineOf(new Write());
+    }
+
+    static StateMachine machineOf(GameState state) {
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(state).build();
+        return machine;
+    }
+
+    @Test
+    void reuse() throws Exception {
+        ExecutorPool pool = new ExecutorPool(machine(), GameExecutor::new, GuavaContext::new, 2);
+
+        ExecutorPool.PooledSession first = pool.acquire();
+        GameContext context = first.getContext();
+        first.execute();
+        assertTrue(first.isReleased());
+        assertEquals(1, pool.getIdle());
+
+        ExecutorPool.PooledSession second = pool.acquire();
+        assertNotSame(first, second);
+        assertSame(first.getExecutor(), second.getExecutor());
+        assertFalse(second.isReleased());
+        first.close();
+        assertFalse(second.isReleased());
+        assertEquals(0, pool.getIdle());
+        assertFalse(context.contains("written"));
+        assertNull(second.getExecutor().getCurrentGameState());
+        second.getExecutor().execute();
+        assertTrue(context.<Boolean>get("written"));
+        second.close();
+        second.close();
+
+        assertEquals(1, pool.getMisses());
+        assertEquals(1, pool.getHits());
+        assertEquals(2, pool.getReleases());
+        assertEquals(0.5, pool.getHitRate());
+    }
+
+    @Test
+    void discardWhenFull() {
+        ExecutorPool pool = new ExecutorPool(machine(), SteppedExecutor::new, GuavaContext::new, 1);
+
+        ExecutorPool.PooledSession a = pool.acquire();
+        ExecutorPool.PooledSession b = pool.acquire();
+        SteppedExecutor stepped = (SteppedExecutor) a.getExecutor();
+        stepped.step();
+        stepped.step();
+        a.close();
+        b.close();
+
+        assertEquals(1, pool.getIdle());
+        assertEquals(1, pool.getDiscards());
+        assertEquals(SteppedExecutor.Steps.START, stepped.getCurrentStep());
+    }
+
+    @Test
+    void threadedReleasedAtTheEnd() throws Exception {
+        Await await = new Await();
+        ExecutorPool pool = new ExecutorPool(machineOf(await), ThreadedExecutor::new, GuavaContext::new, 2);
+
+        ExecutorPool.PooledSession session = pool.acquire();
+        GameContext context = session.getContext();
+        session.execute();
+        assertTrue(await.entered.await(5, TimeUnit.SECONDS));
+        session.close();
+        assertFalse(session.isReleased());
+        assertEquals(0, pool.getIdle());
+        ExecutorPool.PooledSession other = pool.acquire();
+        assertNotSame(session.getExecutor(), other.getExecutor());
+
+        await.proceed.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!session.isReleased() && System.nanoTime() < deadline) Thread.sleep(1);
+        assertTrue(session.isReleased());
+        assertEquals(1, pool.getIdle());
+        assertFalse(context.contains("written"));
+        assertEquals(2, pool.getMisses());
+    }
+}
@@ -0,0 +1,262 @@
+package it.game.framework.executors;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.PersistentContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.interfaces.ExecutionLimit;
+import it.game.framework.executors.interfaces.ExecutorCallback;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class GameExecutorTest {
+
+    static class Count extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            try {
+                c.put("count", c.<Integer>get("count") + 1);
+            } catch (Exception e) {
+                throw new GameException(9999, e.getMessage());
+            }
+        }
+    }
+
+    static class Handler extends GameState {
+
+        @Override
+        public void execute(GameContext c) {
+            c.put("handled", true);
+        }
+    }
+
+    static class Spin extends GameState {
+
+        @Override
+        public void execute(GameContext c) {
+            long end = System.nanoTime() + 2_000_000;
+            while (System.nanoTime() < end) Thread.onSpinWait();
+        }
+    }
+
+    static class Charge extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            c.put("gold", 0);
+            c.put("item", "sword");
+            throw new GameException(9998, "payment refused");
+        }
+    }
+
+    private GameExecutor executor(StateMachine machine, GameContext context) {
+        GameExecutor executor = new GameExecutor();
+        executor.setStateMachine(machine);
+        executor.setContext(context);
+        return executor;
+    }
+
+    @Test
+    void stepLimitHandled() throws Exception {
+        Count count = new Count();
+        Handler handler = new Handler();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(count)
+                .addGameState(handler)
+                .addDirectConnection(count, count)
+                .addExceptionConnection("CATCH:9209", new GameException(ExceptionLibrary.get("STEP_LIMIT_EXCEEDED")), count, handler)
+                .build();
+
+        GameContext context = new SimpleContext();
+        context.put("count", 0);
+        GameExecutor executor = executor(machine, context);
+        executor.setMaxSteps(10);
+        executor.execute();
+
+        assertEquals(10, context.<Integer>get("count"));
+        assertTrue(context.<Boolean>get("handled"));
+        assertNull(executor.getCurrentGameState());
+        assertEquals(1, machine.getLimitHits(ExecutionLimit.STEPS));
+
+        context.put("count", 0);
+        executor.reset();
+        executor.execute();
+        assertEquals(10, context.<Integer>get("count"));
+        assertEquals(2, machine.getLimitHits(ExecutionLimit.STEPS));
+    }
+
+    @Test
+    void secondBreachInterrupts() throws Exception {
+        Count count = new Count();
+        Count retry = new Count();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(count)
+                .addGameState(retry)
+                .addDirectConnection(count, count)
+                .addDirectConnection(retry, retry)
+                .addGlobalExceptionConnection("CATCH:9209", new GameException(ExceptionLibrary.get("STEP_LIMIT_EXCEEDED")), retry)
+                .build();
+
+        GameContext context = new SimpleContext();
+        context.put("count", 0);
+        GameExecutor executor = executor(machine, context);
+        executor.setMaxSteps(5);
+        executor.execute();
+
+        assertEquals(10, context.<Integer>get("count"));
+        assertSame(retry, executor.getCurrentGameState());
+        assertEquals(2, machine.getLimitHits(ExecutionLimit.STEPS));
+    }
+
+    @Test
+    void timeLimits() {
+        Spin spin = new Spin();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(spin)
+                .addDirectConnection(spin, spin)
+                .build();
+
+        GameExecutor executor = executor(machine, new SimpleContext());
+        executor.setMaxWallTimeMillis(20);
+        executor.execute();
+        assertEquals(1, machine.getLimitHits(ExecutionLimit.WALL_TIME));
+        assertNull(executor.getCurrentGameState());
+
+        executor.setMaxWallTimeMillis(0);
+        executor.setMaxCpuTimeMillis(20);
+        executor.reset();
+        executor.execute();
+        assertEquals(1, machine.getLimitHits(ExecutionLimit.CPU_TIME));
+        assertNull(executor.getCurrentGameState());
+    }
+
+    @Test
+    void rollbackOnException() throws Exception {
+        Charge charge = new Charge();
+        Handler handler = new Handler();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(charge)
+                .addGameState(handler)
+                .addExceptionConnection("CATCH:9998", new GameException(9998, "payment refused"), charge, handler, true)
+                .build();
+
+        PersistentContext context = new PersistentContext();
+        context.put("gold", 100);
+        executor(machine, context).execute();
+        assertEquals(100, context.<Integer>get("gold"));
+        assertFalse(context.contains("item"));
+        assertTrue(context.<Boolean>get("handled"));
+
+        StateMachine keep = new StateMachine();
+        StepBuilder.builder(keep)
+                .addStartingState(charge)
+                .addGameState(handler)
+                .addExceptionConnection("CATCH:9998", new GameException(9998, "payment refused"), charge, handler)
+                .build();
+        context.cleanup();
+        context.put("gold", 100);
+        executor(keep, context).execute();
+        assertEquals(0, context.<Integer>get("gold"));
+        assertEquals("sword", context.<String>get("item"));
+    }
+
+    @Test
+    void changedKeysPerState() {
+        Count count = new Count();
+        Handler handler = new Handler();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(count)
+                .addGameState(handler)
+                .addDirectConnection(count, handler)
+                .build();
+
+        List<Set<String>> changes = new ArrayList<>();
+        GameContext context = new SimpleContext();
+        context.put("count", 0);
+        context.put("other", 0);
+        GameExecutor executor = executor(machine, context);
+        executor.setCallbacks(new ExecutorCallback() {
+            @Override
+            public void afterExecution(GameState currentState, GameContext context) {
+                changes.add(context.drainChanges());
+            }
+        });
+        executor.execute();
+        assertEquals(List.of(Set.of("count"), Set.of("handled")), changes);
+    }
+
+    @Test
+    void timedConnection() throws Exception {
+        Count count = new Count();
+        Handler handler = new Handler();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(count)
+                .addGameState(handler)
+                .addTimedConnection(count, Duration.ofMillis(30), handler)
+                .build();
+
+        PersistentContext context = new PersistentContext();
+        context.put("count", 0);
+        GameExecutor executor = executor(machine, context);
+        long start = System.nanoTime();
+        executor.execute();
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertEquals(1, context.<Integer>get("count"));
+        assertTrue(context.<Boolean>get("handled"));
+        assertEquals(2, context.size());
+    }
+
+    @Test
+    void steppedTimedConnection() throws Exception {
+        Count count = new Count();
+        Handler handler = new Handler();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(count)
+                .addGameState(handler)
+                .addTimedConnection(count, Duration.ofMillis(30), handler)
+                .build();
+
+        GameContext context = new SimpleContext();
+        context.put("count", 0);
+        SteppedExecutor executor = new SteppedExecutor(false, false, SteppedExecutor.Steps.START);
+        executor.setStateMachine(machine);
+        executor.setContext(context);
+        executor.setMaxSteps(2);
+        executor.step();
+        assertSame(count, executor.step());
+        assertTrue(executor.isWaitingTimer());
+        for (int i = 0; i < 5; i++) assertSame(count, executor.step());
+        Thread.sleep(40);
+        assertSame(handler, executor.step());
+        assertFalse(executor.isWaitingTimer());
+        assertNull(executor.step());
+        assertNull(executor.getUnhandledException());
+        assertEquals(1, context.<Integer>get("count"));
+        assertTrue(context.<Boolean>get("handled"));
+    }
+}
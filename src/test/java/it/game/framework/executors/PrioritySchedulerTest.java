@@ -0,0 +1,95 @@
+package it.game.framework.executors;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.interfaces.ExecutionPriority;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class PrioritySchedulerTest {
+
+    static class Record extends GameState {
+
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            try {
+                order.add(c.get("name"));
+            } catch (Exception e) {
+                throw new GameException(9999, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void priorityOrder() throws Exception {
+        PriorityScheduler scheduler = new PriorityScheduler(1, 1, TimeUnit.HOURS);
+        CountDownLatch open = new CountDownLatch(1);
+        scheduler.execute(() -> {
+            try {
+                open.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        Record record = new Record();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(record).build();
+
+        ExecutionPriority[] priorities = {ExecutionPriority.BACKGROUND, ExecutionPriority.NORMAL, ExecutionPriority.INTERACTIVE};
+        for (ExecutionPriority priority : priorities) {
+            ThreadedExecutor executor = new ThreadedExecutor(scheduler);
+            executor.setPriority(priority);
+            executor.setStateMachine(machine);
+            GameContext context = new SimpleContext();
+            context.put("name", priority.name());
+            executor.setContext(context);
+            executor.submit();
+        }
+        assertEquals(1, scheduler.getQueueDepth(ExecutionPriority.INTERACTIVE));
+        open.countDown();
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("INTERACTIVE", "NORMAL", "BACKGROUND"), record.order);
+        assertEquals(1, scheduler.getLatency(ExecutionPriority.BACKGROUND).getCount());
+        assertTrue(scheduler.getLatency(ExecutionPriority.BACKGROUND).getPercentile(50) >= scheduler.getLatency(ExecutionPriority.INTERACTIVE).getPercentile(50));
+    }
+
+    @Test
+    void aging() throws Exception {
+        PriorityScheduler scheduler = new PriorityScheduler(1, 1, TimeUnit.MILLISECONDS);
+        CountDownLatch open = new CountDownLatch(1);
+        scheduler.execute(() -> {
+            try {
+                open.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        scheduler.execute(() -> order.add("BACKGROUND"), ExecutionPriority.BACKGROUND);
+        Thread.sleep(20);
+        scheduler.execute(() -> order.add("INTERACTIVE"), ExecutionPriority.INTERACTIVE);
+        open.countDown();
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("BACKGROUND", "INTERACTIVE"), order);
+    }
+}
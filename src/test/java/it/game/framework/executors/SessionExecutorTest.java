@@ -0,0 +1,167 @@
+package it.game.framework.executors;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.interfaces.ExecutionLimit;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class SessionExecutorTest {
+
+    static class Count extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            try {
+                c.put("count", c.<Integer>get("count") + 1);
+            } catch (Exception e) {
+                throw new GameException(9999, e.getMessage());
+            }
+        }
+    }
+
+    static class Fail extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            throw new GameException(1234);
+        }
+    }
+
+    StateMachine machine;
+    Count count = new Count();
+    Fail fail = new Fail();
+
+    @BeforeEach
+    void before() {
+        machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(count)
+                .addConnectionFromLastState("count<limit", (c) -> c.<Integer>get("count") < c.<Integer>get("limit"), count)
+                .addConnectionFromLastState("limit<0", (c) -> c.<Integer>get("limit") < 0, fail)
+                .addGameState(fail)
+                .build();
+    }
+
+    @Test
+    void execute() {
+        List<GameContext> contexts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            GameContext context = new SimpleContext();
+            context.put("count", 0);
+            context.put("limit", i % 2 == 0 ? i : -1);
+            contexts.add(context);
+        }
+
+        SessionExecutor executor = new SessionExecutor(machine);
+        List<SessionExecutor.SessionResult> results = executor.execute(contexts);
+
+        assertEquals(100, results.size());
+        long steps = 0;
+        for (int i = 0; i < 100; i++) {
+            SessionExecutor.SessionResult result = results.get(i);
+            assertSame(contexts.get(i), result.getContext());
+            if (i % 2 == 0) {
+                assertFalse(result.isFailed());
+                assertSame(count, result.getLastGameState());
+                assertEquals(Math.max(i, 1), result.getSteps());
+            } else {
+                assertTrue(result.isFailed());
+                assertEquals(1234, result.getException().hashCode());
+                assertSame(fail, result.getLastGameState());
+                assertEquals(2, result.getSteps());
+            }
+            steps += result.getSteps();
+        }
+        assertEquals(50, executor.getSessionsCompleted());
+        assertEquals(50, executor.getSessionsFailed());
+        assertEquals(steps, executor.getStepsExecuted());
+        assertTrue(executor.getThroughput() > 0);
+    }
+
+    @Test
+    void timedConnection() throws Exception {
+        StateMachine timed = new StateMachine();
+        StepBuilder.builder(timed)
+                .addStartingState(count)
+                .addTimedConnectionFromLastState(Duration.ofMillis(20), fail)
+                .addGameState(fail)
+                .build();
+        List<GameContext> contexts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            GameContext context = new SimpleContext();
+            context.put("count", 0);
+            contexts.add(context);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            long start = System.nanoTime();
+            List<SessionExecutor.SessionResult> results = new SessionExecutor(timed, pool).execute(contexts);
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+            for (SessionExecutor.SessionResult result : results) {
+                assertSame(fail, result.getLastGameState());
+                assertEquals(1234, result.getException().hashCode());
+                assertEquals(2, result.getSteps());
+                assertEquals(1, result.getContext().<Integer>get("count"));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void stepLimit() throws Exception {
+        GameContext endless = new SimpleContext();
+        endless.put("count", 0);
+        endless.put("limit", 100);
+        GameContext bounded = new SimpleContext();
+        bounded.put("count", 0);
+        bounded.put("limit", 3);
+
+        SessionExecutor executor = new SessionExecutor(machine, new ForkJoinPool(1));
+        executor.setMaxSteps(5);
+        List<SessionExecutor.SessionResult> results = executor.execute(endless, bounded);
+        executor.getPool().shutdown();
+
+        assertTrue(results.get(0).isFailed());
+        assertEquals(9209, results.get(0).getException().hashCode());
+        assertEquals(5, endless.<Integer>get("count"));
+        assertFalse(results.get(1).isFailed());
+        assertEquals(3, bounded.<Integer>get("count"));
+        assertEquals(1, machine.getLimitHits(ExecutionLimit.STEPS));
+    }
+
+    @Test
+    void blockingException() {
+        GameContext context = new SimpleContext();
+        context.put("count", 0);
+        context.put("limit", -1);
+
+        SessionExecutor executor = new SessionExecutor(machine, ForkJoinPool.commonPool(), null, true);
+        SessionExecutor.SessionResult result = executor.execute(context).get(0);
+
+        assertTrue(result.isFailed());
+        assertTrue(result.getException() instanceof RuntimeException);
+        assertEquals(1234, result.getException().getCause().hashCode());
+        assertSame(fail, result.getLastGameState());
+        assertEquals(1, result.getSteps());
+    }
+}
@@ -0,0 +1,133 @@
+package it.game.framework.executors;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class ShardedSchedulerTest {
+
+    static class Count extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            try {
+                c.put("count", c.<Integer>get("count") + 1);
+            } catch (Exception e) {
+                throw new GameException(9999, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void singleWriterSessions() throws Exception {
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(new Count()).build();
+
+        try (ShardedScheduler scheduler = new ShardedScheduler(4, 1024)) {
+            for (int s = 0; s < 16; s++) {
+                GameContext context = new SimpleContext();
+                context.put("count", 0);
+                scheduler.register("session-" + s, new GameExecutor(false, false, null, machine, context, null)).get(5, TimeUnit.SECONDS);
+            }
+
+            List<Thread> producers = new ArrayList<>();
+            List<CompletableFuture<GameContext>> futures = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                Thread t = new Thread(() -> {
+                    List<CompletableFuture<GameContext>> local = new ArrayList<>();
+                    for (int i = 0; i < 96; i++) {
+                        local.add(scheduler.execute("session-" + (i % 16)));
+                    }
+                    synchronized (futures) {
+                        futures.addAll(local);
+                    }
+                });
+                producers.add(t);
+                t.start();
+            }
+            for (Thread t : producers) t.join();
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+            int total = 0;
+            for (int s = 0; s < 16; s++) {
+                int count = scheduler.submit("session-" + s, e -> {
+                    try {
+                        return e.getContext().<Integer>get("count");
+                    } catch (Exception ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }).get(5, TimeUnit.SECONDS);
+                assertEquals(24, count);
+                total += count;
+            }
+            assertEquals(384, total);
+            long commands = 0;
+            for (int i = 0; i < scheduler.getShardCount(); i++) commands += scheduler.getShard(i).getCommandsExecuted();
+            assertTrue(commands >= 400);
+        }
+    }
+
+    @Test
+    void unknownSession() {
+        try (ShardedScheduler scheduler = new ShardedScheduler(2, 16)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> scheduler.execute("missing").get(5, TimeUnit.SECONDS));
+            assertEquals(9207, e.getCause().hashCode());
+        }
+    }
+
+    @Test
+    void closeRejectsQueuedCommands() throws Exception {
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(new Count()).build();
+        GameContext context = new SimpleContext();
+        context.put("count", 0);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ShardedScheduler scheduler = new ShardedScheduler(1, 16);
+        scheduler.register("session", new GameExecutor(false, false, null, machine, context, null)).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Boolean> blocking = scheduler.submit("session", e -> {
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        List<CompletableFuture<GameContext>> queued = new ArrayList<>();
+        for (int i = 0; i < 4; i++) queued.add(scheduler.execute("session"));
+
+        Thread closer = new Thread(scheduler::close);
+        closer.start();
+        while (closer.getState() != Thread.State.WAITING) Thread.yield();
+        release.countDown();
+        closer.join(5000);
+
+        assertFalse(closer.isAlive());
+        assertTrue(blocking.get(5, TimeUnit.SECONDS));
+        for (CompletableFuture<GameContext> f : queued) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(0, context.<Integer>get("count"));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> scheduler.execute("session").get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+}
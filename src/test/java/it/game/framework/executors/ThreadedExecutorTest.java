@@ -0,0 +1,170 @@
+package it.game.framework.executors;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class ThreadedExecutorTest {
+
+    static class Write extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            c.put("thread", Thread.currentThread().getName());
+        }
+    }
+
+    static class Wait extends GameState {
+
+        final CountDownLatch started = new CountDownLatch(1);
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                throw new GameException(9999, "interrupted");
+            }
+        }
+    }
+
+    static class Gate extends GameState {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch open = new CountDownLatch(1);
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            started.countDown();
+            try {
+                open.await(5, TimeUnit.SECONDS);
+                c.put("runs", c.contains("runs") ? c.<Integer>get("runs") + 1 : 1);
+            } catch (Exception e) {
+                throw new GameException(9999, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void submitTwice() throws Exception {
+        Gate gate = new Gate();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(gate).build();
+
+        try (ThreadedExecutor executor = new ThreadedExecutor()) {
+            executor.setStateMachine(machine);
+            executor.setContext(new SimpleContext());
+            CompletableFuture<GameContext> first = executor.submit();
+            assertTrue(gate.started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<GameContext> second = executor.submit();
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+            assertEquals(ExceptionLibrary.get("EXECUTION_ALREADY_RUNNING").getHash(), e.getCause().hashCode());
+            assertFalse(first.isDone());
+
+            gate.open.countDown();
+            GameContext context = first.get(5, TimeUnit.SECONDS);
+            assertEquals(1, context.<Integer>get("runs"));
+
+            executor.reset();
+            assertEquals(2, executor.submit().get(5, TimeUnit.SECONDS).<Integer>get("runs"));
+        }
+    }
+
+    @Test
+    void submit() throws Exception {
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(new Write()).build();
+
+        try (ThreadedExecutor executor = new ThreadedExecutor()) {
+            executor.setStateMachine(machine);
+            executor.setContext(new SimpleContext());
+            GameContext context = executor.submit().get(5, TimeUnit.SECONDS);
+
+            assertSame(executor.getContext(), context);
+            assertNotEquals(Thread.currentThread().getName(), context.get("thread"));
+        }
+    }
+
+    @Test
+    void submitFailure() {
+        ThreadedExecutor executor = new ThreadedExecutor();
+        executor.setStateMachine(new StateMachine());
+        executor.setContext(new SimpleContext());
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> executor.submit().get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof GameException);
+    }
+
+    @Test
+    void cancel() throws Exception {
+        Wait wait = new Wait();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(wait).addDirectConnectionFromLastState(wait).build();
+
+        ThreadedExecutor executor = new ThreadedExecutor();
+        executor.setStateMachine(machine);
+        executor.setContext(new SimpleContext());
+        CompletableFuture<GameContext> future = executor.submit();
+
+        assertTrue(wait.started.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.cancel());
+        assertThrows(CancellationException.class, future::join);
+        executor.close();
+    }
+
+    @Test
+    void boundedPoolPerConfiguration() {
+        BoundedExecutor pool = ThreadedExecutor.boundedPool(1, 3, BoundedExecutor.RejectionPolicy.FAIL_FAST);
+        assertSame(pool, ThreadedExecutor.boundedPool(1, 3, BoundedExecutor.RejectionPolicy.FAIL_FAST));
+        BoundedExecutor larger = ThreadedExecutor.boundedPool(1, 5, BoundedExecutor.RejectionPolicy.FAIL_FAST);
+        BoundedExecutor blocking = ThreadedExecutor.boundedPool(1, 3, BoundedExecutor.RejectionPolicy.BLOCK);
+        assertNotSame(pool, larger);
+        assertNotSame(pool, blocking);
+
+        pool.shutdown();
+        BoundedExecutor replaced = ThreadedExecutor.boundedPool(1, 3, BoundedExecutor.RejectionPolicy.FAIL_FAST);
+        assertNotSame(pool, replaced);
+        assertFalse(replaced.isShutdown());
+        replaced.shutdown();
+        larger.shutdown();
+        blocking.shutdown();
+    }
+
+    @Test
+    void submitAfterShutdownSharedPools() throws Exception {
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(new Write()).build();
+        ThreadedExecutor executor = new ThreadedExecutor();
+        executor.setStateMachine(machine);
+        executor.setContext(new SimpleContext());
+        executor.submit().get(5, TimeUnit.SECONDS);
+        ExecutorService pool = executor.getExecutor();
+
+        ThreadedExecutor.shutdownSharedPools();
+
+        assertTrue(pool.isShutdown());
+        assertSame(executor.getContext(), executor.submit().get(5, TimeUnit.SECONDS));
+        assertNotSame(pool, executor.getExecutor());
+    }
+}
@@ -0,0 +1,73 @@
+package it.game.framework.executors;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.ExceptionLibrary;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.statemachines.StateMachine;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class TickExecutorTest {
+
+    static class Count extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            try {
+                c.put("count", c.<Integer>get("count") + 1);
+            } catch (Exception e) {
+                throw new GameException(9999, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void execute() throws Exception {
+        Count count = new Count();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(count)
+                .addConnectionFromLastState("count<10", (c) -> c.<Integer>get("count") < 10, count)
+                .build();
+
+        GameContext context = new SimpleContext();
+        context.put("count", 0);
+        TickExecutor executor = new TickExecutor(1000, 1, 5, 0);
+        executor.setStateMachine(machine);
+        executor.setContext(context);
+        executor.execute();
+
+        assertEquals(10, context.<Integer>get("count"));
+        assertEquals(10, executor.getStatistics().getSteps());
+        assertEquals(10, executor.getStatistics().getTicks());
+        assertTrue(executor.getStatistics().getMaxTickNanos() >= executor.getStatistics().getAverageTickNanos());
+    }
+
+    @Test
+    void invalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new TickExecutor(0, 1, 5, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TickExecutor(60, 0, 5, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TickExecutor(60, 1, 0, 0));
+        TickExecutor executor = new TickExecutor(60, 1, 5, 0);
+        assertThrows(IllegalArgumentException.class, () -> executor.setTickRate(-1));
+
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(new Count()).build();
+        executor.setStateMachine(machine);
+        executor.setContext(new SimpleContext());
+        ReflectionTestUtils.setField(executor, "maxCatchUpTicks", 0);
+        Exception e = executor.executeLoop();
+        assertNotNull(e);
+        assertEquals(ExceptionLibrary.get("INVALID_EXECUTOR_CONFIGURATION").getHash(), e.hashCode());
+    }
+}
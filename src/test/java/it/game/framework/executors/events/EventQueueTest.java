@@ -0,0 +1,66 @@
+package it.game.framework.executors.events;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class EventQueueTest {
+
+    @Test
+    void bounded() {
+        EventQueue<Integer> queue = new EventQueue<>(3);
+        assertEquals(4, queue.capacity());
+        for (int i = 0; i < 4; i++) assertTrue(queue.offer(i));
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, queue.drain(drained::add, 2));
+        assertEquals(List.of(0, 1), drained);
+        assertTrue(queue.offer(4));
+        assertEquals(2, queue.poll());
+        assertEquals(3, queue.poll());
+        assertEquals(4, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void manyProducers() throws Exception {
+        EventQueue<Integer> queue = new EventQueue<>(64);
+        int producers = 4;
+        int events = 10_000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    while (!queue.offer(i)) Thread.yield();
+                }
+            });
+            threads[p].start();
+        }
+        long sum = 0;
+        int received = 0;
+        while (received < producers * events) {
+            Integer e = queue.poll();
+            if (e == null) {
+                Thread.yield();
+                continue;
+            }
+            sum += e;
+            received++;
+        }
+        for (Thread t : threads) t.join();
+
+        assertEquals((long) producers * events * (events - 1) / 2, sum);
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,99 @@
+package it.game.framework.statemachines;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.stateconnections.ExceptionStateConnection;
+import it.game.framework.stateconnections.GameStateConnection;
+import it.game.framework.states.GameState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class CompiledStateMachineTest {
+
+    StateMachine machine;
+    TestState a = new TestState();
+    TestState b = new TestState();
+    TestState c = new TestState();
+
+    static class TestState extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+        }
+    }
+
+    @BeforeEach
+    void before() {
+        machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(a)
+                .addConnectionFromLastState("a2c", (ctx) -> ctx.<Integer>get("val") > 5, c)
+                .addExceptionConnectionFromLastState("CATCH:9999", new GameException(9999), c)
+                .addDirectConnectionFromLastState(b)
+                .addGameState(b)
+                .addGameState(c)
+                .addGlobalConnection("global2c", (ctx) -> ctx.<Integer>get("val") < 0, c)
+                .build();
+    }
+
+    @Test
+    void connectionsOrder() {
+        CompiledStateMachine compiled = machine.compile();
+
+        List<GameStateConnection> ofA = compiled.of(a).getConnectionList();
+        assertEquals(4, ofA.size());
+        assertSame(machine.getGlobalConnections().get(0), ofA.get(0));
+        assertEquals(machine.getConnections(), ofA.subList(1, 4));
+        assertEquals(3, compiled.of(a).getOwnConnections());
+
+        List<ExceptionStateConnection> exceptionsOfA = compiled.of(a).getExceptionConnectionList();
+        assertEquals(1, exceptionsOfA.size());
+        assertSame(machine.getConnections().get(1), exceptionsOfA.get(0));
+
+        assertEquals(machine.getGlobalConnections(), compiled.of(b).getConnectionList());
+        assertEquals(machine.getGlobalConnections(), compiled.of(null).getConnectionList());
+    }
+
+    @Test
+    void select() throws Exception {
+        CompiledStateMachine compiled = machine.compile();
+        GameContext context = new SimpleContext();
+
+        context.put("val", 10);
+        assertSame(c, compiled.select(a, context).getResultState());
+        context.put("val", 1);
+        assertSame(b, compiled.select(a, context).getResultState());
+        context.put("val", -1);
+        assertSame(c, compiled.select(b, context).getResultState());
+        context.put("val", 1);
+        assertNull(compiled.select(b, context));
+
+        assertSame(c, compiled.selectException(a, new GameException(9999)).getResultState());
+        assertNull(compiled.selectException(a, new GameException(1234)));
+    }
+
+    @Test
+    void invalidation() {
+        CompiledStateMachine compiled = machine.compile();
+        assertSame(compiled, machine.compile());
+
+        StepBuilder.builder(machine).addDirectConnection(c, a);
+        CompiledStateMachine recompiled = machine.compile();
+        assertNotSame(compiled, recompiled);
+        assertEquals(2, recompiled.of(c).getConnectionList().size());
+
+        machine.setConnections(List.of());
+        assertEquals(1, machine.compile().of(a).getConnectionList().size());
+    }
+}
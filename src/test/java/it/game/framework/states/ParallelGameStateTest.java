@@ -0,0 +1,180 @@
+package it.game.framework.states;
+
+import it.game.framework.builders.StepBuilder;
+import it.game.framework.contexts.ConcurrentContext;
+import it.game.framework.contexts.GameContext;
+import it.game.framework.contexts.SimpleContext;
+import it.game.framework.exceptions.GameException;
+import it.game.framework.executors.GameExecutor;
+import it.game.framework.executors.interfaces.ExecutorCallback;
+import it.game.framework.statemachines.StateMachine;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class ParallelGameStateTest {
+
+    static class Square extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            try {
+                int value = c.<Integer>get("value");
+                c.put("value", value * value);
+            } catch (Exception e) {
+                throw new GameException(9999, e.getMessage());
+            }
+        }
+    }
+
+    static class Hang extends GameState {
+
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new GameException(9998, "interrupted");
+            }
+        }
+    }
+
+    static class Fail extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            throw new GameException(1234);
+        }
+    }
+
+    static class Mark extends GameState {
+
+        @Override
+        public void execute(GameContext c) throws GameException {
+            c.put("handled", true);
+        }
+    }
+
+    static StateMachine machineOf(GameState state) {
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine).addStartingState(state).build();
+        return machine;
+    }
+
+    @Test
+    void joinAll() throws Exception {
+        GameContext parent = new SimpleContext();
+        parent.put("value", 3);
+        GameContext own = new SimpleContext();
+        own.put("value", 4);
+        ParallelGameState parallel = new ParallelGameState(ParallelGameState.JoinMode.ALL, List.of(
+                ParallelGameState.Branch.scoped(machineOf(new Square()), "value"),
+                ParallelGameState.Branch.own(machineOf(new Square()), own)));
+        parallel.setResultKey("results");
+
+        parallel.execute(parent);
+
+        assertEquals(3, parent.<Integer>get("value"));
+        assertEquals(16, own.<Integer>get("value"));
+        List<GameContext> results = parent.get("results");
+        assertEquals(2, results.size());
+        assertTrue(results.contains(own));
+    }
+
+    @Test
+    void joinAnyCancelsTheOthers() throws Exception {
+        Hang hang = new Hang();
+        GameContext parent = new SimpleContext();
+        parent.put("value", 5);
+        ParallelGameState parallel = new ParallelGameState(ParallelGameState.JoinMode.ANY, 0, new ForkJoinPool(2), List.of(
+                ParallelGameState.Branch.scoped(machineOf(hang)),
+                ParallelGameState.Branch.scoped(machineOf(new Square()), "value")));
+        parallel.setResultKey("results");
+
+        parallel.execute(parent);
+
+        List<GameContext> results = parent.get("results");
+        assertEquals(25, results.get(0).<Integer>get("value"));
+        assertTrue(hang.interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void branchExceptionRouting() throws Exception {
+        ParallelGameState parallel = new ParallelGameState(ParallelGameState.JoinMode.ALL, List.of(
+                ParallelGameState.Branch.scoped(machineOf(new Fail())),
+                ParallelGameState.Branch.scoped(machineOf(new Mark()))));
+        Mark handler = new Mark();
+        StateMachine machine = new StateMachine();
+        StepBuilder.builder(machine)
+                .addStartingState(parallel)
+                .addExceptionConnectionFromLastState("CATCH:1234", new GameException(1234), handler)
+                .addGameState(handler)
+                .build();
+        GameContext context = new SimpleContext();
+
+        new GameExecutor(false, false, null, machine, context, null).execute();
+
+        assertTrue(context.<Boolean>get("handled"));
+    }
+
+    @Test
+    void branchHandlesItsOwnException() throws Exception {
+        Fail fail = new Fail();
+        Mark recover = new Mark();
+        StateMachine branch = new StateMachine();
+        StepBuilder.builder(branch)
+                .addStartingState(fail)
+                .addGameState(recover)
+                .addExceptionConnection("CATCH:1234", new GameException(1234), fail, recover)
+                .build();
+        GameContext own = new SimpleContext();
+        ParallelGameState parallel = new ParallelGameState(ParallelGameState.JoinMode.ALL, List.of(
+                ParallelGameState.Branch.own(branch, own),
+                ParallelGameState.Branch.scoped(machineOf(new Square()), "value")));
+        parallel.setResultKey("results");
+        GameContext parent = new SimpleContext();
+        parent.put("value", 2);
+
+        parallel.execute(parent);
+
+        assertTrue(own.<Boolean>get("handled"));
+        assertEquals(2, parent.<List<GameContext>>get("results").size());
+    }
+
+    @Test
+    void sharedBranchesKeepTheChanges() throws Exception {
+        ParallelGameState parallel = new ParallelGameState(ParallelGameState.JoinMode.ALL, List.of(
+                ParallelGameState.Branch.shared(machineOf(new Square())),
+                ParallelGameState.Branch.shared(machineOf(new Mark()))));
+        StateMachine machine = machineOf(parallel);
+        List<String> changed = new ArrayList<>();
+        ExecutorCallback delta = new ExecutorCallback() {
+            @Override
+            public void afterExecution(GameState currentState, GameContext context) {
+                context.changedKeys().copyTo(changed);
+            }
+        };
+        GameContext context = new ConcurrentContext();
+        context.put("value", 3);
+
+        new GameExecutor(false, false, null, machine, context, List.of(delta)).execute();
+
+        assertEquals(9, context.<Integer>get("value"));
+        assertEquals(2, changed.size());
+        assertTrue(changed.containsAll(List.of("value", "handled")));
+    }
+}
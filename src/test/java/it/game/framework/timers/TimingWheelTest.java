@@ -0,0 +1,60 @@
+package it.game.framework.timers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+class TimingWheelTest {
+
+    @Test
+    void expireAcrossLevels() throws Exception {
+        try (TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS, 4, 3)) {
+            long[] delays = {0, 1, 3, 5, 17, 40, 90, 150};
+            CountDownLatch latch = new CountDownLatch(delays.length);
+            AtomicInteger early = new AtomicInteger();
+            for (long delay : delays) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+                wheel.scheduleAt(() -> {
+                    if (System.nanoTime() < deadline) early.incrementAndGet();
+                    latch.countDown();
+                }, deadline);
+            }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(0, early.get());
+            assertEquals(delays.length, wheel.getExpired());
+            assertEquals(0, wheel.getPending());
+        }
+    }
+
+    @Test
+    void cancel() throws Exception {
+        try (TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS)) {
+            AtomicBoolean run = new AtomicBoolean();
+            Timeout cancelled = wheel.schedule(() -> run.set(true), 20, TimeUnit.MILLISECONDS);
+            CountDownLatch latch = new CountDownLatch(1);
+            Timeout expired = wheel.schedule(latch::countDown, 40, TimeUnit.MILLISECONDS);
+            assertEquals(2, wheel.getPending());
+
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel());
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+            assertFalse(run.get());
+            assertTrue(cancelled.isCancelled());
+            assertTrue(expired.isExpired());
+            assertFalse(expired.cancel());
+            assertEquals(0, wheel.getPending());
+        }
+    }
+}